@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Flow;
+
+/**
+ * {@link Flow.Subscriber} which may receive multiple items in a single call.
+ *
+ * @param <T> the subscribed item type
+ */
+public interface BatchSubscriber<T> extends Flow.Subscriber<T> {
+
+    /**
+     * Handles the items of the given array range as if they were passed to {@link #onNext(Object)} one by one.
+     *
+     * @param items array of the items
+     * @param from index of the first item (inclusive)
+     * @param to index of the last item (exclusive)
+     *
+     * @apiNote the array should not be stored nor modified by this method
+     */
+    void onNextBatch(@NotNull T @NotNull [] items, int from, int to);
+
+    /**
+     * Passes the items of the given array range to the given subscriber
+     * in a single call if it is a {@link BatchSubscriber batch subscriber} and one by one otherwise.
+     *
+     * @param subscriber subscriber to which the items should be passed
+     * @param items array of the items
+     * @param from index of the first item (inclusive)
+     * @param to index of the last item (exclusive)
+     * @param <T> type of the items
+     *
+     * @throws NullPointerException if {@code subscriber} is {@code null}
+     * @throws NullPointerException if {@code items} is {@code null}
+     * @throws IndexOutOfBoundsException if the range is out of the array's bounds
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void onNextBatch(final Flow.@NonNull Subscriber<? super T> subscriber,
+                                final @NotNull T @NonNull [] items, final int from, final int to) {
+        if (from < 0 || from > to || to > items.length) throw new IndexOutOfBoundsException(
+                "Range [" + from + "; " + to + ") is out of bounds of an array of length " + items.length
+        );
+
+        if (subscriber instanceof BatchSubscriber) ((BatchSubscriber<? super T>) subscriber)
+                .onNextBatch(items, from, to);
+        else for (var index = from; index < to; index++) subscriber.onNext(items[index]);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Processor;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Processor Processor} respecting the demand of each of its subscribers
+ * by buffering the items which were not yet requested.
+ * <p>
+ * Each subscriber has its own bounded buffer whose overflow is handled according to the {@link OverflowStrategy}.
+ * Upstream terminal signals get delivered to a subscriber after all items buffered for it.
+ * <p>
+ * The publishing thread only buffers the items and never delivers them:
+ * the items get delivered on the thread {@link Subscription#request(long) requesting} them
+ * or, if the subscriber has outstanding demand, via an {@link Executor}
+ * so that a slow subscriber cannot block the publisher.
+ *
+ * @param <T> type of processed values
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class BufferingProcessor<T> implements Processor<T, T> {
+
+    /**
+     * Empty array of subscriptions
+     */
+    private static final @NotNull BufferedSubscription<?> @NotNull [] NO_SUBSCRIPTIONS = new BufferedSubscription<?>[0];
+
+    /**
+     * {@link VarHandle} of {@link #subscriptions}
+     */
+    private static final @NotNull VarHandle SUBSCRIPTIONS;
+
+    static {
+        try {
+            SUBSCRIPTIONS = MethodHandles.lookup()
+                    .findVarHandle(BufferingProcessor.class, "subscriptions", BufferedSubscription[].class);
+        } catch (final NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Executor used for delivery of the items published while a subscriber has outstanding demand
+     */
+    @NotNull Executor executor;
+
+    /**
+     * Maximal number of items buffered for a single subscriber
+     */
+    int bufferCapacity;
+
+    /**
+     * Strategy used when the buffer of a subscriber is full
+     */
+    @NotNull OverflowStrategy overflowStrategy;
+
+    /**
+     * Subscriptions of all subscribers of this processor, the array itself is never modified
+     */
+    @SuppressWarnings("unchecked")
+    @NonFinal volatile @NotNull BufferedSubscription<T> @NotNull [] subscriptions
+            = (BufferedSubscription<T>[]) NO_SUBSCRIPTIONS;
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        if (indexOf(subscriptions, subscriber) != -1) return;
+
+        final BufferedSubscription<T> subscription;
+        subscriber.onSubscribe(subscription = new BufferedSubscription<>(this, subscriber));
+
+        BufferedSubscription<T>[] current, updated;
+        do {
+            final int length;
+            if (subscription.cancelled) return;
+            if (indexOf(current = subscriptions, subscriber) != -1) {
+                // the subscriber was concurrently subscribed, this only cancels the new subscription
+                subscription.cancel();
+
+                return;
+            }
+
+            (updated = Arrays.copyOf(current, (length = current.length) + 1))[length] = subscription;
+        } while (!SUBSCRIPTIONS.compareAndSet(this, current, updated));
+
+        // the subscription might have been cancelled before it became visible
+        if (subscription.cancelled) unsubscribe(subscription);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unsubscribe(final @NotNull BufferedSubscription<T> subscription) {
+        BufferedSubscription<T>[] current, updated;
+        do {
+            final int index, length;
+            // the subscription is looked up by identity so that a duplicate one cannot remove the original
+            if ((index = indexOf(current = subscriptions, subscription)) == -1) return;
+
+            if ((length = current.length) == 1) updated = (BufferedSubscription<T>[]) NO_SUBSCRIPTIONS;
+            else {
+                updated = Arrays.copyOf(current, length - 1);
+                System.arraycopy(current, index + 1, updated, index, length - index - 1);
+            }
+        } while (!SUBSCRIPTIONS.compareAndSet(this, current, updated));
+    }
+
+    private static int indexOf(final @NotNull BufferedSubscription<?> @NotNull [] subscriptions,
+                               final @NotNull Subscriber<?> subscriber) {
+        final int length = subscriptions.length;
+        for (var index = 0; index < length; index++) if (subscriptions[index].subscriber.equals(subscriber)) {
+            return index;
+        }
+
+        return -1;
+    }
+
+    private static int indexOf(final @NotNull BufferedSubscription<?> @NotNull [] subscriptions,
+                               final @NotNull BufferedSubscription<?> subscription) {
+        final int length = subscriptions.length;
+        for (var index = 0; index < length; index++) if (subscriptions[index] == subscription) return index;
+
+        return -1;
+    }
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {} // no-op
+
+    @Override
+    public void onNext(final T item) {
+        for (val subscription : subscriptions) subscription.offer(item);
+    }
+
+    @Override
+    public void onError(final Throwable error) {
+        for (val subscription : subscriptions) subscription.terminate(error);
+    }
+
+    @Override
+    public void onComplete() {
+        for (val subscription : subscriptions) subscription.terminate(null);
+    }
+
+    /**
+     * Subscription of a single subscriber to a {@link BufferingProcessor}.
+     *
+     * @param <T> type of processed values
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class BufferedSubscription<T> implements Subscription, Runnable {
+
+        /**
+         * Processor to which the subscriber is subscribed
+         */
+        @NotNull BufferingProcessor<T> processor;
+
+        /**
+         * Subscriber to which the items get delivered
+         */
+        @NotNull Subscriber<? super T> subscriber;
+
+        /**
+         * Ring buffer of the items which were not yet delivered, guarded by itself
+         */
+        @Nullable Object @NotNull [] buffer;
+
+        /**
+         * Number of requested items which were not yet delivered
+         */
+        @NotNull AtomicLong demand = new AtomicLong();
+
+        /**
+         * Counter of the pending drain requests, only the thread incrementing it from zero
+         * delivers the items or schedules their delivery
+         */
+        @NotNull AtomicInteger drainRequests = new AtomicInteger();
+
+        /**
+         * Index of the oldest buffered item
+         */
+        @NonFinal int head;
+
+        /**
+         * Number of buffered items
+         */
+        @NonFinal int size;
+
+        /**
+         * Flag indicating that no more signals should be delivered to the subscriber
+         */
+        @NonFinal volatile boolean cancelled;
+
+        /**
+         * Flag indicating that the upstream has terminated
+         */
+        @NonFinal volatile boolean terminated;
+
+        /**
+         * Error which should be delivered to the subscriber once the buffer is drained
+         */
+        @NonFinal volatile @Nullable Throwable terminalError;
+
+        /**
+         * Error which should be delivered to the subscriber immediately
+         */
+        @NonFinal volatile @Nullable Throwable eagerError;
+
+        private BufferedSubscription(final @NotNull BufferingProcessor<T> processor,
+                                     final @NotNull Subscriber<? super T> subscriber) {
+            this.processor = processor;
+            this.subscriber = subscriber;
+            buffer = new Object[processor.bufferCapacity];
+        }
+
+        private void offer(final T item) {
+            if (cancelled) return;
+
+            val buffer = this.buffer;
+            synchronized (buffer) {
+                final int capacity;
+                if (size == (capacity = buffer.length)) switch (processor.overflowStrategy) {
+                    case DROP_OLDEST: {
+                        buffer[head] = null;
+                        head = (head + 1) % capacity;
+                        size--;
+                        break;
+                    }
+                    case KEEP_LATEST: {
+                        Arrays.fill(buffer, null);
+                        head = size = 0;
+                        break;
+                    }
+                    case ERROR: {
+                        eagerError = new IllegalStateException(
+                                "Buffer of subscriber " + subscriber + " has overflown"
+                        );
+                        break;
+                    }
+                }
+                if (size != capacity) buffer[(head + size++) % capacity] = item;
+            }
+
+            // otherwise the item gets delivered by the thread requesting it
+            if (demand.get() != 0 || eagerError != null) schedule();
+        }
+
+        private void terminate(final @Nullable Throwable error) {
+            terminalError = error;
+            terminated = true;
+
+            // otherwise the terminal signal gets delivered by the thread requesting the buffered items
+            final boolean empty;
+            synchronized (buffer) {
+                empty = size == 0;
+            }
+            if (empty || demand.get() != 0) schedule();
+        }
+
+        @Override
+        public void request(final long amount) {
+            if (amount <= 0) {
+                eagerError = new IllegalArgumentException("Requested amount should be positive");
+                drain();
+
+                return;
+            }
+
+            long current, updated;
+            do {
+                if ((current = demand.get()) == Long.MAX_VALUE) return;
+                if ((updated = current + amount) < 0) updated = Long.MAX_VALUE;
+            } while (!demand.compareAndSet(current, updated));
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            processor.unsubscribe(this);
+
+            drain(); // releases buffered items
+        }
+
+        /**
+         * Delivers the requested buffered items and terminal signals to the subscriber on the current thread
+         * unless a delivery is already in progress in which case it gets notified.
+         */
+        private void drain() {
+            if (drainRequests.getAndIncrement() == 0) run();
+        }
+
+        /**
+         * Schedules delivery of the requested buffered items and terminal signals to the subscriber
+         * on the executor of the processor unless a delivery is already in progress in which case it gets notified.
+         */
+        private void schedule() {
+            if (drainRequests.getAndIncrement() != 0) return;
+
+            try {
+                processor.executor.execute(this);
+            } catch (final RejectedExecutionException e) {
+                cancelled = true;
+                processor.unsubscribe(this);
+                clear();
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Delivers the requested buffered items and terminal signals to the subscriber.
+         * This happens on the thread which requested the drain first while the others only notify it.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            val buffer = this.buffer;
+            var missed = 1;
+            do {
+                while (true) {
+                    if (cancelled) {
+                        clear();
+                        break;
+                    }
+
+                    final Throwable error;
+                    if ((error = eagerError) != null) {
+                        cancelled = true;
+                        processor.unsubscribe(this);
+                        clear();
+                        subscriber.onError(error);
+                        break;
+                    }
+
+                    final boolean done = terminated; // should be read before the buffer
+                    final T item;
+                    synchronized (buffer) {
+                        if (size == 0) item = null;
+                        else if (demand.get() == 0) break;
+                        else {
+                            final int thisHead;
+                            item = (T) buffer[thisHead = head];
+                            buffer[thisHead] = null;
+                            head = (thisHead + 1) % buffer.length;
+                            size--;
+                        }
+                    }
+
+                    if (item == null) {
+                        if (done) {
+                            cancelled = true;
+                            processor.unsubscribe(this);
+
+                            final Throwable upstreamError;
+                            if ((upstreamError = terminalError) == null) subscriber.onComplete();
+                            else subscriber.onError(upstreamError);
+                        }
+                        break;
+                    }
+
+                    if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+                    subscriber.onNext(item);
+                }
+            } while ((missed = drainRequests.addAndGet(-missed)) != 0);
+        }
+
+        private void clear() {
+            val buffer = this.buffer;
+            synchronized (buffer) {
+                Arrays.fill(buffer, null);
+                head = size = 0;
+            }
+        }
+    }
+}
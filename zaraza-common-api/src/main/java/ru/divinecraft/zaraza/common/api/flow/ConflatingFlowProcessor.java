@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Flow;
+
+/**
+ * {@link MemoizingFlowProcessor Memoizing processor} which does not deliver the values as soon as they are processed
+ * but only records the newest one and delivers it on {@link #drain() drain} skipping the intermediate ones.
+ * Terminal signals get delivered immediately after the pending value.
+ *
+ * @param <T> the processed item type
+ */
+public interface ConflatingFlowProcessor<T> extends MemoizingFlowProcessor<T, T> {
+
+    /**
+     * Checks if there is a value which was processed but not yet delivered.
+     *
+     * @return {@code true} if there is a pending value and {@code false} otherwise
+     */
+    boolean hasPending();
+
+    /**
+     * Delivers the pending value, if there is one, to all subscribers.
+     *
+     * @return {@code true} if a value was delivered and {@code false} otherwise
+     *
+     * @apiNote this is expected to be called once per drain point, i.e. once per server tick,
+     * and should not be called concurrently
+     */
+    boolean drain();
+
+    /**
+     * Gets the last value delivered to the subscribers by {@link #drain()}.
+     * Unlike {@link #lastValue()} this does not account for the pending value.
+     *
+     * @return the last delivered value or {@code null} if there was none
+     *
+     * @see Flow.Subscriber#onNext(Object)
+     */
+    @Nullable T lastDeliveredValue();
+}
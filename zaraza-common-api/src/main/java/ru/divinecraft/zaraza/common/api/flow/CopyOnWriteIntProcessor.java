@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+
+/**
+ * {@link IntProcessor Int processor} storing its subscribers in an immutable array which gets replaced on each change.
+ * <p>
+ * The subscribers which are not {@link IntSubscriber int subscribers} get wrapped on subscription
+ * so that the dispatch does not depend on the kind of the subscriber.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+class CopyOnWriteIntProcessor implements IntProcessor {
+
+    /**
+     * Empty array of subscribers
+     */
+    private static final @NotNull IntSubscriber @NotNull [] NO_SUBSCRIBERS = new IntSubscriber[0];
+
+    /**
+     * {@link VarHandle} of {@link #subscribers}
+     */
+    private static final @NotNull VarHandle SUBSCRIBERS;
+
+    static {
+        try {
+            SUBSCRIBERS = MethodHandles.lookup()
+                    .findVarHandle(CopyOnWriteIntProcessor.class, "subscribers", IntSubscriber[].class);
+        } catch (final NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * All subscribers of this processor, the array itself is never modified
+     */
+    volatile @NotNull IntSubscriber @NotNull [] subscribers = NO_SUBSCRIBERS;
+
+    @Override
+    public void subscribe(final Subscriber<? super Integer> subscriber) {
+        if (indexOf(subscribers, subscriber) != -1) return;
+
+        final CopyOnWriteSubscription subscription;
+        subscriber.onSubscribe(subscription = new CopyOnWriteSubscription(subscriber));
+
+        final IntSubscriber intSubscriber = subscriber instanceof IntSubscriber
+                ? (IntSubscriber) subscriber : new BoxingIntSubscriber(subscriber);
+
+        IntSubscriber[] current, updated;
+        do {
+            final int length;
+            if (subscription.cancelled) return;
+            if (indexOf(current = subscribers, subscriber) != -1) {
+                // the subscriber was concurrently subscribed so its original subscription should stay intact
+                subscription.cancelled = true;
+
+                return;
+            }
+
+            (updated = Arrays.copyOf(current, (length = current.length) + 1))[length] = intSubscriber;
+        } while (!SUBSCRIBERS.compareAndSet(this, current, updated));
+
+        // the subscription might have been cancelled before its subscriber became visible
+        if (subscription.cancelled) unsubscribe(subscriber);
+    }
+
+    private void unsubscribe(final @NotNull Subscriber<? super Integer> subscriber) {
+        IntSubscriber[] current, updated;
+        do {
+            final int index, length;
+            if ((index = indexOf(current = subscribers, subscriber)) == -1) return;
+
+            if ((length = current.length) == 1) updated = NO_SUBSCRIBERS;
+            else {
+                updated = Arrays.copyOf(current, length - 1);
+                System.arraycopy(current, index + 1, updated, index, length - index - 1);
+            }
+        } while (!SUBSCRIBERS.compareAndSet(this, current, updated));
+    }
+
+    private static int indexOf(final @NotNull IntSubscriber @NotNull [] subscribers,
+                               final @NotNull Subscriber<?> subscriber) {
+        final int length = subscribers.length;
+        for (var index = 0; index < length; index++) {
+            final IntSubscriber current;
+            if ((current = subscribers[index]) instanceof BoxingIntSubscriber
+                    ? ((BoxingIntSubscriber) current).subscriber.equals(subscriber)
+                    : current.equals(subscriber)) return index;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {} // no-op
+
+    @Override
+    public void onNextInt(final int value) {
+        for (val subscriber : subscribers) subscriber.onNextInt(value);
+    }
+
+    @Override
+    public void onError(final Throwable error) {
+        for (val subscriber : subscribers) subscriber.onError(error);
+    }
+
+    @Override
+    public void onComplete() {
+        for (val subscriber : subscribers) subscriber.onComplete();
+    }
+
+    /**
+     * Subscription to a {@link CopyOnWriteIntProcessor} remembering if it was cancelled.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private final class CopyOnWriteSubscription implements Subscription {
+
+        /**
+         * Subscriber which owns this subscription
+         */
+        final @NotNull Subscriber<? super Integer> subscriber;
+
+        /**
+         * Flag indicating that this subscription was cancelled
+         */
+        volatile boolean cancelled;
+
+        @Override
+        public void request(final long amount) {} // no-op
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+
+            cancelled = true;
+            unsubscribe(subscriber);
+        }
+    }
+
+    /**
+     * {@link IntSubscriber} boxing the values for a generic subscriber.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class BoxingIntSubscriber implements IntSubscriber {
+
+        /**
+         * Subscriber to which the boxed values get passed
+         */
+        @NotNull Subscriber<? super Integer> subscriber;
+
+        @Override
+        public void onNextInt(final int value) {
+            subscriber.onNext(value);
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            subscriber.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            subscriber.onComplete();
+        }
+    }
+
+    /**
+     * {@link MemoizingIntProcessor Memoizing} {@link CopyOnWriteIntProcessor}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    static class Memoizing extends CopyOnWriteIntProcessor implements MemoizingIntProcessor {
+
+        /**
+         * Last value passed to {@link #onNextInt(int)}
+         */
+        volatile int lastValue;
+
+        /**
+         * Flag indicating whether {@link #lastValue} is set, written after it
+         */
+        volatile boolean hasLastValue;
+
+        @Override
+        public void onNextInt(final int value) {
+            remember(value);
+            super.onNextInt(value);
+        }
+
+        /**
+         * Remembers the given value as the last processed one.
+         *
+         * @param value processed value
+         */
+        protected final void remember(final int value) {
+            lastValue = value;
+            hasLastValue = true;
+        }
+
+        @Override
+        public boolean hasLastValue() {
+            return hasLastValue;
+        }
+
+        @Override
+        public int lastIntValue() {
+            if (!hasLastValue) throw new NoSuchElementException("There is no last value");
+
+            return lastValue;
+        }
+
+        @Override
+        public @Nullable Integer lastValue() {
+            return hasLastValue ? lastValue : null;
+        }
+    }
+
+    /**
+     * {@link ConflatingIntProcessor Conflating} {@link CopyOnWriteIntProcessor}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    static final class Conflating extends Memoizing implements ConflatingIntProcessor {
+
+        /**
+         * {@link VarHandle} of {@link #pendingValue}
+         */
+        private static final @NotNull VarHandle PENDING_VALUE;
+
+        static {
+            try {
+                PENDING_VALUE = MethodHandles.lookup().findVarHandle(Conflating.class, "pendingValue", long.class);
+            } catch (final NoSuchFieldException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * Marker of the absence of {@link #pendingValue} which is out of {@code int} range
+         */
+        private static final long NO_PENDING_VALUE = Long.MIN_VALUE;
+
+        /**
+         * Flag indicating whether the pending value equal to the last delivered one should not be delivered
+         */
+        final boolean suppressEqual;
+
+        /**
+         * Value passed to {@link #onNextInt(int)} which was not yet delivered or {@link #NO_PENDING_VALUE}
+         */
+        volatile long pendingValue = NO_PENDING_VALUE;
+
+        /**
+         * Last value delivered by {@link #drain()} or {@link #NO_PENDING_VALUE}
+         */
+        long lastDeliveredValue = NO_PENDING_VALUE;
+
+        Conflating(final boolean suppressEqual) {
+            this.suppressEqual = suppressEqual;
+        }
+
+        @Override
+        public void onNextInt(final int value) {
+            remember(value);
+            pendingValue = value;
+        }
+
+        @Override
+        public boolean hasPending() {
+            return pendingValue != NO_PENDING_VALUE;
+        }
+
+        @Override
+        public boolean drain() {
+            final long value;
+            if ((value = (long) PENDING_VALUE.getAndSet(this, NO_PENDING_VALUE)) == NO_PENDING_VALUE
+                    || suppressEqual && value == lastDeliveredValue) return false;
+
+            lastDeliveredValue = value;
+            super.onNextInt((int) value);
+
+            return true;
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            drain();
+            super.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            drain();
+            super.onComplete();
+        }
+    }
+}
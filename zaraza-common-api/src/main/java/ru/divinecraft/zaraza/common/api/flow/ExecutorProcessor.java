@@ -0,0 +1,309 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Processor;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Processor Processor} delivering the signals to each of its subscribers asynchronously via an {@link Executor}.
+ * <p>
+ * Each subscriber has its own bounded {@link MpscRingBuffer queue} of items
+ * which get delivered to it in order by at most one task at a time
+ * so that the publishing thread only pays for an enqueue and, at most, a task submission.
+ * The subscriber whose queue overflows gets cancelled and notified via {@link Subscriber#onError(Throwable)}.
+ *
+ * @param <T> type of processed values
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class ExecutorProcessor<T> implements Processor<T, T> {
+
+    /**
+     * Empty array of subscriptions
+     */
+    private static final @NotNull AsyncSubscription<?> @NotNull [] NO_SUBSCRIPTIONS = new AsyncSubscription<?>[0];
+
+    /**
+     * {@link VarHandle} of {@link #subscriptions}
+     */
+    private static final @NotNull VarHandle SUBSCRIPTIONS;
+
+    static {
+        try {
+            SUBSCRIPTIONS = MethodHandles.lookup()
+                    .findVarHandle(ExecutorProcessor.class, "subscriptions", AsyncSubscription[].class);
+        } catch (final NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Executor used for delivery of the signals
+     */
+    @NotNull Executor executor;
+
+    /**
+     * Minimal number of items queued for a single subscriber
+     */
+    int bufferCapacity;
+
+    /**
+     * Subscriptions of all subscribers of this processor, the array itself is never modified
+     */
+    @SuppressWarnings("unchecked")
+    @NonFinal volatile @NotNull AsyncSubscription<T> @NotNull [] subscriptions
+            = (AsyncSubscription<T>[]) NO_SUBSCRIPTIONS;
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        AsyncSubscription<T>[] current, updated;
+        AsyncSubscription<T> subscription;
+        do {
+            final int length;
+            if (indexOf(current = subscriptions, subscriber) != -1) return;
+
+            (updated = Arrays.copyOf(current, (length = current.length) + 1))[length]
+                    = subscription = new AsyncSubscription<>(this, subscriber);
+        } while (!SUBSCRIPTIONS.compareAndSet(this, current, updated));
+
+        subscription.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void unsubscribe(final @NotNull AsyncSubscription<T> subscription) {
+        AsyncSubscription<T>[] current, updated;
+        do {
+            final int index, length;
+            if ((index = indexOf(current = subscriptions, subscription.subscriber)) == -1) return;
+
+            if ((length = current.length) == 1) updated = (AsyncSubscription<T>[]) NO_SUBSCRIPTIONS;
+            else {
+                updated = Arrays.copyOf(current, length - 1);
+                System.arraycopy(current, index + 1, updated, index, length - index - 1);
+            }
+        } while (!SUBSCRIPTIONS.compareAndSet(this, current, updated));
+    }
+
+    private static int indexOf(final @NotNull AsyncSubscription<?> @NotNull [] subscriptions,
+                               final @NotNull Subscriber<?> subscriber) {
+        final int length = subscriptions.length;
+        for (var index = 0; index < length; index++) if (subscriptions[index].subscriber.equals(subscriber)) {
+            return index;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {} // no-op
+
+    @Override
+    public void onNext(final T item) {
+        for (val subscription : subscriptions) subscription.offer(item);
+    }
+
+    @Override
+    public void onError(final Throwable error) {
+        for (val subscription : subscriptions) subscription.terminate(error);
+    }
+
+    @Override
+    public void onComplete() {
+        for (val subscription : subscriptions) subscription.terminate(null);
+    }
+
+    /**
+     * Subscription of a single subscriber to an {@link ExecutorProcessor}.
+     *
+     * @param <T> type of processed values
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class AsyncSubscription<T> implements Subscription, Runnable {
+
+        /**
+         * Processor to which the subscriber is subscribed
+         */
+        @NotNull ExecutorProcessor<T> processor;
+
+        /**
+         * Subscriber to which the items get delivered
+         */
+        @NotNull Subscriber<? super T> subscriber;
+
+        /**
+         * Queue of the items which were not yet delivered
+         */
+        @NotNull MpscRingBuffer<T> queue;
+
+        /**
+         * Counter of the pending drain requests, only the thread incrementing it from zero schedules the delivery
+         */
+        @NotNull AtomicInteger drainRequests = new AtomicInteger(1); // held until the subscription is started
+
+        /**
+         * Flag indicating that {@link Subscriber#onSubscribe(Subscription)} was delivered, only accessed by the delivery
+         */
+        @NonFinal boolean subscribed;
+
+        /**
+         * Flag indicating that no more signals should be delivered to the subscriber
+         */
+        @NonFinal volatile boolean cancelled;
+
+        /**
+         * Flag indicating that the upstream has terminated
+         */
+        @NonFinal volatile boolean terminated;
+
+        /**
+         * Error which should be delivered to the subscriber once the queue is drained
+         */
+        @NonFinal volatile @Nullable Throwable terminalError;
+
+        /**
+         * Error which should be delivered to the subscriber before any other queued signal
+         */
+        @NonFinal volatile @Nullable Throwable eagerError;
+
+        private AsyncSubscription(final @NotNull ExecutorProcessor<T> processor,
+                                  final @NotNull Subscriber<? super T> subscriber) {
+            this.processor = processor;
+            this.subscriber = subscriber;
+            queue = new MpscRingBuffer<>(processor.bufferCapacity);
+        }
+
+        /**
+         * Schedules delivery of {@link Subscriber#onSubscribe(Subscription)} which happens before any other signal.
+         */
+        private void start() {
+            execute();
+        }
+
+        private void offer(final T item) {
+            if (cancelled) return;
+
+            if (!queue.offer(item)) eagerError = new IllegalStateException(
+                    "Queue of subscriber " + subscriber + " has overflown"
+            );
+
+            schedule();
+        }
+
+        private void terminate(final @Nullable Throwable error) {
+            terminalError = error;
+            terminated = true;
+
+            schedule();
+        }
+
+        @Override
+        public void request(final long amount) {} // no-op
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            processor.unsubscribe(this);
+
+            schedule(); // releases queued items
+        }
+
+        private void schedule() {
+            if (drainRequests.getAndIncrement() == 0) execute();
+        }
+
+        private void execute() {
+            try {
+                processor.executor.execute(this);
+            } catch (final RejectedExecutionException e) {
+                cancelled = true;
+                processor.unsubscribe(this);
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Delivers the queued signals to the subscriber.
+         */
+        @Override
+        public void run() {
+            if (!subscribed) {
+                subscribed = true;
+                subscriber.onSubscribe(this);
+            }
+
+            var missed = 1;
+            do drain();
+            while ((missed = drainRequests.addAndGet(-missed)) != 0);
+        }
+
+        private void drain() {
+            while (true) {
+                if (cancelled) {
+                    queue.clear();
+                    return;
+                }
+
+                final Throwable error;
+                if ((error = eagerError) != null) {
+                    cancelled = true;
+                    processor.unsubscribe(this);
+                    queue.clear();
+                    subscriber.onError(error);
+                    return;
+                }
+
+                final boolean done = terminated; // should be read before the queue
+                final T item;
+                if ((item = queue.poll()) == null) {
+                    if (done) {
+                        cancelled = true;
+                        processor.unsubscribe(this);
+
+                        final Throwable upstreamError;
+                        if ((upstreamError = terminalError) == null) subscriber.onComplete();
+                        else subscriber.onError(upstreamError);
+                    }
+                    return;
+                }
+
+                try {
+                    subscriber.onNext(item);
+                } catch (final RuntimeException e) {
+                    cancelled = true;
+                    processor.unsubscribe(this);
+                    queue.clear();
+
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,608 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Operators over {@link Publisher publishers}.
+ * <p>
+ * Synchronous single-source operators produce {@link FusedPublisher fused publishers}
+ * so that their chains get applied by a single subscriber.
+ */
+@UtilityClass
+public class FlowOperators {
+
+    /**
+     * Creates a publisher of the items of the given publisher transformed by the given function.
+     *
+     * @param source publisher of the original items
+     * @param mapper function transforming the items
+     * @param <T> type of original items
+     * @param <R> type of transformed items
+     * @return publisher of the transformed items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code mapper} is {@code null}
+     */
+    public <T, R> @NotNull FusedPublisher<R> map(final @NonNull Publisher<T> source,
+                                                final @NonNull Function<? super T, ? extends R> mapper) {
+        return FusedPublisher.of(source).map(mapper);
+    }
+
+    /**
+     * Creates a publisher of the items of the given publisher matching the given predicate.
+     *
+     * @param source publisher of the original items
+     * @param filter predicate which should be matched by the published items
+     * @param <T> type of items
+     * @return publisher of the matching items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code filter} is {@code null}
+     */
+    public <T> @NotNull FusedPublisher<T> filter(final @NonNull Publisher<T> source,
+                                                final @NonNull Predicate<? super T> filter) {
+        return FusedPublisher.of(source).filter(filter);
+    }
+
+    /**
+     * Creates a publisher of the items of the given publisher
+     * which are not {@link Object#equals(Object) equal} to the previous ones.
+     *
+     * @param source publisher of the original items
+     * @param <T> type of items
+     * @return publisher of the changed items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     */
+    public <T> @NotNull FusedPublisher<T> distinctUntilChanged(final @NonNull Publisher<T> source) {
+        return FusedPublisher.of(source).distinctUntilChanged();
+    }
+
+    /**
+     * Creates a publisher of the values accumulated from the items of the given publisher.
+     *
+     * @param source publisher of the original items
+     * @param initialValue value to which the first item gets accumulated
+     * @param accumulator function accumulating the item to the previous value
+     * @param <T> type of original items
+     * @param <R> type of accumulated values
+     * @return publisher of each accumulated value, {@code initialValue} itself is not published
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code initialValue} is {@code null}
+     * @throws NullPointerException if {@code accumulator} is {@code null}
+     */
+    public <T, R> @NotNull FusedPublisher<R> scan(final @NonNull Publisher<T> source,
+                                                 final @NonNull R initialValue,
+                                                 final @NonNull BiFunction<R, ? super T, R> accumulator) {
+        return FusedPublisher.of(source).scan(initialValue, accumulator);
+    }
+
+    /**
+     * Creates a publisher of the values combined from the latest items of the given publishers.
+     * A value gets published each time either publisher publishes an item once both have published one.
+     *
+     * @param first first publisher of the original items
+     * @param second second publisher of the original items
+     * @param combiner function combining the latest items
+     * @param <A> type of the first publisher's items
+     * @param <B> type of the second publisher's items
+     * @param <R> type of combined values
+     * @return publisher of the combined values
+     *
+     * @throws NullPointerException if {@code first} is {@code null}
+     * @throws NullPointerException if {@code second} is {@code null}
+     * @throws NullPointerException if {@code combiner} is {@code null}
+     *
+     * @apiNote the created publisher completes once both publishers complete
+     * and fails once either of them fails
+     */
+    public <A, B, R> @NotNull FusedPublisher<R> combineLatest(
+            final @NonNull Publisher<A> first, final @NonNull Publisher<B> second,
+            final @NonNull BiFunction<? super A, ? super B, ? extends R> combiner
+    ) {
+        return FusedPublisher.of(new CombineLatestPublisher<>(first, second, combiner));
+    }
+
+    /**
+     * Creates a publisher of the items of the given publisher
+     * which were not followed by another one for the given number of ticks.
+     *
+     * @param source publisher of the original items
+     * @param wheel timer wheel measuring the delay
+     * @param delay number of ticks for which the published item should not be followed by another one
+     * @param <T> type of items
+     * @return publisher of the settled items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code wheel} is {@code null}
+     *
+     * @apiNote the pending item gets published immediately once the source completes
+     */
+    public <T> @NotNull FusedPublisher<T> debounce(final @NonNull Publisher<T> source,
+                                                  final @NonNull TimerWheel wheel, final long delay) {
+        return FusedPublisher.of(subscriber -> source.subscribe(new DebounceSubscriber<>(subscriber, wheel, delay)));
+    }
+
+    /**
+     * Creates a publisher of the items of the given publisher publishing at most one item per the given period.
+     * The first item gets published immediately while the latest of the ones following it during the period
+     * gets published at the end of it starting a new period.
+     *
+     * @param source publisher of the original items
+     * @param wheel timer wheel measuring the period
+     * @param period number of ticks during which at most one item gets published
+     * @param <T> type of items
+     * @return publisher of the throttled items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code wheel} is {@code null}
+     */
+    public <T> @NotNull FusedPublisher<T> throttle(final @NonNull Publisher<T> source,
+                                                  final @NonNull TimerWheel wheel, final long period) {
+        return FusedPublisher.of(subscriber -> source.subscribe(new ThrottleSubscriber<>(subscriber, wheel, period)));
+    }
+
+    /**
+     * Creates a publisher of the latest items of the given publisher published once per the given period
+     * if there was any item during it.
+     *
+     * @param source publisher of the original items
+     * @param wheel timer wheel measuring the period
+     * @param period number of ticks between the samples
+     * @param <T> type of items
+     * @return publisher of the sampled items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code wheel} is {@code null}
+     */
+    public <T> @NotNull FusedPublisher<T> sample(final @NonNull Publisher<T> source,
+                                                final @NonNull TimerWheel wheel, final long period) {
+        return FusedPublisher.of(subscriber -> source.subscribe(new SampleSubscriber<>(subscriber, wheel, period)));
+    }
+
+    /**
+     * Creates a publisher of the items of the given publisher each published the given number of ticks later.
+     *
+     * @param source publisher of the original items
+     * @param wheel timer wheel measuring the delay
+     * @param delay number of ticks by which each item gets delayed
+     * @param <T> type of items
+     * @return publisher of the delayed items
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws NullPointerException if {@code wheel} is {@code null}
+     *
+     * @apiNote completion gets delayed as well while errors get published immediately
+     */
+    public <T> @NotNull FusedPublisher<T> delay(final @NonNull Publisher<T> source,
+                                               final @NonNull TimerWheel wheel, final long delay) {
+        return FusedPublisher.of(subscriber -> source.subscribe(new DelaySubscriber<>(subscriber, wheel, delay)));
+    }
+
+    //<editor-fold desc="Inner implementations" defaultstate="collapsed">
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class CombineLatestPublisher<A, B, R> implements Publisher<R> {
+
+        /**
+         * First combined source
+         */
+        @NotNull Publisher<A> first;
+
+        /**
+         * Second combined source
+         */
+        @NotNull Publisher<B> second;
+
+        /**
+         * Function combining the latest items of both sources
+         */
+        @NotNull BiFunction<? super A, ? super B, ? extends R> combiner;
+
+        @Override
+        public void subscribe(final Subscriber<? super R> subscriber) {
+            Objects.requireNonNull(subscriber, "subscriber is null");
+
+            final CombineLatestCoordinator<A, B, R> coordinator;
+            subscriber.onSubscribe(coordinator = new CombineLatestCoordinator<>(subscriber, combiner));
+            first.subscribe(coordinator.new Inner<>(true));
+            second.subscribe(coordinator.new Inner<>(false));
+        }
+    }
+
+    /**
+     * Coordinator of a subscription to a {@link CombineLatestPublisher},
+     * all signals get handled while holding its monitor as the sources may publish from different threads.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class CombineLatestCoordinator<A, B, R> implements Subscription {
+
+        /**
+         * Subscriber of the combined items
+         */
+        @NotNull Subscriber<? super R> downstream;
+
+        /**
+         * Function combining the latest items of both sources
+         */
+        @NotNull BiFunction<? super A, ? super B, ? extends R> combiner;
+
+        /**
+         * Latest item of the first source
+         */
+        @NonFinal @Nullable A firstItem;
+
+        /**
+         * Latest item of the second source
+         */
+        @NonFinal @Nullable B secondItem;
+
+        /**
+         * Subscription to the first source or {@code null} if it has not yet subscribed
+         */
+        @NonFinal @Nullable Subscription firstSubscription;
+
+        /**
+         * Subscription to the second source or {@code null} if it has not yet subscribed
+         */
+        @NonFinal @Nullable Subscription secondSubscription;
+
+        /**
+         * Demand which should be requested from the sources which have not yet subscribed
+         */
+        @NonFinal long pendingRequests;
+
+        /**
+         * Number of the sources which have completed
+         */
+        @NonFinal int completedSources;
+
+        /**
+         * Flag indicating that no more signals should be published
+         */
+        @NonFinal boolean done;
+
+        @Override
+        public synchronized void request(final long amount) {
+            // the amount is only kept pending for the sources which have not yet subscribed
+            if (firstSubscription == null || secondSubscription == null) {
+                pendingRequests = pendingRequests + amount < 0 ? Long.MAX_VALUE : pendingRequests + amount;
+            }
+
+            if (firstSubscription != null) firstSubscription.request(amount);
+            if (secondSubscription != null) secondSubscription.request(amount);
+        }
+
+        @Override
+        public synchronized void cancel() {
+            done = true;
+            if (firstSubscription != null) firstSubscription.cancel();
+            if (secondSubscription != null) secondSubscription.cancel();
+        }
+
+        @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+        private final class Inner<T> implements Subscriber<T> {
+
+            /**
+             * Flag indicating whether this subscriber is subscribed to the first source
+             */
+            boolean first;
+
+            private Inner(final boolean first) {
+                this.first = first;
+            }
+
+            @Override
+            public void onSubscribe(final Subscription subscription) {
+                synchronized (CombineLatestCoordinator.this) {
+                    if (done) {
+                        subscription.cancel();
+
+                        return;
+                    }
+
+                    if (first) firstSubscription = subscription;
+                    else secondSubscription = subscription;
+
+                    final long requests;
+                    if ((requests = pendingRequests) != 0) subscription.request(requests);
+                    if (firstSubscription != null && secondSubscription != null) pendingRequests = 0;
+                }
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void onNext(final T item) {
+                synchronized (CombineLatestCoordinator.this) {
+                    if (done) return;
+
+                    if (first) firstItem = (A) item;
+                    else secondItem = (B) item;
+
+                    final A currentFirstItem;
+                    final B currentSecondItem;
+                    if ((currentFirstItem = firstItem) != null && (currentSecondItem = secondItem) != null) {
+                        downstream.onNext(combiner.apply(currentFirstItem, currentSecondItem));
+                    } else {
+                        final Subscription subscription;
+                        if ((subscription = first ? firstSubscription : secondSubscription) != null) {
+                            subscription.request(1); // the item was not published
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                synchronized (CombineLatestCoordinator.this) {
+                    if (done) return;
+
+                    cancel();
+                    downstream.onError(error);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                synchronized (CombineLatestCoordinator.this) {
+                    if (done) return;
+
+                    if (++completedSources == 2) {
+                        done = true;
+                        downstream.onComplete();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Base of a subscriber of a timed operator.
+     * All signals get handled while holding its monitor as the timers expire on the thread driving the wheel.
+     *
+     * @param <T> type of items
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+    @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
+    private abstract static class TimedSubscriber<T> implements Subscriber<T>, Subscription, Runnable {
+
+        /**
+         * Subscriber of the timed items
+         */
+        @NotNull Subscriber<? super T> downstream;
+
+        /**
+         * Wheel on which the timers get scheduled
+         */
+        @NotNull TimerWheel wheel;
+
+        /**
+         * Number of the wheel's ticks after which the timers expire
+         */
+        long ticks;
+
+        /**
+         * Subscription of this subscriber
+         */
+        @NonFinal @Nullable Subscription upstream;
+
+        /**
+         * Currently scheduled timer
+         */
+        @NonFinal TimerWheel.@Nullable Timer timer;
+
+        /**
+         * Latest item which was not yet published
+         */
+        @NonFinal @Nullable T latestItem;
+
+        /**
+         * Flag indicating that no more signals should be published
+         */
+        @NonFinal boolean done;
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            synchronized (this) {
+                upstream = subscription;
+            }
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public synchronized void onError(final Throwable error) {
+            if (done) return;
+
+            stop();
+            downstream.onError(error);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (done) return;
+
+            final T item;
+            stop();
+            if ((item = latestItem) != null) downstream.onNext(item);
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(final long amount) {
+            final Subscription subscription;
+            synchronized (this) {
+                subscription = upstream;
+            }
+            if (subscription != null) subscription.request(amount);
+        }
+
+        @Override
+        public void cancel() {
+            final Subscription subscription;
+            synchronized (this) {
+                stop();
+                subscription = upstream;
+            }
+            if (subscription != null) subscription.cancel();
+        }
+
+        protected void stop() {
+            done = true;
+            final TimerWheel.Timer thisTimer;
+            if ((thisTimer = timer) != null) {
+                thisTimer.cancel();
+                timer = null;
+            }
+        }
+    }
+
+    private static final class DebounceSubscriber<T> extends TimedSubscriber<T> {
+
+        private DebounceSubscriber(final @NotNull Subscriber<? super T> downstream,
+                                   final @NotNull TimerWheel wheel, final long delay) {
+            super(downstream, wheel, delay);
+        }
+
+        @Override
+        public synchronized void onNext(final T item) {
+            if (done) return;
+
+            final TimerWheel.Timer thisTimer;
+            if ((thisTimer = timer) != null) thisTimer.cancel();
+            latestItem = item;
+            timer = wheel.schedule(ticks, this);
+        }
+
+        @Override
+        public synchronized void run() {
+            final T item;
+            if (done || (item = latestItem) == null) return;
+
+            latestItem = null;
+            timer = null;
+            downstream.onNext(item);
+        }
+    }
+
+    private static final class ThrottleSubscriber<T> extends TimedSubscriber<T> {
+
+        private ThrottleSubscriber(final @NotNull Subscriber<? super T> downstream,
+                                   final @NotNull TimerWheel wheel, final long period) {
+            super(downstream, wheel, period);
+        }
+
+        @Override
+        public synchronized void onNext(final T item) {
+            if (done) return;
+
+            if (timer == null) {
+                timer = wheel.schedule(ticks, this);
+                downstream.onNext(item);
+            } else latestItem = item;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (done) return;
+
+            final T item;
+            if ((item = latestItem) == null) timer = null;
+            else {
+                latestItem = null;
+                timer = wheel.schedule(ticks, this);
+                downstream.onNext(item);
+            }
+        }
+    }
+
+    private static final class SampleSubscriber<T> extends TimedSubscriber<T> {
+
+        private SampleSubscriber(final @NotNull Subscriber<? super T> downstream,
+                                 final @NotNull TimerWheel wheel, final long period) {
+            super(downstream, wheel, period);
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            synchronized (this) {
+                timer = wheel.schedule(ticks, this);
+            }
+            super.onSubscribe(subscription);
+        }
+
+        @Override
+        public synchronized void onNext(final T item) {
+            if (!done) latestItem = item;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (done) return;
+
+            timer = wheel.schedule(ticks, this);
+            final T item;
+            if ((item = latestItem) != null) {
+                latestItem = null;
+                downstream.onNext(item);
+            }
+        }
+    }
+
+    private static final class DelaySubscriber<T> extends TimedSubscriber<T> {
+
+        private DelaySubscriber(final @NotNull Subscriber<? super T> downstream,
+                                final @NotNull TimerWheel wheel, final long delay) {
+            super(downstream, wheel, delay);
+        }
+
+        @Override
+        public synchronized void onNext(final T item) {
+            if (!done) wheel.schedule(ticks, () -> {
+                synchronized (this) {
+                    if (!done) downstream.onNext(item);
+                }
+            });
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            // timers of the same delay expire in the order of scheduling
+            if (!done) wheel.schedule(ticks, super::onComplete);
+        }
+
+        @Override
+        public synchronized void run() {} // items are delivered by their own timers
+    }
+    //</editor-fold>
+}
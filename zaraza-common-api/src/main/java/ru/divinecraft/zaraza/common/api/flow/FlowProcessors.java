@@ -17,21 +17,35 @@ package ru.divinecraft.zaraza.common.api.flow;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.experimental.UtilityClass;
 import lombok.val;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow.Processor;
 import java.util.concurrent.Flow.Subscriber;
 import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 /**
  * Utilities related to {@link Processor}.
+ * <p>
+ * Processors which deliver the items synchronously are {@link BatchSubscriber batch subscribers}
+ * passing the batches on to their subscribers.
  */
 @UtilityClass
 public class FlowProcessors {
@@ -58,6 +72,215 @@ public class FlowProcessors {
         return new MemoizingThreadUnsafeProcessor<>(new HashSet<>());
     }
 
+    /**
+     * Creates a new thread-safe {@link Processor processor}.
+     *
+     * @param <T> type of processed values
+     *
+     * @return created {@link Processor processor}
+     *
+     * @apiNote {@link Processor#onNext(Object)} of the created processor does not allocate
+     * and subscribers may {@link Subscription#cancel() cancel} while it is running
+     */
+    public <T> @NotNull Processor<T, T> createConcurrentProcessor() {
+        return new CopyOnWriteProcessor<>();
+    }
+
+    /**
+     * Creates a new thread-safe {@link MemoizingFlowProcessor memoizing processor}.
+     *
+     * @param <T> type of processed values
+     *
+     * @return created {@link MemoizingFlowProcessor memoizing processor}
+     *
+     * @apiNote {@link Processor#onNext(Object)} of the created processor does not allocate
+     * and subscribers may {@link Subscription#cancel() cancel} while it is running
+     */
+    public <T> @NotNull MemoizingFlowProcessor<T, T> createConcurrentMemoizingProcessor() {
+        return new MemoizingCopyOnWriteProcessor<>();
+    }
+
+    /**
+     * Creates a new thread-unsafe {@link Processor processor} which is safe to be reentered by its subscribers.
+     * Signals passed to it while it is dispatching get queued and dispatched after the current one
+     * so that the subscribers receive all signals in the order in which they were passed.
+     *
+     * @param <T> type of processed values
+     *
+     * @return created {@link Processor processor}
+     *
+     * @apiNote subscribers may also {@link Processor#subscribe(Subscriber) subscribe}
+     * and {@link Subscription#cancel() cancel} while it is dispatching
+     */
+    public <T> @NotNull Processor<T, T> createTrampoliningProcessor() {
+        return new TrampoliningProcessor<>();
+    }
+
+    /**
+     * Creates a new {@link MemoizingFlowProcessor memoizing processor} replaying the last processed values
+     * to each new subscriber right after {@link Subscriber#onSubscribe(Subscription) subscribing} it.
+     *
+     * @param historySize maximal number of replayed values, {@code 1} to only replay the latest one
+     * @param <T> type of processed values
+     *
+     * @return created {@link MemoizingFlowProcessor memoizing processor}
+     *
+     * @throws IllegalArgumentException if {@code historySize} is not positive
+     *
+     * @apiNote the created processor should not be subscribed to while it is processing a value
+     * but {@link Processor#onNext(Object)} of it does not lock nor allocate
+     * @apiNote values passed to the created processor by a subscriber while the history is being replayed to it
+     * get delivered to this subscriber after the history
+     */
+    public <T> @NotNull MemoizingFlowProcessor<T, T> createReplayingProcessor(final int historySize) {
+        if (historySize <= 0) throw new IllegalArgumentException("historySize should be positive");
+
+        return new ReplayingProcessor<>(historySize);
+    }
+
+    /**
+     * Creates a new thread-safe {@link ConflatingFlowProcessor conflating processor}.
+     *
+     * @param <T> type of processed values
+     *
+     * @return created {@link ConflatingFlowProcessor conflating processor}
+     */
+    public <T> @NotNull ConflatingFlowProcessor<T> createConflatingProcessor() {
+        return new ConflatingCopyOnWriteProcessor<>(false);
+    }
+
+    /**
+     * Creates a new thread-safe {@link ConflatingFlowProcessor conflating processor}.
+     *
+     * @param suppressEqual {@code true} if the pending value {@link Object#equals(Object) equal}
+     * to the last delivered one should not be delivered
+     * @param <T> type of processed values
+     *
+     * @return created {@link ConflatingFlowProcessor conflating processor}
+     */
+    public <T> @NotNull ConflatingFlowProcessor<T> createConflatingProcessor(final boolean suppressEqual) {
+        return new ConflatingCopyOnWriteProcessor<>(suppressEqual);
+    }
+
+    /**
+     * Creates a new thread-safe {@link WeakFlowProcessor processor holding its subscribers weakly}.
+     *
+     * @param <T> type of processed values
+     *
+     * @return created {@link WeakFlowProcessor weak processor}
+     */
+    public <T> @NotNull WeakFlowProcessor<T> createWeakProcessor() {
+        return new WeakCopyOnWriteProcessor<>();
+    }
+
+    /**
+     * Creates a new thread-safe {@link IntProcessor int processor}.
+     *
+     * @return created {@link IntProcessor int processor}
+     */
+    public @NotNull IntProcessor createIntProcessor() {
+        return new CopyOnWriteIntProcessor();
+    }
+
+    /**
+     * Creates a new thread-safe {@link MemoizingIntProcessor memoizing int processor}.
+     *
+     * @return created {@link MemoizingIntProcessor memoizing int processor}
+     */
+    public @NotNull MemoizingIntProcessor createMemoizingIntProcessor() {
+        return new CopyOnWriteIntProcessor.Memoizing();
+    }
+
+    /**
+     * Creates a new thread-safe {@link ConflatingIntProcessor conflating int processor}.
+     *
+     * @param suppressEqual {@code true} if the pending value equal to the last delivered one should not be delivered
+     *
+     * @return created {@link ConflatingIntProcessor conflating int processor}
+     */
+    public @NotNull ConflatingIntProcessor createConflatingIntProcessor(final boolean suppressEqual) {
+        return new CopyOnWriteIntProcessor.Conflating(suppressEqual);
+    }
+
+    /**
+     * Creates a new thread-safe {@link Processor processor} respecting the demand of its subscribers.
+     * Items which were not yet requested by a subscriber get buffered for it.
+     * The items published while a subscriber has outstanding demand
+     * get delivered to it via the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param bufferCapacity maximal number of items buffered for a single subscriber
+     * @param overflowStrategy strategy used when the buffer of a subscriber is full
+     * @param <T> type of processed values
+     *
+     * @return created {@link Processor processor}
+     *
+     * @throws IllegalArgumentException if {@code bufferCapacity} is not positive
+     * @throws NullPointerException if {@code overflowStrategy} is {@code null}
+     *
+     * @see #createBufferingProcessor(Executor, int, OverflowStrategy) variant with a custom executor
+     */
+    public <T> @NotNull Processor<T, T> createBufferingProcessor(final int bufferCapacity,
+                                                                 final @NonNull OverflowStrategy overflowStrategy) {
+        return createBufferingProcessor(ForkJoinPool.commonPool(), bufferCapacity, overflowStrategy);
+    }
+
+    /**
+     * Creates a new thread-safe {@link Processor processor} respecting the demand of its subscribers.
+     * Items which were not yet requested by a subscriber get buffered for it.
+     * The items published while a subscriber has outstanding demand get delivered to it via the given executor
+     * while the other ones get delivered on the thread {@link Subscription#request(long) requesting} them.
+     *
+     * @param executor executor used for delivery of the items published while a subscriber has outstanding demand
+     * @param bufferCapacity maximal number of items buffered for a single subscriber
+     * @param overflowStrategy strategy used when the buffer of a subscriber is full
+     * @param <T> type of processed values
+     *
+     * @return created {@link Processor processor}
+     *
+     * @throws NullPointerException if {@code executor} is {@code null}
+     * @throws IllegalArgumentException if {@code bufferCapacity} is not positive
+     * @throws NullPointerException if {@code overflowStrategy} is {@code null}
+     *
+     * @apiNote subscribers receive nothing until they {@link Subscription#request(long) request} items
+     * @apiNote the publishing thread never delivers the items so the created processor may be subscribed
+     * to a publisher ignoring the demand for slow subscribers to fall behind without blocking it
+     * @apiNote the subscriber for which the executor rejects the delivery gets cancelled
+     * and notified via {@link Subscriber#onError(Throwable)}
+     */
+    public <T> @NotNull Processor<T, T> createBufferingProcessor(final @NonNull Executor executor,
+                                                                 final int bufferCapacity,
+                                                                 final @NonNull OverflowStrategy overflowStrategy) {
+        if (bufferCapacity <= 0) throw new IllegalArgumentException("bufferCapacity should be positive");
+
+        return new BufferingProcessor<>(executor, bufferCapacity, overflowStrategy);
+    }
+
+    /**
+     * Creates a new thread-safe {@link Processor processor} delivering the signals to each of its subscribers
+     * asynchronously via the given executor.
+     * The signals get delivered to each subscriber in order and never concurrently.
+     *
+     * @param executor executor used for delivery of the signals
+     * @param bufferCapacity minimal number of items which may be queued for a single subscriber
+     * @param <T> type of processed values
+     *
+     * @return created {@link Processor processor}
+     *
+     * @throws NullPointerException if {@code executor} is {@code null}
+     * @throws IllegalArgumentException if {@code bufferCapacity} is not in range {@code [1; 2^30]}
+     *
+     * @apiNote the subscriber whose queue overflows gets cancelled
+     * and notified via {@link Subscriber#onError(Throwable)}
+     */
+    public <T> @NotNull Processor<T, T> createExecutorProcessor(final @NonNull Executor executor,
+                                                                final int bufferCapacity) {
+        if (bufferCapacity <= 0 || bufferCapacity > 1 << 30) throw new IllegalArgumentException(
+                "bufferCapacity should be in range [1; 2^30]"
+        );
+
+        return new ExecutorProcessor<>(executor, bufferCapacity);
+    }
+
     /**
      * Simple {@link Processor processor} for which no concurrency guarantees are given.
      *
@@ -65,7 +288,7 @@ public class FlowProcessors {
      */
     @AllArgsConstructor(access = AccessLevel.PRIVATE)
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
-    private static class ThreadUnsafeProcessor<T> implements Processor<T, T> {
+    private static class ThreadUnsafeProcessor<T> implements Processor<T, T>, BatchSubscriber<T> {
 
         /**
          * All subscribers of this processor
@@ -93,6 +316,11 @@ public class FlowProcessors {
             for (val subscriber : subscribers) subscriber.onNext(item);
         }
 
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            for (val subscriber : subscribers) BatchSubscriber.onNextBatch(subscriber, items, from, to);
+        }
+
         @Override
         public void onError(final Throwable error) {
             for (val subscriber : subscribers) subscriber.onError(error);
@@ -127,5 +355,723 @@ public class FlowProcessors {
         public void onNext(final T item) {
             super.onNext(lastValue = item);
         }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            if (from < to) lastValue = items[to - 1];
+            super.onNextBatch(items, from, to);
+        }
+    }
+
+    /**
+     * {@link Processor Processor} storing its subscribers in an immutable array which gets replaced on each change.
+     *
+     * @param <T> type of processed values
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static class CopyOnWriteProcessor<T> implements Processor<T, T>, BatchSubscriber<T> {
+
+        /**
+         * Empty array of subscribers
+         */
+        private static final @NotNull Subscriber<?> @NotNull [] NO_SUBSCRIBERS = new Subscriber<?>[0];
+
+        /**
+         * {@link VarHandle} of {@link #subscribers}
+         */
+        private static final @NotNull VarHandle SUBSCRIBERS;
+
+        static {
+            try {
+                SUBSCRIBERS = MethodHandles.lookup()
+                        .findVarHandle(CopyOnWriteProcessor.class, "subscribers", Subscriber[].class);
+            } catch (final NoSuchFieldException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * All subscribers of this processor, the array itself is never modified
+         */
+        @SuppressWarnings("unchecked")
+        volatile @NotNull Subscriber<? super T> @NotNull [] subscribers
+                = (Subscriber<? super T>[]) NO_SUBSCRIBERS;
+
+        @Override
+        public void subscribe(final Subscriber<? super T> subscriber) {
+            if (isSubscribed(subscriber)) return;
+
+            final CopyOnWriteSubscription subscription;
+            subscriber.onSubscribe(subscription = new CopyOnWriteSubscription(subscriber));
+            register(subscription);
+        }
+
+        /**
+         * Checks if the given subscriber is subscribed to this processor.
+         *
+         * @param subscriber checked subscriber
+         * @return {@code true} if the subscriber is subscribed and {@code false} otherwise
+         */
+        protected boolean isSubscribed(final @NotNull Subscriber<?> subscriber) {
+            return indexOf(subscribers, subscriber) != -1;
+        }
+
+        /**
+         * Makes the subscriber of the given subscription visible to the signals of this processor.
+         * This should only be called once {@link Subscriber#onSubscribe(Subscription)} has returned
+         * so that it happens before any other signal.
+         *
+         * @param subscription subscription whose subscriber should be registered
+         * @return {@code true} if the subscriber was registered and {@code false} if the subscription was cancelled
+         * or the subscriber already was subscribed in which case the subscription gets cancelled
+         */
+        protected boolean register(final @NotNull CopyOnWriteSubscription subscription) {
+            if (subscription.cancelled) return false;
+
+            final Subscriber<? super T> subscriber;
+            if (!addSubscriber(subscriber = subscription.subscriber)) {
+                // the subscriber was concurrently subscribed so its original subscription should stay intact
+                subscription.cancelled = true;
+
+                return false;
+            }
+            // the subscription might have been cancelled before its subscriber became visible
+            if (subscription.cancelled) {
+                unsubscribe(subscriber);
+
+                return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Adds the given subscriber to the subscribers of this processor.
+         *
+         * @param subscriber added subscriber
+         * @return {@code true} if the subscriber was added and {@code false} if it already was subscribed
+         */
+        private boolean addSubscriber(final @NotNull Subscriber<? super T> subscriber) {
+            Subscriber<? super T>[] current, updated;
+            do {
+                final int length;
+                if (indexOf(current = subscribers, subscriber) != -1) return false;
+
+                (updated = Arrays.copyOf(current, (length = current.length) + 1))[length] = subscriber;
+            } while (!SUBSCRIBERS.compareAndSet(this, current, updated));
+
+            return true;
+        }
+
+        /**
+         * Removes the given subscriber from the subscribers of this processor.
+         *
+         * @param subscriber removed subscriber
+         */
+        @SuppressWarnings("unchecked")
+        protected void unsubscribe(final @NotNull Subscriber<? super T> subscriber) {
+            Subscriber<? super T>[] current, updated;
+            do {
+                final int index, length;
+                if ((index = indexOf(current = subscribers, subscriber)) == -1) return;
+
+                if ((length = current.length) == 1) updated = (Subscriber<? super T>[]) NO_SUBSCRIBERS;
+                else {
+                    updated = Arrays.copyOf(current, length - 1);
+                    System.arraycopy(current, index + 1, updated, index, length - index - 1);
+                }
+            } while (!SUBSCRIBERS.compareAndSet(this, current, updated));
+        }
+
+        private static int indexOf(final @NotNull Subscriber<?> @NotNull [] subscribers,
+                                   final @NotNull Subscriber<?> subscriber) {
+            final int length = subscribers.length;
+            for (var index = 0; index < length; index++) if (subscribers[index].equals(subscriber)) return index;
+
+            return -1;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {} // no-op
+
+        @Override
+        public void onNext(final T item) {
+            for (val subscriber : subscribers) subscriber.onNext(item);
+        }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            for (val subscriber : subscribers) BatchSubscriber.onNextBatch(subscriber, items, from, to);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            for (val subscriber : subscribers) subscriber.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            for (val subscriber : subscribers) subscriber.onComplete();
+        }
+
+        /**
+         * Subscription to a {@link CopyOnWriteProcessor} remembering if it was cancelled.
+         */
+        @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+        @FieldDefaults(level = AccessLevel.PRIVATE)
+        protected final class CopyOnWriteSubscription implements Subscription {
+
+            /**
+             * Subscriber which owns this subscription
+             */
+            final @NotNull Subscriber<? super T> subscriber;
+
+            /**
+             * Flag indicating that this subscription was cancelled
+             */
+            volatile boolean cancelled;
+
+            @Override
+            public void request(final long amount) {} // no-op
+
+            @Override
+            public void cancel() {
+                if (cancelled) return;
+
+                cancelled = true;
+                unsubscribe(subscriber);
+            }
+        }
+    }
+
+    /**
+     * {@link MemoizingFlowProcessor Memoizing} {@link CopyOnWriteProcessor}.
+     *
+     * @param <T> type of processed values
+     */
+    @Accessors(fluent = true)
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class MemoizingCopyOnWriteProcessor<T>
+            extends CopyOnWriteProcessor<T> implements MemoizingFlowProcessor<T, T> {
+
+        /**
+         * Last value passed to {@link #onNext(Object)}.
+         */
+        @Getter volatile @Nullable T lastValue; // default-initialized to null
+
+        @Override
+        public void onNext(final T item) {
+            super.onNext(lastValue = item);
+        }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            if (from < to) lastValue = items[to - 1];
+            super.onNextBatch(items, from, to);
+        }
+    }
+
+    /**
+     * {@link ConflatingFlowProcessor Conflating} {@link CopyOnWriteProcessor}.
+     *
+     * @param <T> type of processed values
+     */
+    @Accessors(fluent = true)
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class ConflatingCopyOnWriteProcessor<T>
+            extends CopyOnWriteProcessor<T> implements ConflatingFlowProcessor<T> {
+
+        /**
+         * {@link VarHandle} of {@link #pendingValue}
+         */
+        private static final @NotNull VarHandle PENDING_VALUE;
+
+        static {
+            try {
+                PENDING_VALUE = MethodHandles.lookup()
+                        .findVarHandle(ConflatingCopyOnWriteProcessor.class, "pendingValue", Object.class);
+            } catch (final NoSuchFieldException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * Flag indicating whether the pending value equal to the last delivered one should not be delivered
+         */
+        final boolean suppressEqual;
+
+        /**
+         * Last value passed to {@link #onNext(Object)}.
+         */
+        @Getter volatile @Nullable T lastValue; // default-initialized to null
+
+        /**
+         * Value passed to {@link #onNext(Object)} which was not yet delivered
+         */
+        volatile @Nullable T pendingValue; // default-initialized to null
+
+        /**
+         * Last value delivered by {@link #drain()}.
+         */
+        @Getter volatile @Nullable T lastDeliveredValue; // default-initialized to null
+
+        private ConflatingCopyOnWriteProcessor(final boolean suppressEqual) {
+            this.suppressEqual = suppressEqual;
+        }
+
+        @Override
+        public void onNext(final T item) {
+            pendingValue = lastValue = item;
+        }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            if (from < to) onNext(items[to - 1]);
+        }
+
+        @Override
+        public boolean hasPending() {
+            return pendingValue != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean drain() {
+            final T value;
+            if ((value = (T) PENDING_VALUE.getAndSet(this, (Object) null)) == null
+                    || suppressEqual && value.equals(lastDeliveredValue)) return false;
+
+            super.onNext(lastDeliveredValue = value);
+
+            return true;
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            drain();
+            super.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            drain();
+            super.onComplete();
+        }
+    }
+
+    /**
+     * {@link CopyOnWriteProcessor} queueing reentrant signals instead of recursively dispatching them.
+     *
+     * @param <T> type of processed values
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class TrampoliningProcessor<T> extends CopyOnWriteProcessor<T> {
+
+        /**
+         * Initial capacity of {@link #queue}
+         */
+        private static final int INITIAL_QUEUE_CAPACITY = 8;
+
+        /**
+         * Ring buffer of the signals which were not yet dispatched, its length is always a power of two
+         */
+        @Nullable Object @NotNull [] queue = new Object[INITIAL_QUEUE_CAPACITY];
+
+        /**
+         * Index of the oldest queued signal
+         */
+        int head;
+
+        /**
+         * Number of queued signals
+         */
+        int size;
+
+        /**
+         * Flag indicating whether the signals are being dispatched
+         */
+        boolean dispatching;
+
+        @Override
+        public void onNext(final T item) {
+            enqueue(item);
+        }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            // items get queued one by one as the reentrant signals may interleave with them
+            for (var index = from; index < to; index++) enqueue(items[index]);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            enqueue(new TerminalSignal(error));
+        }
+
+        @Override
+        public void onComplete() {
+            enqueue(TerminalSignal.COMPLETE);
+        }
+
+        private void enqueue(final @NotNull Object signal) {
+            var queue = this.queue;
+            final int length, thisSize;
+            if ((thisSize = size) == (length = queue.length)) {
+                final Object[] grownQueue;
+                System.arraycopy(queue, head, grownQueue = new Object[length << 1], 0, length - head);
+                System.arraycopy(queue, 0, grownQueue, length - head, head);
+                this.queue = queue = grownQueue;
+                head = 0;
+            }
+            queue[(head + thisSize) & (queue.length - 1)] = signal;
+            size = thisSize + 1;
+
+            if (!dispatching) dispatch();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void dispatch() {
+            dispatching = true;
+            try {
+                while (size != 0) {
+                    final Object[] queue;
+                    final int thisHead;
+                    final Object signal = (queue = this.queue)[thisHead = head];
+                    queue[thisHead] = null;
+                    head = (thisHead + 1) & (queue.length - 1);
+                    size--;
+
+                    if (signal instanceof TerminalSignal) {
+                        final Throwable error;
+                        if ((error = ((TerminalSignal) signal).error) == null) super.onComplete();
+                        else super.onError(error);
+                    } else super.onNext((T) signal);
+                }
+            } finally {
+                dispatching = false;
+            }
+        }
+
+        /**
+         * Queued {@link #onError(Throwable)} or {@link #onComplete()}.
+         */
+        @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+        @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+        private static final class TerminalSignal {
+
+            /**
+             * Signal of {@link #onComplete()}
+             */
+            private static final @NotNull TerminalSignal COMPLETE = new TerminalSignal(null);
+
+            /**
+             * Error passed to {@link #onError(Throwable)} or {@code null} if this is {@link #COMPLETE}
+             */
+            @Nullable Throwable error;
+        }
+    }
+
+    /**
+     * {@link MemoizingFlowProcessor Memoizing} {@link CopyOnWriteProcessor}
+     * replaying its history to the new subscribers.
+     *
+     * @param <T> type of processed values
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class ReplayingProcessor<T>
+            extends CopyOnWriteProcessor<T> implements MemoizingFlowProcessor<T, T> {
+
+        /**
+         * Ring buffer of the last processed values
+         */
+        final @Nullable Object @NotNull [] history;
+
+        /**
+         * Index at which the next processed value will be stored
+         */
+        int nextIndex;
+
+        /**
+         * Number of values stored in {@link #history}
+         */
+        int size;
+
+        /**
+         * Number of values ever stored in {@link #history}
+         */
+        long recordedCount;
+
+        private ReplayingProcessor(final int historySize) {
+            history = new Object[historySize];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public @Nullable T lastValue() {
+            return size == 0 ? null : (T) history[(nextIndex == 0 ? history.length : nextIndex) - 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void subscribe(final Subscriber<? super T> subscriber) {
+            if (isSubscribed(subscriber)) return;
+
+            final CopyOnWriteSubscription subscription;
+            subscriber.onSubscribe(subscription = new CopyOnWriteSubscription(subscriber));
+
+            // the subscriber becomes visible only after the replay so that the values which it publishes
+            // while the history is being replayed to it get replayed after the older ones
+            final Object[] history = this.history;
+            final int length = history.length;
+            for (var index = recordedCount - size; index != recordedCount; index++) {
+                if (subscription.cancelled) return;
+
+                // values published during the replay may have overwritten the ones which were not yet replayed
+                final long oldestIndex;
+                if (index < (oldestIndex = recordedCount - size)) index = oldestIndex;
+                subscriber.onNext((T) history[(int) (index % length)]);
+            }
+
+            register(subscription);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            record(item);
+            super.onNext(item);
+        }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            for (var index = Math.max(from, to - history.length); index < to; index++) record(items[index]);
+            super.onNextBatch(items, from, to);
+        }
+
+        private void record(final T item) {
+            final Object[] history = this.history;
+            final int index;
+            history[index = nextIndex] = item;
+            nextIndex = index + 1 == history.length ? 0 : index + 1;
+            if (size != history.length) size++;
+            recordedCount++;
+        }
+    }
+
+    /**
+     * {@link WeakFlowProcessor Weak processor}
+     * storing the references to its subscribers in an immutable array which gets replaced on each change.
+     *
+     * @param <T> type of processed values
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class WeakCopyOnWriteProcessor<T> implements WeakFlowProcessor<T>, BatchSubscriber<T> {
+
+        /**
+         * Empty array of subscriber references
+         */
+        private static final @NotNull SubscriberReference<?> @NotNull [] NO_REFERENCES = new SubscriberReference<?>[0];
+
+        /**
+         * {@link VarHandle} of {@link #references}
+         */
+        private static final @NotNull VarHandle REFERENCES;
+
+        /**
+         * {@link VarHandle} of {@link #purgedSubscriberCount}
+         */
+        private static final @NotNull VarHandle PURGED_SUBSCRIBER_COUNT;
+
+        static {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                REFERENCES = lookup
+                        .findVarHandle(WeakCopyOnWriteProcessor.class, "references", SubscriberReference[].class);
+                PURGED_SUBSCRIBER_COUNT = lookup
+                        .findVarHandle(WeakCopyOnWriteProcessor.class, "purgedSubscriberCount", long.class);
+            } catch (final NoSuchFieldException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * Queue to which the references get enqueued once their subscribers get garbage-collected
+         */
+        @NotNull ReferenceQueue<Subscriber<? super T>> referenceQueue = new ReferenceQueue<>();
+
+        /**
+         * References to all subscribers of this processor, the array itself is never modified
+         */
+        @SuppressWarnings("unchecked")
+        @NonFinal volatile @NotNull SubscriberReference<T> @NotNull [] references
+                = (SubscriberReference<T>[]) NO_REFERENCES;
+
+        /**
+         * Number of the subscribers which were purged
+         */
+        @Getter @Accessors(fluent = true) @NonFinal volatile long purgedSubscriberCount;
+
+        @Override
+        public void subscribe(final Subscriber<? super T> subscriber) {
+            purgeQueued();
+
+            if (indexOf(references, subscriber) != -1) return;
+
+            final SubscriberReference<T> reference;
+            subscriber.onSubscribe(reference = new SubscriberReference<>(subscriber, referenceQueue, this));
+
+            SubscriberReference<T>[] current, updated;
+            do {
+                final int length;
+                if (reference.cancelled) return;
+                if (indexOf(current = references, subscriber) != -1) {
+                    // the subscriber was concurrently subscribed so its original reference should stay intact
+                    reference.cancelled = true;
+
+                    return;
+                }
+
+                (updated = Arrays.copyOf(current, (length = current.length) + 1))[length] = reference;
+            } while (!REFERENCES.compareAndSet(this, current, updated));
+
+            // the reference might have been cancelled before it became visible
+            if (reference.cancelled) remove(existing -> existing == reference);
+        }
+
+        private static int indexOf(final @NotNull SubscriberReference<?> @NotNull [] references,
+                                   final @NotNull Subscriber<?> subscriber) {
+            final int length = references.length;
+            for (var index = 0; index < length; index++) if (subscriber.equals(references[index].get())) {
+                return index;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Removes the references matching the given predicate.
+         *
+         * @param removed predicate of the removed references
+         * @return number of the removed references
+         */
+        @SuppressWarnings("unchecked")
+        private int remove(final @NotNull Predicate<@NotNull SubscriberReference<T>> removed) {
+            SubscriberReference<T>[] current, updated;
+            int removedCount;
+            do {
+                final int length = (current = references).length;
+                updated = (SubscriberReference<T>[]) new SubscriberReference<?>[length];
+                var size = 0;
+                for (val reference : current) if (!removed.test(reference)) updated[size++] = reference;
+
+                if ((removedCount = length - size) == 0) return 0;
+                updated = size == 0 ? (SubscriberReference<T>[]) NO_REFERENCES : Arrays.copyOf(updated, size);
+            } while (!REFERENCES.compareAndSet(this, current, updated));
+
+            return removedCount;
+        }
+
+        private int purgeCleared() {
+            final int purged;
+            if ((purged = remove(reference -> reference.get() == null)) != 0) {
+                PURGED_SUBSCRIBER_COUNT.getAndAdd(this, (long) purged);
+            }
+
+            return purged;
+        }
+
+        private void purgeQueued() {
+            if (referenceQueue.poll() == null) return;
+
+            //noinspection StatementWithEmptyBody
+            while (referenceQueue.poll() != null); // all cleared references get purged at once
+            purgeCleared();
+        }
+
+        @Override
+        public int purge() {
+            //noinspection StatementWithEmptyBody
+            while (referenceQueue.poll() != null);
+
+            return purgeCleared();
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {} // no-op
+
+        @Override
+        public void onNext(final T item) {
+            var purge = false;
+            for (val reference : references) {
+                final Subscriber<? super T> subscriber;
+                if ((subscriber = reference.get()) == null) purge = true;
+                else subscriber.onNext(item);
+            }
+
+            if (purge) purgeCleared();
+        }
+
+        @Override
+        public void onNextBatch(final @NotNull T @NotNull [] items, final int from, final int to) {
+            var purge = false;
+            for (val reference : references) {
+                final Subscriber<? super T> subscriber;
+                if ((subscriber = reference.get()) == null) purge = true;
+                else BatchSubscriber.onNextBatch(subscriber, items, from, to);
+            }
+
+            if (purge) purgeCleared();
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            for (val reference : references) {
+                final Subscriber<? super T> subscriber;
+                if ((subscriber = reference.get()) != null) subscriber.onError(error);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            for (val reference : references) {
+                final Subscriber<? super T> subscriber;
+                if ((subscriber = reference.get()) != null) subscriber.onComplete();
+            }
+        }
+
+        /**
+         * Weak reference to a subscriber of a {@link WeakCopyOnWriteProcessor} which also is its subscription.
+         *
+         * @param <T> type of processed values
+         */
+        @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+        private static final class SubscriberReference<T>
+                extends WeakReference<Subscriber<? super T>> implements Subscription {
+
+            /**
+             * Processor to which the subscriber is subscribed
+             */
+            @NotNull WeakCopyOnWriteProcessor<T> processor;
+
+            /**
+             * Flag indicating that this subscription was cancelled
+             */
+            @NonFinal volatile boolean cancelled;
+
+            private SubscriberReference(final @NotNull Subscriber<? super T> subscriber,
+                                        final @NotNull ReferenceQueue<Subscriber<? super T>> queue,
+                                        final @NotNull WeakCopyOnWriteProcessor<T> processor) {
+                super(subscriber, queue);
+                this.processor = processor;
+            }
+
+            @Override
+            public void request(final long amount) {} // no-op
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                processor.remove(reference -> reference == this);
+            }
+        }
     }
 }
@@ -24,9 +24,12 @@ import lombok.experimental.UtilityClass;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.Flow;
 import java.util.concurrent.Flow.Subscriber;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Utilities related to {@link Subscriber}.
@@ -114,6 +117,84 @@ public class FlowSubscribers {
         return createMemoizingSubscriber(newValue -> {});
     }
 
+    /**
+     * Creates a new thread-safe {@link VersionedMemoizingFlowSubscriber versioned memoizing subscriber}.
+     * Its {@link MemoizingFlowSubscriber#lastValue() last value} and {@link VersionedMemoizingFlowSubscriber#version()
+     * version} may be read from any thread without locking.
+     *
+     * @param nextHandler handler to be notified when {@link Flow.Subscriber#onNext(Object)} gets called
+     * @param errorHandler handler to be notified when {@link Flow.Subscriber#onError(Throwable)} gets called
+     * @param <T> type of value whose updates will be listened
+     * @return created memoizing subscriber
+     *
+     * @throws NullPointerException if {@code nextHandler} is {@code null}
+     * @throws NullPointerException if {@code errorHandler} is {@code null}
+     */
+    public <@NotNull T> @NotNull VersionedMemoizingFlowSubscriber<T> createConcurrentMemoizingSubscriber(
+            final @NonNull Consumer<? super T> nextHandler,
+            final @NonNull Consumer<@NotNull Throwable> errorHandler
+    ) {
+        return new ConcurrentMemoizingDelegatingSubscriber<>(nextHandler, errorHandler);
+    }
+
+    /**
+     * Creates a new thread-safe {@link VersionedMemoizingFlowSubscriber versioned memoizing subscriber}
+     * with re-throwing error handler.
+     *
+     * @param nextHandler handler to be notified when {@link Flow.Subscriber#onNext(Object)} gets called
+     * @param <T> type of value whose updates will be listened
+     * @return created memoizing subscriber
+     *
+     * @throws NullPointerException if {@code nextHandler} is {@code null}
+     */
+    public <@NotNull T> @NotNull VersionedMemoizingFlowSubscriber<T> createConcurrentMemoizingSubscriber(
+            final Consumer<? super @NotNull T> nextHandler
+    ) {
+        return createConcurrentMemoizingSubscriber(nextHandler, error -> {
+            throw new InternalError("An unexpected error was passed to ChangeListener", error);
+        });
+    }
+
+    /**
+     * Creates a new thread-safe {@link VersionedMemoizingFlowSubscriber versioned memoizing subscriber}
+     * with no-op value handler and re-throwing error handler.
+     *
+     * @param <T> type of value whose updates will be listened
+     * @return created memoizing subscriber
+     */
+    public <@NotNull T> @NotNull VersionedMemoizingFlowSubscriber<T> createConcurrentMemoizingSubscriber() {
+        return createConcurrentMemoizingSubscriber(newValue -> {});
+    }
+
+    /**
+     * Creates a new {@link IntSubscriber int subscriber}.
+     *
+     * @param nextHandler handler to be notified when {@link IntSubscriber#onNextInt(int)} gets called
+     * @param errorHandler handler to be notified when {@link Flow.Subscriber#onError(Throwable)} gets called
+     * @return created int subscriber
+     *
+     * @throws NullPointerException if {@code nextHandler} is {@code null}
+     * @throws NullPointerException if {@code errorHandler} is {@code null}
+     */
+    public @NotNull IntSubscriber createIntSubscriber(final @NonNull IntConsumer nextHandler,
+                                                      final @NonNull Consumer<@NotNull Throwable> errorHandler) {
+        return new DelegatingIntSubscriber(nextHandler, errorHandler);
+    }
+
+    /**
+     * Creates a new {@link IntSubscriber int subscriber} with re-throwing error handler.
+     *
+     * @param nextHandler handler to be notified when {@link IntSubscriber#onNextInt(int)} gets called
+     * @return created int subscriber
+     *
+     * @throws NullPointerException if {@code nextHandler} is {@code null}
+     */
+    public @NotNull IntSubscriber createIntSubscriber(final @NonNull IntConsumer nextHandler) {
+        return createIntSubscriber(nextHandler, error -> {
+            throw new InternalError("An unexpected error was passed to ChangeListener", error);
+        });
+    }
+
     //<editor-fold desc="Inner implementations" defaultstate="collapsed">
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
@@ -139,6 +220,30 @@ public class FlowSubscribers {
         public void onComplete() {} // this one is usually unneeded
     }
 
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class DelegatingIntSubscriber implements IntSubscriber {
+
+        @NotNull IntConsumer nextHandler;
+        @NotNull Consumer<@NotNull Throwable> errorHandler;
+
+        @Override
+        public void onNextInt(final int value) {
+            nextHandler.accept(value);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            errorHandler.accept(error);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {} // this one is usually unneeded
+
+        @Override
+        public void onComplete() {} // this one is usually unneeded
+    }
+
     @Accessors(fluent = true)
     @FieldDefaults(level = AccessLevel.PRIVATE)
     private static final class ThreadUnsafeMemoizingDelegatingSubscriber<T>
@@ -153,6 +258,72 @@ public class FlowSubscribers {
                                                           final @NotNull Consumer<@NotNull Throwable> errorHandler) {
             super(nextHandler, errorHandler);
         }
+
+        @Override
+        public void onNext(final T item) {
+            super.onNext(lastValue = item);
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class ConcurrentMemoizingDelegatingSubscriber<T>
+            extends DelegatingSubscriber<T> implements VersionedMemoizingFlowSubscriber<T> {
+
+        /**
+         * {@link VarHandle} of {@link #lastValue}
+         */
+        private static final @NotNull VarHandle LAST_VALUE;
+
+        /**
+         * {@link VarHandle} of {@link #version}
+         */
+        private static final @NotNull VarHandle VERSION;
+
+        static {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                LAST_VALUE = lookup.findVarHandle(
+                        ConcurrentMemoizingDelegatingSubscriber.class, "lastValue", Object.class
+                );
+                VERSION = lookup.findVarHandle(ConcurrentMemoizingDelegatingSubscriber.class, "version", long.class);
+            } catch (final NoSuchFieldException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /**
+         * Last value passed to {@link #onNext(Object)}, published with release semantics.
+         */
+        @Nullable T lastValue; // default-initialized to null
+
+        /**
+         * Number of calls to {@link #onNext(Object)}, published with release semantics after {@link #lastValue}.
+         */
+        long version; // default-initialized to 0
+
+        private ConcurrentMemoizingDelegatingSubscriber(final @NotNull Consumer<? super T> nextHandler,
+                                                        final @NotNull Consumer<@NotNull Throwable> errorHandler) {
+            super(nextHandler, errorHandler);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            LAST_VALUE.setRelease(this, item);
+            VERSION.getAndAddRelease(this, 1L);
+
+            super.onNext(item);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public @Nullable T lastValue() {
+            return (T) LAST_VALUE.getAcquire(this);
+        }
+
+        @Override
+        public long version() {
+            return (long) VERSION.getAcquire(this);
+        }
     }
     //</editor-fold>
 }
@@ -0,0 +1,287 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * {@link Publisher Publisher} applying a chain of synchronous operators to the items of its source.
+ * <p>
+ * Operators applied to a fused publisher do not create another publisher stage but extend the chain
+ * so that each subscription is a single subscriber to the source
+ * through which each item passes the whole chain by direct calls.
+ *
+ * @param <T> type of published items
+ *
+ * @see FlowOperators
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class FusedPublisher<T> implements Publisher<T> {
+
+    /**
+     * Publisher of the items to which the chain is applied
+     */
+    @NotNull Publisher<?> source;
+
+    /**
+     * Chain of the operators
+     */
+    @NotNull Chain<T> chain;
+
+    /**
+     * Creates a fused publisher of the given publisher's items.
+     *
+     * @param source publisher whose items should be published
+     * @param <T> type of published items
+     * @return fused publisher of the source's items, the source itself if it already is fused
+     *
+     * @throws NullPointerException if {@code source} is {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> @NotNull FusedPublisher<T> of(final @NonNull Publisher<T> source) {
+        if (source instanceof FusedPublisher) return (FusedPublisher<T>) source;
+
+        return new FusedPublisher<>(source, downstream -> downstream);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber is null");
+
+        ((Publisher<Object>) source).subscribe((Subscriber<Object>) chain.wrap(subscriber));
+    }
+
+    private <R> @NotNull FusedPublisher<R> then(final @NotNull Stage<T, R> stage) {
+        final Chain<T> chain = this.chain;
+        return new FusedPublisher<>(source, downstream -> chain.wrap(stage.wrap(downstream)));
+    }
+
+    /**
+     * Creates a fused publisher of the items of this publisher transformed by the given function.
+     *
+     * @param mapper function transforming the items
+     * @param <R> type of transformed items
+     * @return fused publisher of the transformed items
+     *
+     * @throws NullPointerException if {@code mapper} is {@code null}
+     */
+    public <R> @NotNull FusedPublisher<R> map(final @NonNull Function<? super T, ? extends R> mapper) {
+        return then(downstream -> new MapSubscriber<>(downstream, mapper));
+    }
+
+    /**
+     * Creates a fused publisher of the items of this publisher matching the given predicate.
+     *
+     * @param filter predicate which should be matched by the published items
+     * @return fused publisher of the matching items
+     *
+     * @throws NullPointerException if {@code filter} is {@code null}
+     */
+    public @NotNull FusedPublisher<T> filter(final @NonNull Predicate<? super T> filter) {
+        return then(downstream -> new FilterSubscriber<>(downstream, filter));
+    }
+
+    /**
+     * Creates a fused publisher of the items of this publisher
+     * which are not {@link Object#equals(Object) equal} to the previous ones.
+     *
+     * @return fused publisher of the changed items
+     */
+    public @NotNull FusedPublisher<T> distinctUntilChanged() {
+        return then(DistinctUntilChangedSubscriber::new);
+    }
+
+    /**
+     * Creates a fused publisher of the values accumulated from the items of this publisher.
+     *
+     * @param initialValue value to which the first item gets accumulated
+     * @param accumulator function accumulating the item to the previous value
+     * @param <R> type of accumulated values
+     * @return fused publisher of each accumulated value, {@code initialValue} itself is not published
+     *
+     * @throws NullPointerException if {@code initialValue} is {@code null}
+     * @throws NullPointerException if {@code accumulator} is {@code null}
+     */
+    public <R> @NotNull FusedPublisher<R> scan(final @NonNull R initialValue,
+                                              final @NonNull BiFunction<R, ? super T, R> accumulator) {
+        return then(downstream -> new ScanSubscriber<>(downstream, initialValue, accumulator));
+    }
+
+    /**
+     * Chain of operators.
+     *
+     * @param <R> type of the items leaving the chain
+     */
+    @FunctionalInterface
+    private interface Chain<R> {
+
+        /**
+         * Wraps the given downstream subscriber into the subscriber of the source.
+         *
+         * @param downstream subscriber of the items leaving this chain
+         * @return subscriber of the source's items
+         */
+        @NotNull Subscriber<?> wrap(@NotNull Subscriber<? super R> downstream);
+    }
+
+    /**
+     * Stage of an operator chain.
+     *
+     * @param <T> type of the items entering the stage
+     * @param <R> type of the items leaving the stage
+     */
+    @FunctionalInterface
+    private interface Stage<T, R> {
+
+        /**
+         * Wraps the given downstream subscriber into the subscriber of this stage.
+         *
+         * @param downstream subscriber of the items leaving this stage
+         * @return subscriber of the items entering this stage
+         */
+        @NotNull Subscriber<? super T> wrap(@NotNull Subscriber<? super R> downstream);
+    }
+
+    /**
+     * Base of a subscriber of a stage passing all signals but {@link #onNext(Object)} as is.
+     *
+     * @param <T> type of the items entering the stage
+     * @param <R> type of the items leaving the stage
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+    @FieldDefaults(level = AccessLevel.PROTECTED, makeFinal = true)
+    private abstract static class StageSubscriber<T, R> implements Subscriber<T> {
+
+        /**
+         * Subscriber of the items leaving this stage
+         */
+        @NotNull Subscriber<? super R> downstream;
+
+        /**
+         * Subscription of this subscriber
+         */
+        @NonFinal @Nullable Subscription upstream;
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            downstream.onSubscribe(upstream = subscription);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            downstream.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+
+        /**
+         * Notifies the source that an item was dropped so that the demand of the downstream stays the same.
+         */
+        protected void dropped() {
+            final Subscription subscription;
+            if ((subscription = upstream) != null) subscription.request(1);
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class MapSubscriber<T, R> extends StageSubscriber<T, R> {
+
+        @NotNull Function<? super T, ? extends R> mapper;
+
+        private MapSubscriber(final @NotNull Subscriber<? super R> downstream,
+                              final @NotNull Function<? super T, ? extends R> mapper) {
+            super(downstream);
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void onNext(final T item) {
+            downstream.onNext(mapper.apply(item));
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class FilterSubscriber<T> extends StageSubscriber<T, T> {
+
+        @NotNull Predicate<? super T> filter;
+
+        private FilterSubscriber(final @NotNull Subscriber<? super T> downstream,
+                                 final @NotNull Predicate<? super T> filter) {
+            super(downstream);
+            this.filter = filter;
+        }
+
+        @Override
+        public void onNext(final T item) {
+            if (filter.test(item)) downstream.onNext(item);
+            else dropped();
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class DistinctUntilChangedSubscriber<T> extends StageSubscriber<T, T> {
+
+        @Nullable T lastItem; // default-initialized to null
+
+        private DistinctUntilChangedSubscriber(final @NotNull Subscriber<? super T> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            if (item.equals(lastItem)) dropped();
+            else downstream.onNext(lastItem = item);
+        }
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class ScanSubscriber<T, R> extends StageSubscriber<T, R> {
+
+        final @NotNull BiFunction<R, ? super T, R> accumulator;
+
+        @NotNull R value;
+
+        private ScanSubscriber(final @NotNull Subscriber<? super R> downstream, final @NotNull R initialValue,
+                               final @NotNull BiFunction<R, ? super T, R> accumulator) {
+            super(downstream);
+            value = initialValue;
+            this.accumulator = accumulator;
+        }
+
+        @Override
+        public void onNext(final T item) {
+            downstream.onNext(value = accumulator.apply(value, item));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import java.util.concurrent.Flow;
+
+/**
+ * {@link Flow.Publisher Publisher} of primitive {@code int} values.
+ * <p>
+ * The values get passed to {@link IntSubscriber int subscribers} via {@link IntSubscriber#onNextInt(int)}
+ * and get boxed only for the other subscribers.
+ */
+public interface IntPublisher extends Flow.Publisher<Integer> {}
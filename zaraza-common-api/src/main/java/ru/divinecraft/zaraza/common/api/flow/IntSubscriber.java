@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.NonNull;
+
+import java.util.concurrent.Flow;
+
+/**
+ * {@link Flow.Subscriber Subscriber} of primitive {@code int} values.
+ * <p>
+ * {@link IntPublisher Int publishers} pass the values to it via {@link #onNextInt(int)} without boxing them.
+ */
+public interface IntSubscriber extends Flow.Subscriber<Integer> {
+
+    /**
+     * Handles the given value.
+     *
+     * @param value handled value
+     */
+    void onNextInt(int value);
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This unboxes the value and passes it to {@link #onNextInt(int)}.
+     *
+     * @throws NullPointerException if {@code item} is {@code null}
+     */
+    @Override
+    default void onNext(final @NonNull Integer item) {
+        onNextInt(item);
+    }
+}
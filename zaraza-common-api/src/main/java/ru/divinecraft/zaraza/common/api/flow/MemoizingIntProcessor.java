@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import java.util.NoSuchElementException;
+
+/**
+ * {@link IntProcessor Int processor} which memoizes its last processed value.
+ */
+public interface MemoizingIntProcessor extends IntProcessor, MemoizingFlowProcessor<Integer, Integer> {
+
+    /**
+     * Checks if any value was processed.
+     *
+     * @return {@code true} if there is the last processed value and {@code false} otherwise
+     */
+    boolean hasLastValue();
+
+    /**
+     * Gets the last {@link #onNextInt(int) processed} value.
+     *
+     * @return the last processed value
+     *
+     * @throws NoSuchElementException if there was no processed value
+     */
+    int lastIntValue();
+}
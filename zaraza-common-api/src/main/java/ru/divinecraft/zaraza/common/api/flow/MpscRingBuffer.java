@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free bounded queue supporting multiple producers and a single consumer.
+ * <p>
+ * Each slot has a sequence number telling whether it is free for the producer of the given position
+ * or contains the element for the consumer of the given position so that producers only contend on the tail.
+ *
+ * @param <E> type of queued elements
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class MpscRingBuffer<E> {
+
+    /**
+     * {@link VarHandle} of {@link #sequences}' elements
+     */
+    private static final @NotNull VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * {@link VarHandle} of {@link #tail}
+     */
+    private static final @NotNull VarHandle TAIL;
+
+    static {
+        try {
+            TAIL = MethodHandles.lookup().findVarHandle(MpscRingBuffer.class, "tail", long.class);
+        } catch (final NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Sequence numbers of the slots
+     */
+    long @NotNull [] sequences;
+
+    /**
+     * Elements stored in the slots
+     */
+    @Nullable Object @NotNull [] elements;
+
+    /**
+     * Mask of a position giving the index of its slot
+     */
+    int mask;
+
+    /**
+     * Position at which the next element will be offered
+     */
+    @NonFinal volatile long tail;
+
+    /**
+     * Position from which the next element will be polled, only accessed by the consumer
+     */
+    @NonFinal long head;
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param capacity minimal capacity of the ring buffer, rounded up to a power of two
+     */
+    MpscRingBuffer(final int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException(
+                "capacity should be in range [1; 2^30]"
+        );
+
+        final int actualCapacity;
+        sequences = new long[actualCapacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+        for (var index = 0; index < actualCapacity; index++) sequences[index] = index;
+        elements = new Object[actualCapacity];
+        mask = actualCapacity - 1;
+    }
+
+    /**
+     * Adds the given element to the end of this ring buffer if it is not full.
+     * This may be called concurrently by multiple threads.
+     *
+     * @param element added element
+     * @return {@code true} if the element was added and {@code false} if this ring buffer is full
+     */
+    boolean offer(final @NotNull E element) {
+        long position;
+        int index;
+        while (true) {
+            final long sequence = (long) SEQUENCES.getAcquire(sequences, index = (int) (position = tail) & mask);
+            if (sequence == position) {
+                if (TAIL.compareAndSet(this, position, position + 1)) break;
+            } else if (sequence < position) return false; // the consumer has not yet freed this slot
+            // else another producer has already taken this position
+        }
+
+        elements[index] = element;
+        SEQUENCES.setRelease(sequences, index, position + 1);
+
+        return true;
+    }
+
+    /**
+     * Removes the first element of this ring buffer.
+     * This should only be called by a single thread at a time.
+     *
+     * @return removed element or {@code null} if there is no element which was completely added
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable E poll() {
+        final long position;
+        final int index;
+        if ((long) SEQUENCES.getAcquire(sequences, index = (int) (position = head) & mask) != position + 1) return null;
+
+        final E element = (E) elements[index];
+        elements[index] = null;
+        SEQUENCES.setRelease(sequences, index, position + elements.length);
+        head = position + 1;
+
+        return element;
+    }
+
+    /**
+     * Removes all elements of this ring buffer.
+     * This should only be called by the consumer thread.
+     */
+    void clear() {
+        //noinspection StatementWithEmptyBody
+        while (poll() != null);
+    }
+}
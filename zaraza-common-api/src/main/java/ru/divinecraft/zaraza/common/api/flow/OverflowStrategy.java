@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+/**
+ * Strategy of handling items which do not fit into a bounded subscriber buffer.
+ */
+public enum OverflowStrategy {
+
+    /**
+     * The oldest buffered item gets dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * All buffered items get dropped so that only the new one is kept.
+     */
+    KEEP_LATEST,
+
+    /**
+     * The subscription gets cancelled and the subscriber gets notified via {@link
+     * java.util.concurrent.Flow.Subscriber#onError(Throwable)}.
+     */
+    ERROR
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchical hashed timer wheel measuring the time in ticks.
+ * <p>
+ * The wheel consists of levels of {@value #SLOTS} slots each,
+ * the slot of the level {@code L} spanning {@code 64^L} ticks, so that any deadline fits into it.
+ * Scheduling and cancellation of a timer is {@code O(1)}
+ * while a timer gets moved to a lower level at most once per level before it expires.
+ * <p>
+ * The wheel does not advance by itself but should be driven by calling {@link #tick()},
+ * i.e. once per server tick by a single repeating task, or {@link #driveBy(ScheduledExecutorService, long, TimeUnit)
+ * by an executor}. The tasks of the expired timers get run by the thread calling {@link #tick()}.
+ *
+ * @apiNote this is thread-safe
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class TimerWheel {
+
+    /**
+     * Number of bits of a tick number corresponding to a single level
+     */
+    private static final int LEVEL_BITS = 6;
+
+    /**
+     * Number of slots of a single level
+     */
+    private static final int SLOTS = 1 << LEVEL_BITS;
+
+    /**
+     * Mask of a tick number giving the slot of the lowest level
+     */
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * Number of levels enough to fit any non-negative tick number
+     */
+    private static final int LEVELS = (Long.SIZE + LEVEL_BITS - 1) / LEVEL_BITS;
+
+    /**
+     * Heads of circular doubly-linked lists of the timers of each slot of each level
+     */
+    @NotNull Timer @NotNull [] slots;
+
+    /**
+     * Number of the current tick, guarded by {@code this}
+     */
+    @NonFinal long currentTick;
+
+    /**
+     * Creates a new timer wheel whose current tick is {@code 0}.
+     */
+    public TimerWheel() {
+        slots = new Timer[LEVELS * SLOTS];
+        for (var index = 0; index < slots.length; index++) slots[index] = new Timer(this, null, -1);
+    }
+
+    /**
+     * Gets the number of the current tick.
+     *
+     * @return number of the current tick
+     */
+    public synchronized long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Schedules the given task to be run after the given number of ticks.
+     *
+     * @param delay number of ticks after which the task should be run,
+     * non-positive values are treated as {@code 1} so that the task is run on the next tick
+     * @param task task to be run
+     * @return scheduled timer
+     *
+     * @throws NullPointerException if {@code task} is {@code null}
+     */
+    public @NotNull Timer schedule(final long delay, final @NonNull Runnable task) {
+        final Timer timer;
+        synchronized (this) {
+            final long now = currentTick;
+            insert(timer = new Timer(this, task, delay <= 0 ? now + 1 : now + Math.min(delay, Long.MAX_VALUE - now)));
+        }
+
+        return timer;
+    }
+
+    /**
+     * Advances this wheel by a single tick running the tasks of the expired timers.
+     *
+     * @throws RuntimeException if any of the run tasks has thrown it, all other tasks still get run
+     */
+    public void tick() {
+        final Timer head;
+        final Timer expired;
+        synchronized (this) {
+            final long now = ++currentTick;
+
+            // move the timers of the slots whose period has started to the lower levels
+            var highestLevel = 0;
+            while (highestLevel + 1 < LEVELS
+                    && (now & ((1L << LEVEL_BITS * (highestLevel + 1)) - 1)) == 0) highestLevel++;
+            for (var level = highestLevel; level > 0; level--) {
+                final Timer slot = slots[level * SLOTS + (int) (now >>> LEVEL_BITS * level & SLOT_MASK)];
+                Timer timer = slot.next;
+                slot.next = slot.previous = slot;
+                while (timer != slot) {
+                    final Timer next = timer.next;
+                    insert(timer);
+                    timer = next;
+                }
+            }
+
+            // detach the expired timers
+            head = slots[(int) (now & SLOT_MASK)];
+            if ((expired = head.next) == head) return;
+
+            head.previous.next = null;
+            head.next = head.previous = head;
+            for (Timer timer = expired; timer != null; timer = timer.next) timer.slot = null;
+        }
+
+        RuntimeException failure = null;
+        for (Timer timer = expired; timer != null; ) {
+            final Timer next = timer.next;
+            timer.next = timer.previous = null;
+            try {
+                timer.expire();
+            } catch (final RuntimeException e) {
+                // the other expired timers should still be run
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+            timer = next;
+        }
+
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Makes the given executor drive this wheel by calling {@link #tick()} periodically.
+     *
+     * @param executor executor which should call {@link #tick()}
+     * @param tickDuration duration of a tick
+     * @param unit unit of {@code tickDuration}
+     * @return future which can be used to stop driving this wheel
+     *
+     * @throws NullPointerException if {@code executor} is {@code null}
+     * @throws NullPointerException if {@code unit} is {@code null}
+     * @throws IllegalArgumentException if {@code tickDuration} is not positive
+     */
+    public @NotNull ScheduledFuture<?> driveBy(final @NonNull ScheduledExecutorService executor,
+                                               final long tickDuration, final @NonNull TimeUnit unit) {
+        if (tickDuration <= 0) throw new IllegalArgumentException("tickDuration should be positive");
+
+        return executor.scheduleAtFixedRate(this::tick, tickDuration, tickDuration, unit);
+    }
+
+    /**
+     * Adds the given timer to the tail of the slot corresponding to its deadline.
+     *
+     * @param timer added timer
+     */
+    private void insert(final @NotNull Timer timer) {
+        final long deadline = timer.deadline;
+        // the highest level group of bits in which the deadline differs from the current tick
+        final int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / LEVEL_BITS;
+
+        final Timer slot, tail;
+        timer.slot = slot = slots[level * SLOTS + (int) (deadline >>> LEVEL_BITS * level & SLOT_MASK)];
+        timer.previous = tail = slot.previous;
+        timer.next = slot;
+        tail.next = timer;
+        slot.previous = timer;
+    }
+
+    /**
+     * Timer scheduled on a {@link TimerWheel}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static final class Timer {
+
+        /**
+         * {@link VarHandle} of {@link #state}
+         */
+        private static final @NotNull VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timer.class, "state", int.class);
+            } catch (final NoSuchFieldException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private static final int PENDING = 0, EXPIRED = 1, CANCELLED = 2;
+
+        /**
+         * Wheel on which this timer is scheduled
+         */
+        final @NotNull TimerWheel wheel;
+
+        /**
+         * Task run once this timer expires or {@code null} if this is a slot's head
+         */
+        final @Nullable Runnable task;
+
+        /**
+         * Number of the tick on which this timer expires
+         */
+        final long deadline;
+
+        /**
+         * State of this timer
+         */
+        volatile int state;
+
+        /**
+         * Head of the slot in which this timer is or {@code null} if it is not in the wheel, guarded by the wheel
+         */
+        @Nullable Timer slot;
+
+        /**
+         * Neighbours of this timer in the slot, guarded by the wheel
+         */
+        Timer previous, next;
+
+        private Timer(final @NotNull TimerWheel wheel, final @Nullable Runnable task, final long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            previous = next = this;
+        }
+
+        /**
+         * Gets the number of the tick on which this timer expires.
+         *
+         * @return number of the tick on which this timer expires
+         */
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * Checks if this timer has neither expired nor was cancelled.
+         *
+         * @return {@code true} if this timer is pending and {@code false} otherwise
+         */
+        public boolean isPending() {
+            return state == PENDING;
+        }
+
+        /**
+         * Cancels this timer so that its task does not get run.
+         *
+         * @return {@code true} if this timer was cancelled and {@code false} if it has expired or was cancelled before
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+
+            synchronized (wheel) {
+                if (slot != null) {
+                    previous.next = next;
+                    next.previous = previous;
+                    previous = next = null;
+                    slot = null;
+                }
+            }
+
+            return true;
+        }
+
+        private void expire() {
+            if (STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                assert task != null : "slot heads never expire";
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link MemoizingFlowSubscriber Memoizing subscriber} counting the versions of its last value
+ * so that its readers may cheaply check if it has changed since they have read it.
+ *
+ * @param <T> the subscribed item type
+ */
+public interface VersionedMemoizingFlowSubscriber<@NotNull T> extends MemoizingFlowSubscriber<T> {
+
+    /**
+     * Gets the version of the last value, incremented on each call to {@link #onNext(Object)}.
+     *
+     * @return version of the last value, {@code 0} if there was none
+     *
+     * @apiNote the version should be read before the {@link #lastValue() last value}
+     * so that the value is at least as new as the version
+     */
+    long version();
+
+    /**
+     * Checks if the last value has changed since the given version.
+     *
+     * @param version previously read {@link #version() version}
+     * @return {@code true} if there was a call to {@link #onNext(Object)} after the given version
+     */
+    default boolean changedSince(final long version) {
+        return version() != version;
+    }
+}
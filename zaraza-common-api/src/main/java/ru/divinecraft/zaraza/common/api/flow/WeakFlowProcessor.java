@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import java.util.concurrent.Flow;
+
+/**
+ * {@link Flow.Processor Processor} holding its subscribers through weak references
+ * so that the subscribers which are no longer used elsewhere get unsubscribed automatically.
+ *
+ * @param <T> the processed item type
+ *
+ * @apiNote the subscribers should be strongly referenced by their owners for as long as they should be subscribed
+ */
+public interface WeakFlowProcessor<T> extends Flow.Processor<T, T> {
+
+    /**
+     * Removes the subscribers which were garbage-collected.
+     * This also happens automatically when such subscribers are found while dispatching or subscribing.
+     *
+     * @return number of the removed subscribers
+     */
+    int purge();
+
+    /**
+     * Gets the total number of the subscribers which were removed as they were garbage-collected.
+     *
+     * @return number of the subscribers purged over the lifetime of this processor
+     */
+    long purgedSubscriberCount();
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link MutableUniqueIdSet Mutable unique ID set} persisted in a file which gets memory-mapped.
+ * <p>
+ * The file consists of {@link PlayerSet#PLAYER_COMPARATOR sorted} 16-byte big-endian keys
+ * (most significant bits followed by least significant bits) so that membership checks
+ * are done by a binary search over the mapped memory without loading the file into the heap.
+ * Modifications are stored in a small on-heap delta which should be periodically {@link #merge() merged}
+ * into the file.
+ *
+ * @apiNote stores are not thread-safe
+ */
+public interface MappedUniqueIdStore extends MutableUniqueIdSet, Closeable {
+
+    /**
+     * Gets the number of modifications which are not yet {@link #merge() merged} into the file.
+     *
+     * @return number of unmerged modifications
+     *
+     * @apiNote {@link #clear() clearing} the store is not counted as it keeps no delta on the heap
+     */
+    int deltaSize();
+
+    /**
+     * Merges all modifications into the file and remaps it.
+     *
+     * @throws IOException if an I/O error occurs
+     *
+     * @apiNote the new file is written next to the original one and then atomically moved in its place
+     */
+    void merge() throws IOException;
+
+    /**
+     * Opens the store at the given path creating an empty one if it does not exist.
+     *
+     * @param path path to the store file
+     * @return opened store
+     *
+     * @throws NullPointerException if {@code path} is {@code null}
+     * @throws IOException if an I/O error occurs or the file is not a valid store
+     */
+    static @NotNull MappedUniqueIdStore open(final @NonNull Path path) throws IOException {
+        val store = new FileMappedUniqueIdStore(path);
+        store.map();
+
+        return store;
+    }
+
+    /**
+     * {@link MappedUniqueIdStore Mapped unique ID store} based on a {@link MappedByteBuffer}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    final class FileMappedUniqueIdStore implements MappedUniqueIdStore {
+
+        /**
+         * Size of a single key in bytes.
+         */
+        private static final int KEY_SIZE = Long.BYTES << 1;
+
+        /**
+         * Size of a buffer used for writing the merged file.
+         */
+        private static final int WRITE_BUFFER_SIZE = KEY_SIZE << 12;
+
+        /**
+         * Path to the store file
+         */
+        final @NotNull Path path;
+
+        /**
+         * Unique IDs added but not yet merged into the file, none of them is contained in the file
+         */
+        final @NotNull MutableUniqueIdSet added;
+
+        /**
+         * Unique IDs removed but not yet merged into the file, all of them are contained in the file
+         */
+        final @NotNull MutableUniqueIdSet removed;
+
+        /**
+         * Channel of the currently mapped file
+         */
+        FileChannel channel;
+
+        /**
+         * Currently mapped contents of the file
+         */
+        ByteBuffer keys;
+
+        /**
+         * Number of keys in the currently mapped file which are visible, this is zero once the store is cleared
+         */
+        int keyCount;
+
+        /**
+         * Marker indicating whether the store was cleared since the last merge so that the file is ignored
+         */
+        boolean cleared;
+
+        private FileMappedUniqueIdStore(final @NotNull Path path) {
+            this.path = path;
+            added = UniqueIdSets.newMutableUniqueIdSet();
+            removed = UniqueIdSets.newMutableUniqueIdSet();
+        }
+
+        private void map() throws IOException {
+            val channel = FileChannel.open(
+                    path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE
+            );
+            try {
+                final long size;
+                if ((size = channel.size()) % KEY_SIZE != 0) throw new IOException(
+                        "Size of the store file " + path + " is not a multiple of " + KEY_SIZE
+                );
+                if (size > Integer.MAX_VALUE) throw new IOException("Store file " + path + " is too big");
+
+                keys = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                keyCount = (int) (size / KEY_SIZE);
+                cleared = false;
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+
+            this.channel = channel;
+        }
+
+        private boolean fileContains(final long mostSignificantBits, final long leastSignificantBits) {
+            final ByteBuffer thisKeys = keys;
+            int low = 0, high = keyCount - 1;
+            while (low <= high) {
+                final int middle;
+                // cannot overflow as the size of the file is limited
+                final int offset = (middle = (low + high) >>> 1) * KEY_SIZE;
+                final int comparison = UniqueIdArrays.compare(
+                        thisKeys.getLong(offset), thisKeys.getLong(offset + Long.BYTES),
+                        mostSignificantBits, leastSignificantBits
+                );
+                if (comparison < 0) low = middle + 1;
+                else if (comparison > 0) high = middle - 1;
+                else return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return keyCount - removed.size() + added.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public int deltaSize() {
+            return added.size() + removed.size();
+        }
+
+        @Override
+        public boolean contains(final long mostSignificantBits, final long leastSignificantBits) {
+            return added.contains(mostSignificantBits, leastSignificantBits)
+                    || !removed.contains(mostSignificantBits, leastSignificantBits)
+                    && fileContains(mostSignificantBits, leastSignificantBits);
+        }
+
+        @Override
+        public boolean add(final long mostSignificantBits, final long leastSignificantBits) {
+            if (removed.remove(mostSignificantBits, leastSignificantBits)) return true;
+
+            return !fileContains(mostSignificantBits, leastSignificantBits)
+                    && added.add(mostSignificantBits, leastSignificantBits);
+        }
+
+        @Override
+        public boolean remove(final long mostSignificantBits, final long leastSignificantBits) {
+            if (added.remove(mostSignificantBits, leastSignificantBits)) return true;
+
+            return fileContains(mostSignificantBits, leastSignificantBits)
+                    && removed.add(mostSignificantBits, leastSignificantBits);
+        }
+
+        @Override
+        public void clear() {
+            added.clear();
+            removed.clear();
+            // the file's keys become invisible without being copied to the heap, the merge truncates the file
+            keyCount = 0;
+            cleared = true;
+        }
+
+        @Override
+        public void forEach(final @NonNull UniqueIdConsumer action) {
+            final ByteBuffer thisKeys = keys;
+            final MutableUniqueIdSet thisRemoved = removed;
+            for (int index = 0, count = keyCount; index < count; index++) {
+                final long mostSignificantBits = thisKeys.getLong(index * KEY_SIZE),
+                        leastSignificantBits = thisKeys.getLong(index * KEY_SIZE + Long.BYTES);
+                if (!thisRemoved.contains(mostSignificantBits, leastSignificantBits)) action.accept(
+                        mostSignificantBits, leastSignificantBits
+                );
+            }
+            added.forEach(action);
+        }
+
+        @Override
+        public long @NotNull [] toSortedBits() {
+            val bits = new long[size() << 1];
+            val index = new int[1];
+            mergedForEach((mostSignificantBits, leastSignificantBits) -> {
+                bits[index[0]++] = mostSignificantBits;
+                bits[index[0]++] = leastSignificantBits;
+            });
+
+            return bits;
+        }
+
+        @Override
+        public void merge() throws IOException {
+            if (deltaSize() == 0 && !cleared) return;
+
+            val temporaryFile = Files.createTempFile(
+                    path.toAbsolutePath().getParent(), path.getFileName().toString(), ".merge"
+            );
+            try {
+                try (val output = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                    val buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+                    final IOException[] writeError = {null};
+                    mergedForEach((mostSignificantBits, leastSignificantBits) -> {
+                        if (writeError[0] != null) return;
+
+                        buffer.putLong(mostSignificantBits).putLong(leastSignificantBits);
+                        if (!buffer.hasRemaining()) try {
+                            writeFully(output, buffer);
+                        } catch (final IOException e) {
+                            writeError[0] = e;
+                        }
+                    });
+                    if (writeError[0] != null) throw writeError[0];
+                    writeFully(output, buffer);
+                    output.force(true);
+                }
+
+                channel.close();
+                Files.move(
+                        temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+                );
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+
+            added.clear();
+            removed.clear();
+            map();
+        }
+
+        @Override
+        public void close() throws IOException {
+            keys = ByteBuffer.allocate(0);
+            keyCount = 0;
+            added.clear();
+            removed.clear();
+            channel.close();
+        }
+
+        /**
+         * Passes all contained unique IDs to the given consumer in {@link PlayerSet#PLAYER_COMPARATOR} order.
+         *
+         * @param action consumer to which the unique IDs are passed
+         */
+        private void mergedForEach(final @NotNull UniqueIdConsumer action) {
+            final ByteBuffer thisKeys = keys;
+            final MutableUniqueIdSet thisRemoved = removed;
+            final long[] addedBits;
+            final int keyCount = this.keyCount, addedLength = (addedBits = added.toSortedBits()).length;
+
+            int keyIndex = 0, addedIndex = 0;
+            while (keyIndex < keyCount) {
+                final long mostSignificantBits = thisKeys.getLong(keyIndex * KEY_SIZE),
+                        leastSignificantBits = thisKeys.getLong(keyIndex * KEY_SIZE + Long.BYTES);
+
+                // added unique IDs are never contained in the file
+                while (addedIndex < addedLength && UniqueIdArrays.compare(
+                        addedBits[addedIndex], addedBits[addedIndex + 1], mostSignificantBits, leastSignificantBits
+                ) < 0) {
+                    action.accept(addedBits[addedIndex], addedBits[addedIndex + 1]);
+                    addedIndex += 2;
+                }
+
+                if (!thisRemoved.contains(mostSignificantBits, leastSignificantBits)) action.accept(
+                        mostSignificantBits, leastSignificantBits
+                );
+                keyIndex++;
+            }
+            for (; addedIndex < addedLength; addedIndex += 2) action.accept(
+                    addedBits[addedIndex], addedBits[addedIndex + 1]
+            );
+        }
+
+        private static void writeFully(final @NotNull FileChannel channel,
+                                       final @NotNull ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.NonNull;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * Mutable {@link UniqueIdSet set of unique IDs}.
+ */
+public interface MutableUniqueIdSet extends UniqueIdSet {
+
+    /**
+     * Adds the unique ID represented by the given bits to this set.
+     *
+     * @param mostSignificantBits {@link UUID#getMostSignificantBits() most significant bits} of the unique ID
+     * @param leastSignificantBits {@link UUID#getLeastSignificantBits() least significant bits} of the unique ID
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     */
+    boolean add(long mostSignificantBits, long leastSignificantBits);
+
+    /**
+     * Adds the given unique ID to this set.
+     *
+     * @param uniqueId unique ID added to this set
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code uniqueId} is {@code null}
+     */
+    default boolean add(final @NonNull UUID uniqueId) {
+        return add(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+    }
+
+    /**
+     * Adds the unique ID of the given player to this set.
+     *
+     * @param player player whose unique ID is added to this set
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code player} is {@code null}
+     */
+    default boolean add(final @NonNull Player player) {
+        return add(player.getUniqueId());
+    }
+
+    /**
+     * Adds all unique IDs of the given set to this set.
+     *
+     * @param uniqueIds unique IDs added to this set
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code uniqueIds} is {@code null}
+     */
+    default boolean addAll(final @NonNull UniqueIdSet uniqueIds) {
+        final boolean[] updated = {false};
+        uniqueIds.forEach((mostSignificantBits, leastSignificantBits) -> {
+            if (add(mostSignificantBits, leastSignificantBits)) updated[0] = true;
+        });
+
+        return updated[0];
+    }
+
+    /**
+     * Removes the unique ID represented by the given bits from this set.
+     *
+     * @param mostSignificantBits {@link UUID#getMostSignificantBits() most significant bits} of the unique ID
+     * @param leastSignificantBits {@link UUID#getLeastSignificantBits() least significant bits} of the unique ID
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     */
+    boolean remove(long mostSignificantBits, long leastSignificantBits);
+
+    /**
+     * Removes the given unique ID from this set.
+     *
+     * @param uniqueId unique ID removed from this set
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code uniqueId} is {@code null}
+     */
+    default boolean remove(final @NonNull UUID uniqueId) {
+        return remove(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+    }
+
+    /**
+     * Removes the unique ID of the given player from this set.
+     *
+     * @param player player whose unique ID is removed from this set
+     * @return {@code true} if this set changed as the result of this call and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code player} is {@code null}
+     */
+    default boolean remove(final @NonNull Player player) {
+        return remove(player.getUniqueId());
+    }
+
+    /**
+     * Clears this set.
+     */
+    void clear();
+}
@@ -132,8 +132,6 @@ public interface PlayerSet extends PlayerSetMethods {
      *
      * @param players collection of players which will be stored in the given set
      * @return created player set
-     *
-     * @apiNote the behaviour is undefined if {@code players} is not distinct
      */
     static @NotNull PlayerSet of(final @NonNull @Unmodifiable Collection<? extends @NotNull Player> players) {
         return of(players.toArray(Player[]::new));
@@ -146,16 +144,18 @@ public interface PlayerSet extends PlayerSetMethods {
      * @param players array of players which will be stored in the given set
      * @return created player set
      *
-     * @apiNote the behaviour is undefined if {@code players} is not distinct
      * @apiNote the behaviour is undefined if any method of the created set
      * gets called after mutation of {@code players}
+     * @apiNote {@code players} gets sorted and, if it is not distinct, the created set is backed by its copy
      */
     static @NotNull PlayerSet of(final @NotNull Player @NonNull @Unmodifiable ... players) {
-        if (players.length == 1) return new SinglePlayerSet(players[0]);
-
-        Arrays.sort(players, PLAYER_COMPARATOR);
+        final int length;
+        if ((length = players.length) == 1) return new SinglePlayerSet(players[0]);
 
-        return new ArrayBasedPlayerSet(players);
+        final int distinctLength;
+        return (distinctLength = PlayerSetBuilder.sortDistinct(players, length)) == 1
+                ? new SinglePlayerSet(players[0])
+                : new ArrayBasedPlayerSet(distinctLength == length ? players : Arrays.copyOf(players, distinctLength));
     }
 
     /**
@@ -211,6 +211,30 @@ public interface PlayerSet extends PlayerSetMethods {
         return of(players.toArray(Player[]::new));
     }
 
+    /**
+     * Creates a new {@link PlayerSetBuilder player set builder}.
+     *
+     * @return created player set builder
+     */
+    static @NotNull PlayerSetBuilder builder() {
+        return new PlayerSetBuilder();
+    }
+
+    /**
+     * Creates a new {@link PlayerSetBuilder player set builder} able to store the given number of players
+     * without resizing.
+     *
+     * @param expectedSize expected number of added players
+     * @return created player set builder
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    static @NotNull PlayerSetBuilder builder(final int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize should be non-negative");
+
+        return new PlayerSetBuilder(expectedSize);
+    }
+
     @AllArgsConstructor(access = AccessLevel.PRIVATE)
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
     final class SinglePlayerSet implements PlayerSet {
@@ -433,7 +457,7 @@ public interface PlayerSet extends PlayerSetMethods {
 
         @Override
         public boolean contains(@NotNull final Player player) {
-            return false;
+            return Arrays.binarySearch(array, player, PLAYER_COMPARATOR) >= 0;
         }
 
         @Override
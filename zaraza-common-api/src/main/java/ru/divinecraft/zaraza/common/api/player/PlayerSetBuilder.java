@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Builder of {@link PlayerSet player sets}.
+ * <p>
+ * Added players may contain duplicates which get removed on {@link #build() build}.
+ *
+ * @implNote the players get sorted by primitive keys extracted once per player
+ * rather than by {@link PlayerSet#PLAYER_COMPARATOR} which extracts them on each comparison
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public final class PlayerSetBuilder {
+
+    /**
+     * Number of players starting from which sorting is done in parallel.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * Length of a run of keys sharing their high bits starting from which it is sorted by a generic sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Default capacity of the builder.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Players added to this builder
+     */
+    @NotNull Player @NotNull [] players;
+
+    /**
+     * Number of players added to this builder
+     */
+    int size;
+
+    /**
+     * Creates a new player set builder.
+     *
+     * @param expectedSize expected number of added players
+     */
+    PlayerSetBuilder(final int expectedSize) {
+        players = new Player[Math.max(expectedSize, 1)];
+    }
+
+    /**
+     * Creates a new player set builder.
+     */
+    PlayerSetBuilder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds the given player to this builder.
+     *
+     * @param player added player
+     * @return this builder
+     *
+     * @throws NullPointerException if {@code player} is {@code null}
+     */
+    public @NotNull PlayerSetBuilder add(final @NonNull Player player) {
+        final int thisSize;
+        if ((thisSize = size) == players.length) players = Arrays.copyOf(players, thisSize << 1);
+        players[thisSize] = player;
+        size = thisSize + 1;
+
+        return this;
+    }
+
+    /**
+     * Adds all given players to this builder.
+     *
+     * @param players added players
+     * @return this builder
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     */
+    public @NotNull PlayerSetBuilder addAll(final @NonNull Collection<? extends @NotNull Player> players) {
+        ensureCapacity(size + players.size());
+        for (val player : players) add(player);
+
+        return this;
+    }
+
+    /**
+     * Adds all given players to this builder.
+     *
+     * @param players added players
+     * @return this builder
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     */
+    public @NotNull PlayerSetBuilder addAll(final @NonNull PlayerSet players) {
+        ensureCapacity(size + players.size());
+        players.forEach(this::add);
+
+        return this;
+    }
+
+    /**
+     * Adds all players of the given builder to this builder.
+     *
+     * @param other builder whose players are added
+     * @return this builder
+     *
+     * @throws NullPointerException if {@code other} is {@code null}
+     */
+    public @NotNull PlayerSetBuilder addAll(final @NonNull PlayerSetBuilder other) {
+        final int thisSize = size, otherSize = other.size;
+        ensureCapacity(thisSize + otherSize);
+        System.arraycopy(other.players, 0, players, thisSize, otherSize);
+        size = thisSize + otherSize;
+
+        return this;
+    }
+
+    /**
+     * Builds a new player set of the players added to this builder.
+     *
+     * @return created player set
+     *
+     * @apiNote this builder may still be used after this method is called
+     */
+    public @NotNull PlayerSet build() {
+        return PlayerSet.ofSorted(Arrays.copyOf(players, size = sortDistinct(players, size)));
+    }
+
+    private void ensureCapacity(final int capacity) {
+        final int length;
+        if ((length = players.length) < capacity) players = Arrays.copyOf(
+                players, Math.max(capacity, length << 1)
+        );
+    }
+
+    /**
+     * Sorts the beginning of the given array as by {@link PlayerSet#PLAYER_COMPARATOR} removing duplicate players.
+     *
+     * @param players array of players
+     * @param size number of the players at the beginning of the array which should be sorted
+     * @return number of distinct players at the beginning of the array after sorting
+     */
+    static int sortDistinct(final @NotNull Player @NotNull [] players, final int size) {
+        if (size < 2) return size;
+
+        // extract keys once
+        final long[] mostSignificantBits = new long[size], leastSignificantBits = new long[size];
+        for (var index = 0; index < size; index++) {
+            val uniqueId = players[index].getUniqueId();
+            mostSignificantBits[index] = uniqueId.getMostSignificantBits();
+            leastSignificantBits[index] = uniqueId.getLeastSignificantBits();
+        }
+
+        // sort keys consisting of the high bits of the most significant bits and the index
+        // so that primitive sorting may be used; the order is monotone in the most significant bits
+        final long indexMask = (1L << (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1))) - 1;
+        val keys = new long[size];
+        for (var index = 0; index < size; index++) keys[index] = mostSignificantBits[index] & ~indexMask | index;
+        if (size >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(keys);
+        else Arrays.sort(keys);
+
+        val order = new int[size];
+        for (var index = 0; index < size; index++) order[index] = (int) (keys[index] & indexMask);
+
+        // order runs of keys with equal high bits by the full unique IDs
+        for (var runStart = 0; runStart < size; ) {
+            final long highBits = keys[runStart] & ~indexMask;
+            var runEnd = runStart + 1;
+            while (runEnd < size && (keys[runEnd] & ~indexMask) == highBits) runEnd++;
+
+            if (runEnd - runStart > 1) sortRun(order, runStart, runEnd, mostSignificantBits, leastSignificantBits);
+            runStart = runEnd;
+        }
+
+        val sorted = new Player[size];
+        var distinctSize = 0;
+        long previousMostSignificantBits = 0, previousLeastSignificantBits = 0;
+        for (var index = 0; index < size; index++) {
+            final int playerIndex;
+            final long currentMostSignificantBits = mostSignificantBits[playerIndex = order[index]],
+                    currentLeastSignificantBits = leastSignificantBits[playerIndex];
+            if (distinctSize != 0 && currentMostSignificantBits == previousMostSignificantBits
+                    && currentLeastSignificantBits == previousLeastSignificantBits) continue;
+
+            sorted[distinctSize++] = players[playerIndex];
+            previousMostSignificantBits = currentMostSignificantBits;
+            previousLeastSignificantBits = currentLeastSignificantBits;
+        }
+        System.arraycopy(sorted, 0, players, 0, distinctSize);
+        Arrays.fill(players, distinctSize, size, null);
+
+        return distinctSize;
+    }
+
+    private static void sortRun(final int @NotNull [] order, final int from, final int to,
+                                final long @NotNull [] mostSignificantBits,
+                                final long @NotNull [] leastSignificantBits) {
+        if (to - from > INSERTION_SORT_THRESHOLD) {
+            // this is only possible with non-random unique IDs
+            val run = new Integer[to - from];
+            for (var index = from; index < to; index++) run[index - from] = order[index];
+            Arrays.sort(run, (left, right) -> UniqueIdArrays.compare(
+                    mostSignificantBits[left], leastSignificantBits[left],
+                    mostSignificantBits[right], leastSignificantBits[right]
+            ));
+            for (var index = from; index < to; index++) order[index] = run[index - from];
+
+            return;
+        }
+
+        for (var index = from + 1; index < to; index++) {
+            final int current = order[index];
+            final long currentMostSignificantBits = mostSignificantBits[current],
+                    currentLeastSignificantBits = leastSignificantBits[current];
+            var target = index - 1;
+            while (target >= from && UniqueIdArrays.compare(
+                    mostSignificantBits[order[target]], leastSignificantBits[order[target]],
+                    currentMostSignificantBits, currentLeastSignificantBits
+            ) > 0) {
+                order[target + 1] = order[target];
+                target--;
+            }
+            order[target + 1] = current;
+        }
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.divinecraft.zaraza.common.api.player.MutablePlayerSet.Update;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Compact binary codec for {@link PlayerSet player sets}, {@link Update their updates}
+ * and {@link UniqueIdSet unique ID sets}.
+ * <p>
+ * Player sets are written as {@link UUID unique IDs} of their players
+ * ordered by {@link PlayerSet#PLAYER_COMPARATOR} in one of the two formats:
+ * <dl>
+ *     <dt>delta</dt>
+ *     <dd>each unique ID is written as a VarLong delta of its most significant bits
+ *     followed by either the VarLong delta of its least significant bits (if the most significant bits are equal
+ *     to the previous ones) or the raw least significant bits</dd>
+ *     <dt>bitset</dt>
+ *     <dd>each player of a <i>universe</i> (a player set known to both sides) is represented by a single bit
+ *     which is set if the player is contained in the encoded set; this is used for dense sets</dd>
+ * </dl>
+ * All operations read and write the buffers directly starting at their current positions.
+ */
+@UtilityClass
+public class PlayerSetCodec {
+
+    /**
+     * Marker of the delta format.
+     */
+    private static final byte DELTA_FORMAT = 0;
+
+    /**
+     * Marker of the bitset format.
+     */
+    private static final byte BITSET_FORMAT = 1;
+
+    /**
+     * Maximal number of bytes used by a single VarLong.
+     */
+    private static final int MAX_VAR_LONG_SIZE = 10;
+
+    /**
+     * Maximal number of bytes used by a single VarInt.
+     */
+    private static final int MAX_VAR_INT_SIZE = 5;
+
+    /**
+     * Gets the maximal number of bytes which a player set of the given size may take in the delta format.
+     *
+     * @param size size of the player set
+     * @return maximal number of bytes required to encode the player set
+     *
+     * @throws IllegalArgumentException if {@code size} is negative
+     */
+    public int maxEncodedSize(final int size) {
+        if (size < 0) throw new IllegalArgumentException("size should be non-negative");
+
+        // format marker + size + (most significant bits delta + least significant bits) per entry
+        return 1 + MAX_VAR_INT_SIZE + size * (MAX_VAR_LONG_SIZE + Math.max(MAX_VAR_LONG_SIZE, Long.BYTES));
+    }
+
+    /**
+     * Encodes the given player set in the delta format.
+     *
+     * @param players player set to be encoded
+     * @param buffer buffer to which the player set should be written
+     * @return number of written bytes
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws BufferOverflowException if there is not enough space in the buffer
+     */
+    public int encode(final @NonNull PlayerSet players, final @NonNull ByteBuffer buffer) {
+        val start = buffer.position();
+        writeDelta(bitsOf(sortedPlayers(players)), buffer);
+
+        return buffer.position() - start;
+    }
+
+    /**
+     * Encodes the given unique ID set in the delta format.
+     *
+     * @param uniqueIds unique ID set to be encoded
+     * @param buffer buffer to which the unique ID set should be written
+     * @return number of written bytes
+     *
+     * @throws NullPointerException if {@code uniqueIds} is {@code null}
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws BufferOverflowException if there is not enough space in the buffer
+     *
+     * @apiNote the written data is compatible with the data written for the {@link PlayerSet player set}
+     * of the players having the same unique IDs
+     */
+    public int encode(final @NonNull UniqueIdSet uniqueIds, final @NonNull ByteBuffer buffer) {
+        val start = buffer.position();
+        writeDelta(uniqueIds.toSortedBits(), buffer);
+
+        return buffer.position() - start;
+    }
+
+    /**
+     * Encodes the given player set in the most compact format relative to the given universe.
+     *
+     * @param players player set to be encoded
+     * @param universe player set known to both the encoding and the decoding sides
+     * @param buffer buffer to which the player set should be written
+     * @return number of written bytes
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     * @throws NullPointerException if {@code universe} is {@code null}
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws BufferOverflowException if there is not enough space in the buffer
+     *
+     * @apiNote the bitset format is only used if all players are contained in {@code universe}
+     */
+    public int encode(final @NonNull PlayerSet players, final @NonNull PlayerSet universe,
+                      final @NonNull ByteBuffer buffer) {
+        val start = buffer.position();
+
+        val sortedPlayers = sortedPlayers(players);
+        val sortedUniverse = sortedPlayers(universe);
+        val universeSize = sortedUniverse.length;
+
+        val bits = new long[(universeSize + Long.SIZE - 1) / Long.SIZE];
+        var containedCount = 0;
+        for (var index = 0; index < universeSize; index++) if (players.contains(sortedUniverse[index])) {
+            bits[index / Long.SIZE] |= 1L << index;
+            containedCount++;
+        }
+
+        val sortedBits = bitsOf(sortedPlayers);
+        if (containedCount == sortedPlayers.length && bitsetSize(sortedPlayers.length, universeSize)
+                < deltaSize(sortedBits)) writeBitset(sortedPlayers.length, bits, universeSize, buffer);
+        else writeDelta(sortedBits, buffer);
+
+        return buffer.position() - start;
+    }
+
+    /**
+     * Encodes the given player set update with its players in the delta format.
+     *
+     * @param update player set update to be encoded
+     * @param buffer buffer to which the update should be written
+     * @return number of written bytes
+     *
+     * @throws NullPointerException if {@code update} is {@code null}
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws BufferOverflowException if there is not enough space in the buffer
+     */
+    public int encode(final @NonNull Update update, final @NonNull ByteBuffer buffer) {
+        buffer.put((byte) update.action().ordinal());
+
+        return 1 + encode(update.players(), buffer);
+    }
+
+    /**
+     * Encodes the given player set update with its players in the most compact format relative to the given universe.
+     *
+     * @param update player set update to be encoded
+     * @param universe player set known to both the encoding and the decoding sides
+     * @param buffer buffer to which the update should be written
+     * @return number of written bytes
+     *
+     * @throws NullPointerException if {@code update} is {@code null}
+     * @throws NullPointerException if {@code universe} is {@code null}
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws BufferOverflowException if there is not enough space in the buffer
+     */
+    public int encode(final @NonNull Update update, final @NonNull PlayerSet universe,
+                      final @NonNull ByteBuffer buffer) {
+        buffer.put((byte) update.action().ordinal());
+
+        return 1 + encode(update.players(), universe, buffer);
+    }
+
+    /**
+     * Decodes the unique IDs of the player set passing them to the given consumer
+     * in {@link PlayerSet#PLAYER_COMPARATOR the player set order}.
+     *
+     * @param buffer buffer from which the player set should be read
+     * @param universe player set known to both the encoding and the decoding sides,
+     * may be {@code null} if the player set is known to be encoded in the delta format
+     * @param consumer consumer accepting the decoded unique IDs
+     * @return number of decoded unique IDs
+     *
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws NullPointerException if {@code consumer} is {@code null}
+     * @throws IllegalArgumentException if the encoded data is malformed or does not match the universe
+     * @throws BufferUnderflowException if the buffer ends unexpectedly
+     */
+    public int decodeUniqueIds(final @NonNull ByteBuffer buffer, final @Nullable PlayerSet universe,
+                               final @NonNull UniqueIdConsumer consumer) {
+        val format = buffer.get();
+        val size = readSize(buffer);
+        switch (format) {
+            case DELTA_FORMAT: {
+                checkDeltaSize(size, buffer);
+                readDelta(buffer, size, consumer);
+                break;
+            }
+            case BITSET_FORMAT: {
+                for (val player : readBitset(buffer, size, universe)) {
+                    val uniqueId = player.getUniqueId();
+                    consumer.accept(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+                }
+                break;
+            }
+            default: throw new IllegalArgumentException("Unknown player set format: " + format);
+        }
+
+        return size;
+    }
+
+    /**
+     * Decodes the player set as a set of its unique IDs.
+     *
+     * @param buffer buffer from which the player set should be read
+     * @param universe player set known to both the encoding and the decoding sides,
+     * may be {@code null} if the player set is known to be encoded in the delta format
+     * @return decoded unique ID set
+     *
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws IllegalArgumentException if the encoded data is malformed or does not match the universe
+     * @throws BufferUnderflowException if the buffer ends unexpectedly
+     */
+    public @NotNull UniqueIdSet decodeUniqueIdSet(final @NonNull ByteBuffer buffer,
+                                                  final @Nullable PlayerSet universe) {
+        val format = buffer.get();
+        val size = readSize(buffer);
+        switch (format) {
+            case DELTA_FORMAT: {
+                checkDeltaSize(size, buffer);
+                val bits = new long[size << 1];
+                val index = new int[1];
+                readDelta(buffer, size, (mostSignificantBits, leastSignificantBits) -> {
+                    bits[index[0]++] = mostSignificantBits;
+                    bits[index[0]++] = leastSignificantBits;
+                });
+
+                // unique IDs are encoded in sorted order
+                return UniqueIdSet.ofSortedBits(bits);
+            }
+            case BITSET_FORMAT: return UniqueIdSet.ofSortedBits(bitsOf(readBitset(buffer, size, universe)));
+            default: throw new IllegalArgumentException("Unknown player set format: " + format);
+        }
+    }
+
+    /**
+     * Decodes the player set resolving its players via the given resolver.
+     *
+     * @param buffer buffer from which the player set should be read
+     * @param resolver function resolving the player by its unique ID or returning {@code null} if it is unavailable
+     * @return decoded player set consisting only of resolved players
+     *
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws NullPointerException if {@code resolver} is {@code null}
+     * @throws IllegalArgumentException if the encoded data is malformed or is not in the delta format
+     * @throws BufferUnderflowException if the buffer ends unexpectedly
+     */
+    public @NotNull PlayerSet decode(final @NonNull ByteBuffer buffer,
+                                     final @NonNull Function<@NotNull UUID, @Nullable Player> resolver) {
+        return decode(buffer, null, resolver);
+    }
+
+    /**
+     * Decodes the player set resolving its players via the given resolver.
+     *
+     * @param buffer buffer from which the player set should be read
+     * @param universe player set known to both the encoding and the decoding sides,
+     * may be {@code null} if the player set is known to be encoded in the delta format
+     * @param resolver function resolving the player by its unique ID or returning {@code null} if it is unavailable
+     * @return decoded player set consisting only of resolved players
+     *
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws NullPointerException if {@code resolver} is {@code null}
+     * @throws IllegalArgumentException if the encoded data is malformed or does not match the universe
+     * @throws BufferUnderflowException if the buffer ends unexpectedly
+     */
+    public @NotNull PlayerSet decode(final @NonNull ByteBuffer buffer, final @Nullable PlayerSet universe,
+                                     final @NonNull Function<@NotNull UUID, @Nullable Player> resolver) {
+        val format = buffer.get();
+        val size = readSize(buffer);
+        switch (format) {
+            case DELTA_FORMAT: {
+                checkDeltaSize(size, buffer);
+                val players = new Player[size];
+                val resolvedCount = new int[1];
+                readDelta(buffer, size, (mostSignificantBits, leastSignificantBits) -> {
+                    val player = resolver.apply(new UUID(mostSignificantBits, leastSignificantBits));
+                    if (player != null) players[resolvedCount[0]++] = player;
+                });
+
+                // players are resolved in the order of their unique IDs
+                return PlayerSet.ofSorted(
+                        resolvedCount[0] == size ? players : Arrays.copyOf(players, resolvedCount[0])
+                );
+            }
+            case BITSET_FORMAT: return PlayerSet.ofSorted(readBitset(buffer, size, universe));
+            default: throw new IllegalArgumentException("Unknown player set format: " + format);
+        }
+    }
+
+    /**
+     * Decodes the player set update resolving its players via the given resolver.
+     *
+     * @param buffer buffer from which the update should be read
+     * @param resolver function resolving the player by its unique ID or returning {@code null} if it is unavailable
+     * @return decoded player set update consisting only of resolved players
+     *
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws NullPointerException if {@code resolver} is {@code null}
+     * @throws IllegalArgumentException if the encoded data is malformed or is not in the delta format
+     * @throws BufferUnderflowException if the buffer ends unexpectedly
+     */
+    public @NotNull Update decodeUpdate(final @NonNull ByteBuffer buffer,
+                                        final @NonNull Function<@NotNull UUID, @Nullable Player> resolver) {
+        return decodeUpdate(buffer, null, resolver);
+    }
+
+    /**
+     * Decodes the player set update resolving its players via the given resolver.
+     *
+     * @param buffer buffer from which the update should be read
+     * @param universe player set known to both the encoding and the decoding sides,
+     * may be {@code null} if the update is known to be encoded in the delta format
+     * @param resolver function resolving the player by its unique ID or returning {@code null} if it is unavailable
+     * @return decoded player set update consisting only of resolved players
+     *
+     * @throws NullPointerException if {@code buffer} is {@code null}
+     * @throws NullPointerException if {@code resolver} is {@code null}
+     * @throws IllegalArgumentException if the encoded data is malformed or does not match the universe
+     * @throws BufferUnderflowException if the buffer ends unexpectedly
+     */
+    public @NotNull Update decodeUpdate(final @NonNull ByteBuffer buffer, final @Nullable PlayerSet universe,
+                                        final @NonNull Function<@NotNull UUID, @Nullable Player> resolver) {
+        val actionOrdinal = buffer.get();
+        val actions = Update.Action.values();
+        if (actionOrdinal < 0 || actionOrdinal >= actions.length) throw new IllegalArgumentException(
+                "Unknown player set update action: " + actionOrdinal
+        );
+
+        return Update.create(actions[actionOrdinal], decode(buffer, universe, resolver));
+    }
+
+    //<editor-fold desc="Format implementation" defaultstate="collapsed">
+    private @NotNull Player @NotNull [] sortedPlayers(final @NotNull PlayerSet players) {
+        val array = players.toArray();
+
+        final int length;
+        if ((length = array.length) > 1) for (var index = 1; index < length; index++) if (
+                PlayerSet.PLAYER_COMPARATOR.compare(array[index - 1], array[index]) > 0
+        ) {
+            // player sets are distinct so the length does not change
+            PlayerSetBuilder.sortDistinct(array, length);
+            break;
+        }
+
+        return array;
+    }
+
+    private long @NotNull [] bitsOf(final @NotNull Player @NotNull [] players) {
+        final int length;
+        val bits = new long[(length = players.length) << 1];
+        for (var index = 0; index < length; index++) {
+            val uniqueId = players[index].getUniqueId();
+            bits[index << 1] = uniqueId.getMostSignificantBits();
+            bits[(index << 1) + 1] = uniqueId.getLeastSignificantBits();
+        }
+
+        return bits;
+    }
+
+    private int deltaSize(final long @NotNull [] sortedBits) {
+        val length = sortedBits.length;
+        var size = 1 + varLongSize(length >>> 1);
+
+        long previousMostSignificantBits = Long.MIN_VALUE, previousLeastSignificantBits = Long.MIN_VALUE;
+        for (var index = 0; index < length; index += 2) {
+            final long mostSignificantBits = sortedBits[index], leastSignificantBits = sortedBits[index + 1];
+
+            final long mostSignificantBitsDelta;
+            size += varLongSize(mostSignificantBitsDelta = mostSignificantBits - previousMostSignificantBits);
+            size += mostSignificantBitsDelta == 0
+                    ? varLongSize(leastSignificantBits - previousLeastSignificantBits) : Long.BYTES;
+
+            previousMostSignificantBits = mostSignificantBits;
+            previousLeastSignificantBits = leastSignificantBits;
+        }
+
+        return size;
+    }
+
+    private int bitsetSize(final int size, final int universeSize) {
+        return 1 + varLongSize(size) + varLongSize(universeSize) + (universeSize + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    private void writeDelta(final long @NotNull [] sortedBits, final @NotNull ByteBuffer buffer) {
+        val length = sortedBits.length;
+        buffer.put(DELTA_FORMAT);
+        writeVarLong(length >>> 1, buffer);
+
+        long previousMostSignificantBits = Long.MIN_VALUE, previousLeastSignificantBits = Long.MIN_VALUE;
+        for (var index = 0; index < length; index += 2) {
+            final long mostSignificantBits = sortedBits[index], leastSignificantBits = sortedBits[index + 1];
+
+            final long mostSignificantBitsDelta;
+            writeVarLong(mostSignificantBitsDelta = mostSignificantBits - previousMostSignificantBits, buffer);
+            if (mostSignificantBitsDelta == 0) writeVarLong(
+                    leastSignificantBits - previousLeastSignificantBits, buffer
+            );
+            else buffer.putLong(leastSignificantBits);
+
+            previousMostSignificantBits = mostSignificantBits;
+            previousLeastSignificantBits = leastSignificantBits;
+        }
+    }
+
+    private void readDelta(final @NotNull ByteBuffer buffer, final int size,
+                           final @NotNull UniqueIdConsumer consumer) {
+        long mostSignificantBits = Long.MIN_VALUE, leastSignificantBits = Long.MIN_VALUE;
+        for (var index = 0; index < size; index++) {
+            final long nextMostSignificantBits = mostSignificantBits + readVarLong(buffer), nextLeastSignificantBits;
+            if (nextMostSignificantBits == mostSignificantBits) {
+                nextLeastSignificantBits = leastSignificantBits + readVarLong(buffer);
+                // the first entry may be equal to the initial value
+                if (index != 0 && nextLeastSignificantBits <= leastSignificantBits) throw new IllegalArgumentException(
+                        "Malformed player set delta: unique IDs are not strictly increasing"
+                );
+            } else {
+                if (nextMostSignificantBits < mostSignificantBits) throw new IllegalArgumentException(
+                        "Malformed player set delta: unique IDs are not strictly increasing"
+                );
+                nextLeastSignificantBits = buffer.getLong();
+            }
+
+            consumer.accept(mostSignificantBits = nextMostSignificantBits,
+                    leastSignificantBits = nextLeastSignificantBits);
+        }
+    }
+
+    private void writeBitset(final int size, final long @NotNull [] bits, final int universeSize,
+                             final @NotNull ByteBuffer buffer) {
+        buffer.put(BITSET_FORMAT);
+        writeVarLong(size, buffer);
+        writeVarLong(universeSize, buffer);
+
+        val byteCount = (universeSize + Byte.SIZE - 1) / Byte.SIZE;
+        for (var index = 0; index < byteCount; index++) buffer.put(
+                (byte) (bits[index / Long.BYTES] >>> (index % Long.BYTES * Byte.SIZE))
+        );
+    }
+
+    private @NotNull Player @NotNull [] readBitset(final @NotNull ByteBuffer buffer, final int size,
+                                                   final @Nullable PlayerSet universe) {
+        if (universe == null) throw new IllegalArgumentException(
+                "Player set is encoded in the bitset format but no universe was provided"
+        );
+
+        val universeSize = readSize(buffer);
+        val sortedUniverse = sortedPlayers(universe);
+        if (sortedUniverse.length != universeSize) throw new IllegalArgumentException(
+                "Player set was encoded with the universe of size " + universeSize
+                        + " but the given universe is of size " + sortedUniverse.length
+        );
+        if (size > universeSize) throw new IllegalArgumentException(
+                "Malformed size: " + size + " exceeds the size of the universe " + universeSize
+        );
+
+        val players = new Player[size];
+        var playerIndex = 0;
+        val byteCount = (universeSize + Byte.SIZE - 1) / Byte.SIZE;
+        for (var byteIndex = 0; byteIndex < byteCount; byteIndex++) {
+            var bits = buffer.get() & 0xFF;
+            while (bits != 0) {
+                val universeIndex = byteIndex * Byte.SIZE + Integer.numberOfTrailingZeros(bits);
+                if (universeIndex >= universeSize || playerIndex == size) throw new IllegalArgumentException(
+                        "Malformed player set bitset"
+                );
+                players[playerIndex++] = sortedUniverse[universeIndex];
+                bits &= bits - 1;
+            }
+        }
+        if (playerIndex != size) throw new IllegalArgumentException("Malformed player set bitset");
+
+        return players;
+    }
+
+    private void checkDeltaSize(final int size, final @NotNull ByteBuffer buffer) {
+        // each entry takes at least one byte for each of its two components
+        if (size > buffer.remaining() / 2) throw new IllegalArgumentException(
+                "Malformed size: " + size + " entries cannot fit into " + buffer.remaining() + " remaining bytes"
+        );
+    }
+
+    private int readSize(final @NotNull ByteBuffer buffer) {
+        val size = readVarLong(buffer);
+        if (size < 0 || size > Integer.MAX_VALUE) throw new IllegalArgumentException("Malformed size: " + size);
+
+        return (int) size;
+    }
+
+    private int varLongSize(long value) {
+        var size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+
+        return size;
+    }
+
+    private void writeVarLong(long value, final @NotNull ByteBuffer buffer) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private long readVarLong(final @NotNull ByteBuffer buffer) {
+        long value = 0;
+        for (var shift = 0; shift < Long.SIZE; shift += 7) {
+            final byte next;
+            value |= ((next = buffer.get()) & 0x7FL) << shift;
+            if (next >= 0) return value;
+        }
+
+        throw new IllegalArgumentException("Malformed VarLong");
+    }
+    //</editor-fold>
+}
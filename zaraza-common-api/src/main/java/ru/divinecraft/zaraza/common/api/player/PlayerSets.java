@@ -14,6 +14,9 @@
 
 package ru.divinecraft.zaraza.common.api.player;
 
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.injector.netty.WirePacket;
 import com.google.common.collect.UnmodifiableIterator;
 import lombok.*;
 import lombok.experimental.Delegate;
@@ -28,10 +31,12 @@ import org.jetbrains.annotations.UnmodifiableView;
 import ru.divinecraft.zaraza.common.api.flow.FlowProcessors;
 import ru.divinecraft.zaraza.common.api.player.MutablePlayerSet.Update;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 import static ru.divinecraft.zaraza.common.api.player.MutablePlayerSet.Update.Action.ADD;
 import static ru.divinecraft.zaraza.common.api.player.MutablePlayerSet.Update.Action.REMOVE;
@@ -47,6 +52,11 @@ public class PlayerSets {
      */
     private static final @NotNull Player @NotNull [] EMPTY_PLAYER_ARRAY = new Player[0];
 
+    /**
+     * Size starting from which {@link #withBloomFilter(PlayerSet)} attaches a Bloom filter to the player set.
+     */
+    private static final int DEFAULT_BLOOM_FILTER_THRESHOLD = 512;
+
     /**
      * Wraps the given {@link Set} of {@link Player players} into a {@link PlayerSet player set}.
      *
@@ -65,7 +75,145 @@ public class PlayerSets {
      * @return newly created player set
      */
     public @NotNull MutablePlayerSet newMutablePlayerSet() {
-        return DelegatingMutablePlayerSet.wrap(new HashSet<>());
+        return DelegatingMutablePlayerSet.wrap(new HashSet<>(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new {@link MutablePlayerSet mutable player set}
+     * which attaches a Bloom filter to itself once its size reaches the given threshold.
+     * <p>
+     * The filter is kept in sync with all mutations of the set and is used to reject
+     * {@link MutablePlayerSet#contains(Player) lookups} of absent players without accessing the set itself.
+     *
+     * @param bloomFilterThreshold size starting from which the Bloom filter is used
+     * @return newly created player set
+     *
+     * @throws IllegalArgumentException if {@code bloomFilterThreshold} is negative
+     */
+    public @NotNull MutablePlayerSet newMutablePlayerSet(final int bloomFilterThreshold) {
+        if (bloomFilterThreshold < 0) throw new IllegalArgumentException("bloomFilterThreshold should be non-negative");
+
+        return DelegatingMutablePlayerSet.wrap(new HashSet<>(), bloomFilterThreshold);
+    }
+
+    /**
+     * Creates a new {@link MutablePlayerSet mutable player set} publishing its updates via the given processor.
+     * <p>
+     * This allows long-lived sets to use i.e. a {@link FlowProcessors#createWeakProcessor() weak processor}
+     * so that the forgotten subscribers do not accumulate.
+     *
+     * @param processor processor via which the updates get published, should not be used by anything else
+     * @return newly created player set
+     *
+     * @throws NullPointerException if {@code processor} is {@code null}
+     */
+    public @NotNull MutablePlayerSet newMutablePlayerSet(
+            final @NonNull Flow.Processor<@NotNull Update, @NotNull Update> processor
+    ) {
+        return DelegatingMutablePlayerSet.wrap(new HashSet<>(), processor, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Attaches a Bloom filter to the given player set if it is big enough.
+     * <p>
+     * The filter is used to reject {@link PlayerSet#contains(Player) lookups} of absent players
+     * without accessing the set itself which is useful for big sets most lookups against which miss.
+     *
+     * @param players player set to which the Bloom filter should be attached
+     * @return player set with the attached Bloom filter or {@code players} if it is too small
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     *
+     * @apiNote the behaviour of the created set's methods is undefined if the original set gets mutated
+     */
+    public @NotNull PlayerSet withBloomFilter(final @NonNull PlayerSet players) {
+        return withBloomFilter(players, DEFAULT_BLOOM_FILTER_THRESHOLD);
+    }
+
+    /**
+     * Attaches a Bloom filter to the given player set if its size is not less than the given threshold.
+     * <p>
+     * The filter is used to reject {@link PlayerSet#contains(Player) lookups} of absent players
+     * without accessing the set itself which is useful for big sets most lookups against which miss.
+     *
+     * @param players player set to which the Bloom filter should be attached
+     * @param threshold size starting from which the Bloom filter is attached
+     * @return player set with the attached Bloom filter or {@code players} if it is too small
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     *
+     * @apiNote the behaviour of the created set's methods is undefined if the original set gets mutated
+     */
+    public @NotNull PlayerSet withBloomFilter(final @NonNull PlayerSet players, final int threshold) {
+        if (players instanceof BloomFilteredPlayerSet || players.size() < threshold) return players;
+
+        return new BloomFilteredPlayerSet(players, UniqueIdBloomFilter.of(players));
+    }
+
+    /**
+     * Creates a {@link Collector} accumulating {@link Player players} into a {@link PlayerSet player set}.
+     *
+     * @return collector accumulating players into a player set
+     *
+     * @apiNote duplicate players are allowed and get removed
+     */
+    public @NotNull Collector<@NotNull Player, ?, @NotNull PlayerSet> toPlayerSet() {
+        return Collector.of(
+                PlayerSetBuilder::new, PlayerSetBuilder::add, PlayerSetBuilder::addAll, PlayerSetBuilder::build,
+                Collector.Characteristics.UNORDERED
+        );
+    }
+
+    /**
+     * Sends the packet to all of the given players serializing it only once.
+     * The packet is always sent as a {@link WirePacket wire packet}
+     * thus the packet listeners of ProtocolLib do not get notified about it.
+     *
+     * @param players players to whom the packet should be sent
+     * @param packet packet to be sent
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     * @throws NullPointerException if {@code packet} is {@code null}
+     * @throws IllegalStateException if the packet could not be sent to some of the players,
+     * this happens once it was attempted to be sent to all of them
+     *
+     * @see #broadcast(PlayerSet, WirePacket) sending the packet which is already serialized
+     */
+    public void broadcast(final @NonNull PlayerSet players, final @NonNull PacketContainer packet) {
+        if (!players.isEmpty()) broadcast(players, WirePacket.fromPacket(packet));
+    }
+
+    /**
+     * Sends the serialized packet to all of the given players.
+     *
+     * @param players players to whom the packet should be sent
+     * @param packet serialized packet to be sent
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     * @throws NullPointerException if {@code packet} is {@code null}
+     * @throws IllegalStateException if the packet could not be sent to some of the players,
+     * this happens once it was attempted to be sent to all of them
+     * and the failure of each of them is {@link Throwable#getSuppressed() suppressed} by the thrown exception
+     */
+    public void broadcast(final @NonNull PlayerSet players, final @NonNull WirePacket packet) {
+        if (players.isEmpty()) return;
+
+        val protocolManager = ProtocolLibrary.getProtocolManager();
+        IllegalStateException failure = null;
+        val iterator = players.unmodifiableIterator();
+        while (iterator.hasNext()) {
+            val player = iterator.next();
+            try {
+                protocolManager.sendWirePacket(player, packet);
+            } catch (final InvocationTargetException e) {
+                if (failure == null) failure = new IllegalStateException(
+                        "Could not send packet to some of the players"
+                );
+                failure.addSuppressed(new IllegalStateException("Could not send packet to " + player, e));
+            }
+        }
+
+        if (failure != null) throw failure;
     }
 
     @AllArgsConstructor(access = AccessLevel.PRIVATE)
@@ -106,7 +254,68 @@ public class PlayerSets {
         }
     }
 
+    /**
+     * {@link PlayerSet Player set} rejecting lookups of absent players via a Bloom filter.
+     */
     @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class BloomFilteredPlayerSet implements PlayerSet {
+
+        /**
+         * {@link PlayerSet Player set} to which all operations are delegated
+         */
+        @Delegate(types = PlayerSetMethods.class)
+        @NotNull PlayerSet players;
+
+        /**
+         * Bloom filter of all players of the set
+         */
+        @NotNull UniqueIdBloomFilter bloomFilter;
+
+        @Override
+        public boolean contains(final @NotNull Player player) {
+            return bloomFilter.mightContain(player) && players.contains(player);
+        }
+
+        @Override
+        public @NotNull Player @NotNull [] toArray() {
+            return players.toArray();
+        }
+
+        @Override
+        public boolean containsAll(final @NonNull Collection<@NotNull Player> players) {
+            for (val player : players) if (!contains(player)) return false;
+
+            return true;
+        }
+
+        @Override
+        public @NotNull @UnmodifiableView Set<@NotNull Player> asUnmodifiableSet() {
+            return players.asUnmodifiableSet();
+        }
+
+        @Override
+        public @NotNull Enumeration<@NotNull Player> enumeration() {
+            return players.enumeration();
+        }
+
+        @Override
+        public @NotNull UnmodifiableIterator<@NotNull Player> unmodifiableIterator() {
+            return players.unmodifiableIterator();
+        }
+
+        @Override
+        public boolean equals(final @Nullable Object other) {
+            return other == this || other instanceof PlayerSet && PlayerSet.contentsEqual(this, (PlayerSet) other);
+        }
+
+        @Override
+        public int hashCode() {
+            return PlayerSet.hashCodeOf(this);
+        }
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true) // TODO efficient bulk operations (publish Sets)
     private static final class PublishingPlayerSetWrapper extends AbstractSet<@NotNull Player> {
 
@@ -121,11 +330,51 @@ public class PlayerSets {
          */
         @NotNull Flow.Subscriber<@NotNull Update> subscriber;
 
+        /**
+         * Size starting from which the Bloom filter is used
+         */
+        int bloomFilterThreshold;
+
+        /**
+         * Bloom filter of all players of the set or {@code null} if the set is smaller than the threshold
+         */
+        @NonFinal @Nullable UniqueIdBloomFilter bloomFilter;
+
+        /**
+         * Number of players removed since the Bloom filter was built
+         */
+        @NonFinal int bloomFilterRemovals;
+
+        /**
+         * Publishes the given update keeping the Bloom filter in sync with the set.
+         *
+         * @param update published update
+         */
+        private void publish(final @NotNull Update update) {
+            final int size;
+            if ((size = set.size()) >= bloomFilterThreshold || bloomFilter != null) {
+                final UniqueIdBloomFilter thisBloomFilter;
+                if ((thisBloomFilter = bloomFilter) == null) bloomFilter = UniqueIdBloomFilter.of(set);
+                else if (update.action() == ADD) {
+                    if (size > thisBloomFilter.capacity()) bloomFilter = UniqueIdBloomFilter.of(set);
+                    else update.players().forEach(thisBloomFilter::add);
+                } else if ((bloomFilterRemovals += update.players().size()) > size) {
+                    // removed players remain in the filter so it gets rebuilt once they are the majority
+                    bloomFilter = size >= bloomFilterThreshold ? UniqueIdBloomFilter.of(set) : null;
+                    bloomFilterRemovals = 0;
+                }
+            }
+
+            subscriber.onNext(update);
+        }
+
         // Non-generic non-mutating operations
 
         @Override
         public boolean contains(final Object entry) {
-            return set.contains(entry);
+            final UniqueIdBloomFilter thisBloomFilter;
+            return ((thisBloomFilter = bloomFilter) == null
+                    || entry instanceof Player && thisBloomFilter.mightContain((Player) entry)) && set.contains(entry);
         }
 
         @Override
@@ -148,13 +397,13 @@ public class PlayerSets {
 
         @Override
         public @NotNull Iterator<@NotNull Player> iterator() {
-            return new PublishingPlayerIterator(set.iterator(), subscriber);
+            return new PublishingPlayerIterator(set.iterator(), this::publish);
         }
 
         @Override
         public boolean add(final @NotNull Player player) {
             final boolean updated;
-            if (updated = set.add(player)) subscriber.onNext(Update.create(ADD, PlayerSet.of(player)));
+            if (updated = set.add(player)) publish(Update.create(ADD, PlayerSet.of(player)));
 
             return updated;
         }
@@ -165,7 +414,7 @@ public class PlayerSets {
             if (updated = set.remove(entry)) {
                 assert entry instanceof Player
                         : "entry should be of type Player as it was remove from set of Players";
-                subscriber.onNext(Update.create(REMOVE, PlayerSet.of((Player) entry)));
+                publish(Update.create(REMOVE, PlayerSet.of((Player) entry)));
             }
 
             return updated;
@@ -175,36 +424,36 @@ public class PlayerSets {
 
         @Override
         public boolean addAll(final @NonNull Collection<? extends @NotNull Player> added) {
-            SortedSet<Player> addedPlayers = null;
+            PlayerSetBuilder addedPlayers = null;
             for (val entry : added) if (set.add(entry)) {
-                if (addedPlayers == null) addedPlayers = new TreeSet<>(PlayerSet.PLAYER_COMPARATOR);
+                if (addedPlayers == null) addedPlayers = PlayerSet.builder();
                 addedPlayers.add(entry);
             }
 
             if (addedPlayers == null) return false;
 
-            subscriber.onNext(Update.create(ADD, PlayerSet.ofSorted(addedPlayers)));
+            publish(Update.create(ADD, addedPlayers.build()));
 
             return true;
         }
 
         @Override
         public boolean removeIf(final @NonNull Predicate<? super @NotNull Player> filter) {
-            SortedSet<Player> removedPlayers = null;
+            PlayerSetBuilder removedPlayers = null;
 
             for (final var iterator = set.iterator(); iterator.hasNext(); ) {
                 final Player player;
                 if (filter.test(player = iterator.next())) {
                     iterator.remove();
 
-                    if (removedPlayers == null) removedPlayers = new TreeSet<>(PlayerSet.PLAYER_COMPARATOR);
+                    if (removedPlayers == null) removedPlayers = PlayerSet.builder();
                     removedPlayers.add(player);
                 }
             }
 
             if (removedPlayers == null) return false;
 
-            subscriber.onNext(Update.create(REMOVE, PlayerSet.ofSorted(removedPlayers)));
+            publish(Update.create(REMOVE, removedPlayers.build()));
 
             return true;
         }
@@ -212,7 +461,7 @@ public class PlayerSets {
         @Override
         @SuppressWarnings("SuspiciousMethodCalls") // the way this method works
         public boolean removeAll(final @NonNull Collection<?> removed) {
-            SortedSet<Player> removedPlayers = null;
+            PlayerSetBuilder removedPlayers = null;
 
             // use smaller collection for iteration
             if (size() <= removed.size()) for (final var iterator = set.iterator(); iterator.hasNext(); ) {
@@ -220,40 +469,40 @@ public class PlayerSets {
                 if (removed.contains(player = iterator.next())) {
                     iterator.remove();
 
-                    if (removedPlayers == null) removedPlayers = new TreeSet<>(PlayerSet.PLAYER_COMPARATOR);
+                    if (removedPlayers == null) removedPlayers = PlayerSet.builder();
                     removedPlayers.add(player);
                 }
             } else for (val entry : removed) if (set.remove(entry)) {
                 assert entry instanceof Player
                         : "entry should be of type Player as it was removed from the set containing Players";
 
-                if (removedPlayers == null) removedPlayers = new TreeSet<>(PlayerSet.PLAYER_COMPARATOR);
+                if (removedPlayers == null) removedPlayers = PlayerSet.builder();
                 removedPlayers.add((Player) entry);
             }
 
             if (removedPlayers == null) return false;
 
-            subscriber.onNext(Update.create(REMOVE, PlayerSet.ofSorted(removedPlayers)));
+            publish(Update.create(REMOVE, removedPlayers.build()));
 
             return true;
         }
 
         @Override
         public boolean retainAll(final @NonNull Collection<?> kept) {
-            SortedSet<Player> removedPlayers = null;
+            PlayerSetBuilder removedPlayers = null;
             for (final var iterator = set.iterator(); iterator.hasNext(); ) {
                 final Player player;
                 if (!kept.contains(player = iterator.next())) {
                     iterator.remove();
 
-                    if (removedPlayers == null) removedPlayers = new TreeSet<>(PlayerSet.PLAYER_COMPARATOR);
+                    if (removedPlayers == null) removedPlayers = PlayerSet.builder();
                     removedPlayers.add(player);
                 }
             }
 
             if (removedPlayers == null) return false;
 
-            subscriber.onNext(Update.create(REMOVE, PlayerSet.ofSorted(removedPlayers)));
+            publish(Update.create(REMOVE, removedPlayers.build()));
 
             return true;
         }
@@ -282,12 +531,29 @@ public class PlayerSets {
          * Creates a new {@link PlayerSet player set} wrapping the given {@link Set} of {@link Player players}.
          *
          * @param set wrapped set of players
+         * @param bloomFilterThreshold size starting from which the Bloom filter is used
          * @return created {@link PlayerSet player set}
          */
-        public static @NotNull MutablePlayerSet wrap(final @NotNull Set<@NotNull Player> set) {
-            final Flow.Processor<@NotNull Update, @NotNull Update> processor;
+        public static @NotNull MutablePlayerSet wrap(final @NotNull Set<@NotNull Player> set,
+                                                     final int bloomFilterThreshold) {
+            return wrap(set, FlowProcessors.createConcurrentProcessor(), bloomFilterThreshold);
+        }
+
+        /**
+         * Creates a new {@link PlayerSet player set} wrapping the given {@link Set} of {@link Player players}.
+         *
+         * @param set wrapped set of players
+         * @param processor processor via which the updates get published
+         * @param bloomFilterThreshold size starting from which the Bloom filter is used
+         * @return created {@link PlayerSet player set}
+         */
+        public static @NotNull MutablePlayerSet wrap(
+                final @NotNull Set<@NotNull Player> set,
+                final @NotNull Flow.Processor<@NotNull Update, @NotNull Update> processor,
+                final int bloomFilterThreshold
+        ) {
             return new DelegatingMutablePlayerSet(
-                    new PublishingPlayerSetWrapper(set, processor = FlowProcessors.createProcessor()), processor
+                    new PublishingPlayerSetWrapper(set, processor, bloomFilterThreshold), processor
             );
         }
 
@@ -380,7 +646,7 @@ public class PlayerSets {
     }
 
     /**
-     * {@link Iterator Iterator} over {@link Player players} publishing updates done via it to the specified subscriber.
+     * {@link Iterator Iterator} over {@link Player players} publishing updates done via it to the specified publisher.
      */
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
@@ -392,9 +658,9 @@ public class PlayerSets {
         @NotNull Iterator<@NotNull Player> set;
 
         /**
-         * Subscriber being notified on modifications.
+         * Publisher of the updates done via this iterator.
          */
-        @NotNull Flow.Subscriber<@NotNull Update> subscriber;
+        @NotNull Consumer<@NotNull Update> publisher;
 
         @NonFinal @Nullable Player last;
 
@@ -415,7 +681,7 @@ public class PlayerSets {
             val thisLast = last;
             assert thisLast != null : "last cannot be null as something was removed from iterator of non-null Players";
 
-            subscriber.onNext(Update.create(REMOVE, PlayerSet.of(thisLast)));
+            publisher.accept(Update.create(REMOVE, PlayerSet.of(thisLast)));
         }
 
         @Override
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Utilities for arrays of {@link java.util.UUID unique IDs} stored as pairs of their most and least significant bits.
+ * <p>
+ * Pair at index {@code i} occupies elements {@code 2 * i} and {@code 2 * i + 1} of the array
+ * and pairs are compared in the same way as by {@link PlayerSet#PLAYER_COMPARATOR}.
+ */
+@UtilityClass
+class UniqueIdArrays {
+
+    /**
+     * Empty array of unique ID bits.
+     */
+    static final long @NotNull [] EMPTY = new long[0];
+
+    /**
+     * Size of a sorted range below which insertion sort is used.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * Compares the two unique IDs.
+     *
+     * @param leftMostSignificantBits most significant bits of the first unique ID
+     * @param leftLeastSignificantBits least significant bits of the first unique ID
+     * @param rightMostSignificantBits most significant bits of the second unique ID
+     * @param rightLeastSignificantBits least significant bits of the second unique ID
+     * @return negative number, zero or positive number if the first unique ID is less than,
+     * equal to or greater than the second one respectively
+     */
+    int compare(final long leftMostSignificantBits, final long leftLeastSignificantBits,
+                final long rightMostSignificantBits, final long rightLeastSignificantBits) {
+        final int comparison;
+        return (comparison = Long.compare(leftMostSignificantBits, rightMostSignificantBits)) == 0
+                ? Long.compare(leftLeastSignificantBits, rightLeastSignificantBits) : comparison;
+    }
+
+    /**
+     * Mixes the bits of the unique ID into a well-distributed hash.
+     *
+     * @param mostSignificantBits most significant bits of the unique ID
+     * @param leastSignificantBits least significant bits of the unique ID
+     * @return hash of the unique ID
+     */
+    long hash(final long mostSignificantBits, final long leastSignificantBits) {
+        // MurmurHash3 finalizer
+        var hash = mostSignificantBits ^ Long.rotateLeft(leastSignificantBits, 32);
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Searches for the unique ID in the sorted array.
+     *
+     * @param bits sorted array of unique ID bits
+     * @param size number of pairs in the array
+     * @param mostSignificantBits most significant bits of the unique ID
+     * @param leastSignificantBits least significant bits of the unique ID
+     * @return index of the pair if it is found or {@code -(insertion point) - 1} otherwise
+     */
+    int binarySearch(final long @NotNull [] bits, final int size,
+                     final long mostSignificantBits, final long leastSignificantBits) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            final int middle;
+            final int comparison = compare(
+                    bits[(middle = (low + high) >>> 1) << 1], bits[(middle << 1) + 1],
+                    mostSignificantBits, leastSignificantBits
+            );
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return middle;
+        }
+
+        return -(low + 1);
+    }
+
+    /**
+     * Sorts the pairs of the array.
+     *
+     * @param bits array of unique ID bits
+     * @param size number of pairs in the array
+     */
+    void sort(final long @NotNull [] bits, final int size) {
+        sort(bits, 0, size - 1);
+    }
+
+    /**
+     * Removes duplicates from the sorted array moving unique pairs to its beginning.
+     *
+     * @param bits sorted array of unique ID bits
+     * @param size number of pairs in the array
+     * @return number of unique pairs
+     */
+    int deduplicateSorted(final long @NotNull [] bits, final int size) {
+        if (size < 2) return size;
+
+        var uniqueSize = 1;
+        for (var index = 1; index < size; index++) {
+            final long mostSignificantBits = bits[index << 1], leastSignificantBits = bits[(index << 1) + 1];
+            if (mostSignificantBits != bits[(uniqueSize - 1) << 1]
+                    || leastSignificantBits != bits[((uniqueSize - 1) << 1) + 1]) {
+                bits[uniqueSize << 1] = mostSignificantBits;
+                bits[(uniqueSize << 1) + 1] = leastSignificantBits;
+                uniqueSize++;
+            }
+        }
+
+        return uniqueSize;
+    }
+
+    private void sort(final long @NotNull [] bits, int low, int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            // median of three as pivot
+            val middle = (low + high) >>> 1;
+            if (comparePairs(bits, middle, low) < 0) swap(bits, middle, low);
+            if (comparePairs(bits, high, low) < 0) swap(bits, high, low);
+            if (comparePairs(bits, high, middle) < 0) swap(bits, high, middle);
+            final long pivotMostSignificantBits = bits[middle << 1],
+                    pivotLeastSignificantBits = bits[(middle << 1) + 1];
+
+            int left = low, right = high;
+            while (left <= right) {
+                while (compare(
+                        bits[left << 1], bits[(left << 1) + 1], pivotMostSignificantBits, pivotLeastSignificantBits
+                ) < 0) left++;
+                while (compare(
+                        bits[right << 1], bits[(right << 1) + 1], pivotMostSignificantBits, pivotLeastSignificantBits
+                ) > 0) right--;
+                if (left <= right) swap(bits, left++, right--);
+            }
+
+            // recurse into the smaller part to keep the stack shallow
+            if (right - low < high - left) {
+                sort(bits, low, right);
+                low = left;
+            } else {
+                sort(bits, left, high);
+                high = right;
+            }
+        }
+
+        for (var index = low + 1; index <= high; index++) {
+            final long mostSignificantBits = bits[index << 1], leastSignificantBits = bits[(index << 1) + 1];
+            var target = index - 1;
+            while (target >= low && compare(
+                    bits[target << 1], bits[(target << 1) + 1], mostSignificantBits, leastSignificantBits
+            ) > 0) {
+                bits[(target + 1) << 1] = bits[target << 1];
+                bits[((target + 1) << 1) + 1] = bits[(target << 1) + 1];
+                target--;
+            }
+            bits[(target + 1) << 1] = mostSignificantBits;
+            bits[((target + 1) << 1) + 1] = leastSignificantBits;
+        }
+    }
+
+    private int comparePairs(final long @NotNull [] bits, final int left, final int right) {
+        return compare(bits[left << 1], bits[(left << 1) + 1], bits[right << 1], bits[(right << 1) + 1]);
+    }
+
+    private void swap(final long @NotNull [] bits, final int left, final int right) {
+        final int leftIndex = left << 1, rightIndex = right << 1;
+
+        var temporary = bits[leftIndex];
+        bits[leftIndex] = bits[rightIndex];
+        bits[rightIndex] = temporary;
+
+        temporary = bits[leftIndex + 1];
+        bits[leftIndex + 1] = bits[rightIndex + 1];
+        bits[rightIndex + 1] = temporary;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Blocked Bloom filter of {@link UUID unique IDs} used to quickly reject lookups of absent players.
+ * <p>
+ * Each unique ID sets {@value #BITS_PER_ENTRY} bits within a single 512-bit block
+ * so that any lookup touches at most one cache line.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class UniqueIdBloomFilter {
+
+    /**
+     * Number of bits set for each entry.
+     */
+    private static final int BITS_PER_ENTRY = 7;
+
+    /**
+     * Number of filter bits allocated for each expected entry.
+     */
+    private static final int BITS_PER_EXPECTED_ENTRY = 10;
+
+    /**
+     * Binary logarithm of the number of {@code long} words in a block.
+     */
+    private static final int BLOCK_WORDS_SHIFT = 3;
+
+    /**
+     * Binary logarithm of the number of bits in a block.
+     */
+    private static final int BLOCK_BITS_SHIFT = BLOCK_WORDS_SHIFT + 6;
+
+    /**
+     * Words of the filter grouped into blocks
+     */
+    long @NotNull [] words;
+
+    /**
+     * Mask applied to the hash to get the block index
+     */
+    int blockMask;
+
+    /**
+     * Number of entries which this filter is sized for
+     */
+    int capacity;
+
+    private UniqueIdBloomFilter(final int capacity) {
+        val minimalBlockCount = Math.max(1, (int) Math.min(
+                ((long) capacity * BITS_PER_EXPECTED_ENTRY) >>> BLOCK_BITS_SHIFT, 1 << 24
+        ));
+        val blockCount = minimalBlockCount == 1 ? 1 : Integer.highestOneBit(minimalBlockCount - 1) << 1;
+
+        words = new long[blockCount << BLOCK_WORDS_SHIFT];
+        blockMask = blockCount - 1;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a filter containing all players of the given set.
+     *
+     * @param players players to be added to the filter
+     * @return created filter
+     */
+    static @NotNull UniqueIdBloomFilter of(final @NotNull PlayerSet players) {
+        // reserve space for the set to double before the filter gets rebuilt
+        val filter = new UniqueIdBloomFilter(Math.max(players.size(), 1) << 1);
+        players.forEach(filter::add);
+
+        return filter;
+    }
+
+    /**
+     * Creates a filter containing all players of the given collection.
+     *
+     * @param players players to be added to the filter
+     * @return created filter
+     */
+    static @NotNull UniqueIdBloomFilter of(final @NotNull Collection<? extends @NotNull Player> players) {
+        // reserve space for the collection to double before the filter gets rebuilt
+        val filter = new UniqueIdBloomFilter(Math.max(players.size(), 1) << 1);
+        for (val player : players) filter.add(player);
+
+        return filter;
+    }
+
+    /**
+     * Gets the number of entries which this filter is sized for.
+     *
+     * @return number of entries which this filter is sized for
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds the given player to this filter.
+     *
+     * @param player player added to this filter
+     */
+    void add(final @NotNull Player player) {
+        val uniqueId = player.getUniqueId();
+        add(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+    }
+
+    /**
+     * Adds the unique ID represented by the given bits to this filter.
+     *
+     * @param mostSignificantBits most significant bits of the unique ID
+     * @param leastSignificantBits least significant bits of the unique ID
+     */
+    void add(final long mostSignificantBits, final long leastSignificantBits) {
+        final long hash;
+        val block = blockOf(hash = UniqueIdArrays.hash(mostSignificantBits, leastSignificantBits));
+
+        final long[] thisWords = words;
+        for (var index = 0; index < BITS_PER_ENTRY; index++) {
+            val bit = (int) (hash >>> (index * BLOCK_BITS_SHIFT)) & ((1 << BLOCK_BITS_SHIFT) - 1);
+            thisWords[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks if the given player may be contained in this filter.
+     *
+     * @param player player to check
+     * @return {@code false} if the player is definitely not contained in this filter and {@code true} otherwise
+     */
+    boolean mightContain(final @NotNull Player player) {
+        val uniqueId = player.getUniqueId();
+        return mightContain(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+    }
+
+    /**
+     * Checks if the unique ID represented by the given bits may be contained in this filter.
+     *
+     * @param mostSignificantBits most significant bits of the unique ID
+     * @param leastSignificantBits least significant bits of the unique ID
+     * @return {@code false} if the unique ID is definitely not contained in this filter and {@code true} otherwise
+     */
+    boolean mightContain(final long mostSignificantBits, final long leastSignificantBits) {
+        final long hash;
+        val block = blockOf(hash = UniqueIdArrays.hash(mostSignificantBits, leastSignificantBits));
+
+        final long[] thisWords = words;
+        for (var index = 0; index < BITS_PER_ENTRY; index++) {
+            val bit = (int) (hash >>> (index * BLOCK_BITS_SHIFT)) & ((1 << BLOCK_BITS_SHIFT) - 1);
+            if ((thisWords[block + (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+
+        return true;
+    }
+
+    private int blockOf(final long hash) {
+        // the lowest bits are used for bit positions and the block is selected by a re-mixed hash
+        return ((int) ((hash * 0x9E3779B97F4A7C15L) >>> 32) & blockMask) << BLOCK_WORDS_SHIFT;
+    }
+}
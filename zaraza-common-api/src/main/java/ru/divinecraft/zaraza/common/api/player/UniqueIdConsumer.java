@@ -0,0 +1,32 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import java.util.UUID;
+
+/**
+ * Consumer of {@link UUID unique IDs} represented by their raw bits.
+ */
+@FunctionalInterface
+public interface UniqueIdConsumer {
+
+    /**
+     * Accepts the unique ID represented by the given bits.
+     *
+     * @param mostSignificantBits {@link UUID#getMostSignificantBits() most significant bits} of the unique ID
+     * @param leastSignificantBits {@link UUID#getLeastSignificantBits() least significant bits} of the unique ID
+     */
+    void accept(long mostSignificantBits, long leastSignificantBits);
+}
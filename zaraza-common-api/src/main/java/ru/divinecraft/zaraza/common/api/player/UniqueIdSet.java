@@ -0,0 +1,275 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Set of {@link UUID unique IDs} of players which are not required to be online.
+ * <p>
+ * Unlike {@link PlayerSet player sets} these sets store only the bits of the unique IDs
+ * resolving them to online {@link Player players} lazily.
+ */
+public interface UniqueIdSet {
+
+    /**
+     * Gets the size of this set.
+     *
+     * @return size of this set
+     */
+    int size();
+
+    /**
+     * Checks if this set is empty.
+     *
+     * @return {@code true} if this set is empty and {@code false} otherwise
+     */
+    boolean isEmpty();
+
+    /**
+     * Checks if this set contains the unique ID represented by the given bits.
+     *
+     * @param mostSignificantBits {@link UUID#getMostSignificantBits() most significant bits} of the unique ID
+     * @param leastSignificantBits {@link UUID#getLeastSignificantBits() least significant bits} of the unique ID
+     * @return {@code true} if this set contains the unique ID and {@code false} otherwise
+     */
+    boolean contains(long mostSignificantBits, long leastSignificantBits);
+
+    /**
+     * Checks if this set contains the given unique ID.
+     *
+     * @param uniqueId unique ID to check for containment in this set
+     * @return {@code true} if this set contains the unique ID and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code uniqueId} is {@code null}
+     */
+    default boolean contains(final @NonNull UUID uniqueId) {
+        return contains(uniqueId.getMostSignificantBits(), uniqueId.getLeastSignificantBits());
+    }
+
+    /**
+     * Checks if this set contains the unique ID of the given player.
+     *
+     * @param player player whose unique ID should be checked for containment in this set
+     * @return {@code true} if this set contains the player's unique ID and {@code false} otherwise
+     *
+     * @throws NullPointerException if {@code player} is {@code null}
+     */
+    default boolean contains(final @NonNull Player player) {
+        return contains(player.getUniqueId());
+    }
+
+    /**
+     * Applies the given action to each unique ID of this set.
+     *
+     * @param action action to be applied to each unique ID of this set
+     *
+     * @throws NullPointerException if {@code action} is {@code null}
+     *
+     * @apiNote the order in which the unique IDs are passed to the action is unspecified
+     */
+    void forEach(@NonNull UniqueIdConsumer action);
+
+    /**
+     * Creates an array of the bits of the unique IDs of this set
+     * {@link PlayerSet#PLAYER_COMPARATOR ordered} as pairs of most and least significant bits.
+     *
+     * @return sorted array of pairs of unique ID bits
+     */
+    long @NotNull [] toSortedBits();
+
+    /**
+     * Creates a player set consisting of the given players whose unique IDs are contained in this set.
+     *
+     * @param players players to intersect with this set
+     * @return player set consisting of the given players contained in this set
+     *
+     * @throws NullPointerException if {@code players} is {@code null}
+     */
+    default @NotNull PlayerSet intersection(final @NonNull PlayerSet players) {
+        val intersection = new Player[Math.min(size(), players.size())];
+        var intersectionSize = 0;
+        for (final var enumeration = players.enumeration(); enumeration.hasMoreElements()
+                && intersectionSize < intersection.length; ) {
+            final Player player;
+            if (contains(player = enumeration.nextElement())) intersection[intersectionSize++] = player;
+        }
+
+        return PlayerSet.of(
+                intersectionSize == intersection.length ? intersection : Arrays.copyOf(intersection, intersectionSize)
+        );
+    }
+
+    /**
+     * Creates a player set consisting of the online players whose unique IDs are contained in this set.
+     *
+     * @return player set consisting of the online players contained in this set
+     *
+     * @implNote the smaller of this set and the set of online players is iterated
+     */
+    default @NotNull PlayerSet onlinePlayers() {
+        final Collection<? extends Player> onlinePlayers;
+        final int size;
+        if ((size = size()) < (onlinePlayers = Bukkit.getOnlinePlayers()).size()) {
+            val intersection = new Player[size];
+            val intersectionSize = new int[1];
+            forEach((mostSignificantBits, leastSignificantBits) -> {
+                final Player player;
+                if ((player = Bukkit.getPlayer(new UUID(mostSignificantBits, leastSignificantBits))) != null)
+                    intersection[intersectionSize[0]++] = player;
+            });
+
+            return PlayerSet.of(intersectionSize[0] == size
+                    ? intersection : Arrays.copyOf(intersection, intersectionSize[0]));
+        }
+
+        val intersection = new Player[onlinePlayers.size()];
+        var intersectionSize = 0;
+        for (val player : onlinePlayers) if (contains(player)) intersection[intersectionSize++] = player;
+
+        return PlayerSet.of(
+                intersectionSize == intersection.length ? intersection : Arrays.copyOf(intersection, intersectionSize)
+        );
+    }
+
+    /**
+     * Creates a new unique ID set consisting of the given unique IDs.
+     *
+     * @param uniqueIds unique IDs which will be stored in the created set
+     * @return created unique ID set
+     *
+     * @throws NullPointerException if {@code uniqueIds} is {@code null}
+     */
+    static @NotNull UniqueIdSet of(final @NotNull UUID @NonNull ... uniqueIds) {
+        return of(Arrays.asList(uniqueIds));
+    }
+
+    /**
+     * Creates a new unique ID set consisting of the given unique IDs.
+     *
+     * @param uniqueIds unique IDs which will be stored in the created set
+     * @return created unique ID set
+     *
+     * @throws NullPointerException if {@code uniqueIds} is {@code null}
+     */
+    static @NotNull UniqueIdSet of(final @NonNull @Unmodifiable Collection<@NotNull UUID> uniqueIds) {
+        val bits = new long[uniqueIds.size() << 1];
+        var size = 0;
+        for (val uniqueId : uniqueIds) {
+            bits[size << 1] = uniqueId.getMostSignificantBits();
+            bits[(size++ << 1) + 1] = uniqueId.getLeastSignificantBits();
+        }
+        UniqueIdArrays.sort(bits, size);
+
+        final int uniqueSize;
+        return new SortedUniqueIdSet((uniqueSize = UniqueIdArrays.deduplicateSorted(bits, size)) == size
+                ? bits : Arrays.copyOf(bits, uniqueSize << 1));
+    }
+
+    /**
+     * Creates a new unique ID set consisting of the unique IDs of the given set.
+     *
+     * @param uniqueIds unique IDs which will be stored in the created set
+     * @return created unique ID set
+     *
+     * @throws NullPointerException if {@code uniqueIds} is {@code null}
+     *
+     * @apiNote the created set takes exactly 16 bytes per unique ID
+     */
+    static @NotNull UniqueIdSet copyOf(final @NonNull UniqueIdSet uniqueIds) {
+        return new SortedUniqueIdSet(uniqueIds.toSortedBits());
+    }
+
+    /**
+     * Creates a new unique ID set consisting of the given unique ID bits assuming that {@code bits}
+     * is {@link #toSortedBits() sorted} and does not get mutated while created set is accessed.
+     *
+     * @param bits sorted array of pairs of unique ID bits which will be stored in the created set
+     * @return created unique ID set
+     *
+     * @throws NullPointerException if {@code bits} is {@code null}
+     * @throws IllegalArgumentException if the length of {@code bits} is odd
+     *
+     * @apiNote the behaviour is undefined if {@code bits} is not sorted or contains duplicate pairs
+     */
+    static @NotNull UniqueIdSet ofSortedBits(final long @NonNull @Unmodifiable [] bits) {
+        if ((bits.length & 1) != 0) throw new IllegalArgumentException("bits should consist of pairs");
+
+        return new SortedUniqueIdSet(bits);
+    }
+
+    /**
+     * {@link UniqueIdSet Unique ID set} backed by a sorted array of unique ID bits.
+     */
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    final class SortedUniqueIdSet implements UniqueIdSet {
+
+        // should be sorted
+        long @NotNull [] bits;
+
+        @Override
+        public int size() {
+            return bits.length >>> 1;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bits.length == 0;
+        }
+
+        @Override
+        public boolean contains(final long mostSignificantBits, final long leastSignificantBits) {
+            return UniqueIdArrays.binarySearch(
+                    bits, bits.length >>> 1, mostSignificantBits, leastSignificantBits
+            ) >= 0;
+        }
+
+        @Override
+        public void forEach(final @NonNull UniqueIdConsumer action) {
+            final long[] thisBits;
+            val length = (thisBits = bits).length;
+            for (var index = 0; index < length; index += 2) action.accept(thisBits[index], thisBits[index + 1]);
+        }
+
+        @Override
+        public long @NotNull [] toSortedBits() {
+            return bits.clone();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other == this || other instanceof SortedUniqueIdSet
+                    && Arrays.equals(bits, ((SortedUniqueIdSet) other).bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bits);
+        }
+    }
+}
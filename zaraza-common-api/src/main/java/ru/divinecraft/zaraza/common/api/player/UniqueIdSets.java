@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.UtilityClass;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Helper methods for {@link UniqueIdSet unique ID sets}.
+ */
+@UtilityClass
+public class UniqueIdSets {
+
+    /**
+     * Creates a new {@link MutableUniqueIdSet mutable unique ID set}.
+     *
+     * @return newly created unique ID set
+     */
+    public @NotNull MutableUniqueIdSet newMutableUniqueIdSet() {
+        return new HashUniqueIdSet(HashUniqueIdSet.MINIMAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@link MutableUniqueIdSet mutable unique ID set}
+     * able to store the given number of unique IDs without resizing.
+     *
+     * @param expectedSize expected number of unique IDs in the set
+     * @return newly created unique ID set
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public @NotNull MutableUniqueIdSet newMutableUniqueIdSet(final int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize should be non-negative");
+
+        return new HashUniqueIdSet(HashUniqueIdSet.capacityFor(expectedSize));
+    }
+
+    /**
+     * {@link MutableUniqueIdSet Mutable unique ID set} based on an open-addressing hash table
+     * with linear probing storing unique ID bits inline.
+     * <p>
+     * The nil unique ID whose bits are all zeros is used as the empty slot marker and so it is stored separately.
+     *
+     * @implNote memory taken by an entry is {@code 16} bytes divided by the load factor
+     * which is kept between {@code 0.375} and {@code 0.75};
+     * {@link UniqueIdSet#copyOf(UniqueIdSet)} may be used to create a compact snapshot of the set
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    private static final class HashUniqueIdSet implements MutableUniqueIdSet {
+
+        /**
+         * Minimal capacity of the table.
+         */
+        private static final int MINIMAL_CAPACITY = 16;
+
+        /**
+         * Maximal capacity of the table.
+         */
+        private static final int MAXIMAL_CAPACITY = 1 << 29;
+
+        /**
+         * Pairs of unique ID bits, zero pairs are empty slots.
+         */
+        long @NotNull [] table;
+
+        /**
+         * Mask applied to the hash to get the slot index.
+         */
+        int mask;
+
+        /**
+         * Number of entries stored in the table.
+         */
+        int tableSize;
+
+        /**
+         * Flag indicating whether the nil unique ID is contained in this set.
+         */
+        boolean containsNil;
+
+        private HashUniqueIdSet(final int capacity) {
+            table = new long[capacity << 1];
+            mask = capacity - 1;
+        }
+
+        private static int capacityFor(final int expectedSize) {
+            // keep load factor no greater than 0.75
+            val minimalCapacity = (int) Math.min((long) expectedSize * 4 / 3 + 1, MAXIMAL_CAPACITY);
+
+            return Math.max(MINIMAL_CAPACITY, Integer.highestOneBit(minimalCapacity - 1) << 1);
+        }
+
+        @Override
+        public int size() {
+            return containsNil ? tableSize + 1 : tableSize;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return tableSize == 0 && !containsNil;
+        }
+
+        @Override
+        public boolean contains(final long mostSignificantBits, final long leastSignificantBits) {
+            if (mostSignificantBits == 0 && leastSignificantBits == 0) return containsNil;
+
+            final long[] thisTable = table;
+            final int thisMask = mask;
+            var slot = (int) UniqueIdArrays.hash(mostSignificantBits, leastSignificantBits) & thisMask;
+            while (true) {
+                final long slotMostSignificantBits = thisTable[slot << 1],
+                        slotLeastSignificantBits = thisTable[(slot << 1) + 1];
+                if (slotMostSignificantBits == mostSignificantBits
+                        && slotLeastSignificantBits == leastSignificantBits) return true;
+                if (slotMostSignificantBits == 0 && slotLeastSignificantBits == 0) return false;
+
+                slot = (slot + 1) & thisMask;
+            }
+        }
+
+        @Override
+        public boolean add(final long mostSignificantBits, final long leastSignificantBits) {
+            if (mostSignificantBits == 0 && leastSignificantBits == 0) {
+                if (containsNil) return false;
+
+                return containsNil = true;
+            }
+
+            final long[] thisTable = table;
+            final int thisMask = mask;
+            var slot = (int) UniqueIdArrays.hash(mostSignificantBits, leastSignificantBits) & thisMask;
+            while (true) {
+                final long slotMostSignificantBits = thisTable[slot << 1],
+                        slotLeastSignificantBits = thisTable[(slot << 1) + 1];
+                if (slotMostSignificantBits == mostSignificantBits
+                        && slotLeastSignificantBits == leastSignificantBits) return false;
+                if (slotMostSignificantBits == 0 && slotLeastSignificantBits == 0) break;
+
+                slot = (slot + 1) & thisMask;
+            }
+
+            thisTable[slot << 1] = mostSignificantBits;
+            thisTable[(slot << 1) + 1] = leastSignificantBits;
+            if (++tableSize > (thisMask + 1) / 4 * 3) resize((thisMask + 1) << 1);
+
+            return true;
+        }
+
+        @Override
+        public boolean remove(final long mostSignificantBits, final long leastSignificantBits) {
+            if (mostSignificantBits == 0 && leastSignificantBits == 0) {
+                if (!containsNil) return false;
+
+                containsNil = false;
+                return true;
+            }
+
+            final long[] thisTable = table;
+            final int thisMask = mask;
+            var slot = (int) UniqueIdArrays.hash(mostSignificantBits, leastSignificantBits) & thisMask;
+            while (true) {
+                final long slotMostSignificantBits = thisTable[slot << 1],
+                        slotLeastSignificantBits = thisTable[(slot << 1) + 1];
+                if (slotMostSignificantBits == mostSignificantBits
+                        && slotLeastSignificantBits == leastSignificantBits) break;
+                if (slotMostSignificantBits == 0 && slotLeastSignificantBits == 0) return false;
+
+                slot = (slot + 1) & thisMask;
+            }
+
+            // backward shift deletion so that no tombstones are needed
+            var next = slot;
+            while (true) {
+                next = (next + 1) & thisMask;
+                final long nextMostSignificantBits = thisTable[next << 1],
+                        nextLeastSignificantBits = thisTable[(next << 1) + 1];
+                if (nextMostSignificantBits == 0 && nextLeastSignificantBits == 0) break;
+
+                val ideal = (int) UniqueIdArrays.hash(nextMostSignificantBits, nextLeastSignificantBits) & thisMask;
+                // move the entry if its ideal slot is not in the cyclic range (slot, next]
+                if (((next - ideal) & thisMask) >= ((next - slot) & thisMask)) {
+                    thisTable[slot << 1] = nextMostSignificantBits;
+                    thisTable[(slot << 1) + 1] = nextLeastSignificantBits;
+                    slot = next;
+                }
+            }
+            thisTable[slot << 1] = 0;
+            thisTable[(slot << 1) + 1] = 0;
+            tableSize--;
+
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            if (table.length > MINIMAL_CAPACITY << 1) {
+                table = new long[MINIMAL_CAPACITY << 1];
+                mask = MINIMAL_CAPACITY - 1;
+            } else Arrays.fill(table, 0);
+            tableSize = 0;
+            containsNil = false;
+        }
+
+        @Override
+        public void forEach(final @NonNull UniqueIdConsumer action) {
+            if (containsNil) action.accept(0, 0);
+
+            final long[] thisTable;
+            val length = (thisTable = table).length;
+            for (var index = 0; index < length; index += 2) {
+                final long mostSignificantBits = thisTable[index], leastSignificantBits = thisTable[index + 1];
+                if (mostSignificantBits != 0 || leastSignificantBits != 0) action.accept(
+                        mostSignificantBits, leastSignificantBits
+                );
+            }
+        }
+
+        @Override
+        public long @NotNull [] toSortedBits() {
+            val bits = new long[size() << 1];
+            val index = new int[1];
+            forEach((mostSignificantBits, leastSignificantBits) -> {
+                bits[index[0]++] = mostSignificantBits;
+                bits[index[0]++] = leastSignificantBits;
+            });
+            UniqueIdArrays.sort(bits, bits.length >>> 1);
+
+            return bits;
+        }
+
+        private void resize(final int capacity) {
+            if (capacity > MAXIMAL_CAPACITY) throw new IllegalStateException("Unique ID set is too big");
+
+            final long[] oldTable = table, newTable = table = new long[capacity << 1];
+            final int newMask = mask = capacity - 1;
+            val oldLength = oldTable.length;
+            for (var index = 0; index < oldLength; index += 2) {
+                final long mostSignificantBits = oldTable[index], leastSignificantBits = oldTable[index + 1];
+                if (mostSignificantBits == 0 && leastSignificantBits == 0) continue;
+
+                var slot = (int) UniqueIdArrays.hash(mostSignificantBits, leastSignificantBits) & newMask;
+                while (newTable[slot << 1] != 0 || newTable[(slot << 1) + 1] != 0) slot = (slot + 1) & newMask;
+                newTable[slot << 1] = mostSignificantBits;
+                newTable[(slot << 1) + 1] = leastSignificantBits;
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ package ru.divinecraft.zaraza.common.api.sidebar;
 
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import ru.divinecraft.zaraza.common.api.flow.IntProcessor;
 import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
 
 import java.util.concurrent.Flow;
@@ -37,6 +38,6 @@ public interface MutableSidebar<L extends MutableSidebar.@NotNull MutableLine> e
         @NotNull Flow.Processor<@NotNull TextModel<@NotNull Player>, @NotNull TextModel<@NotNull Player>> text();
 
         @Override
-        @NotNull Flow.Processor<@NotNull Integer, @NotNull Integer> value();
+        @NotNull IntProcessor value();
     }
 }
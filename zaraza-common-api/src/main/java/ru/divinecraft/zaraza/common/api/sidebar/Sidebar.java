@@ -17,6 +17,8 @@ package ru.divinecraft.zaraza.common.api.sidebar;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import ru.divinecraft.zaraza.common.api.flow.IntPublisher;
+import ru.divinecraft.zaraza.common.api.flow.IntSubscriber;
 import ru.divinecraft.zaraza.common.api.player.PlayerViewed;
 import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
 
@@ -57,8 +59,10 @@ public interface Sidebar<L extends Sidebar.@NotNull Line> extends PlayerViewed {
          * Gets the value of this line.
          *
          * @return value of this line
+         *
+         * @apiNote the values get passed to {@link IntSubscriber int subscribers} without boxing
          */
-        @NotNull Flow.Publisher<@NotNull Integer> value();
+        @NotNull IntPublisher value();
     }
 
     /**
@@ -0,0 +1,268 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowOperatorsTest {
+
+    @Test
+    void chain_isAppliedBySingleSubscription() {
+        val processor = FlowProcessors.<Integer>createProcessor();
+        val subscriptions = new AtomicInteger();
+        final Flow.Publisher<Integer> source = subscriber -> {
+            subscriptions.incrementAndGet();
+            processor.subscribe(subscriber);
+        };
+
+        val received = new ArrayList<String>();
+        FlowOperators.map(source, item -> item / 2)
+                .filter(item -> item != 3)
+                .distinctUntilChanged()
+                .scan("", (text, item) -> text + item)
+                .subscribe(FlowSubscribers.<String>createSubscriber(received::add));
+
+        for (var item = 0; item < 10; item++) processor.onNext(item);
+
+        assertEquals(1, subscriptions.get());
+        assertEquals(List.of("0", "01", "012", "0124"), received);
+    }
+
+    @Test
+    void of_returnsFusedPublisherAsIs() {
+        val publisher = FusedPublisher.of(FlowProcessors.<Integer>createProcessor());
+
+        assertSame(publisher, FusedPublisher.of(publisher));
+    }
+
+    @Test
+    void filter_requestsReplacementOfDroppedItems() {
+        val tasks = new ArrayList<Runnable>();
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(tasks::add, 16, OverflowStrategy.ERROR);
+        val received = new ArrayList<Integer>();
+        FlowOperators.filter(processor, item -> item % 2 == 0).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.request(3);
+            }
+
+            @Override
+            public void onNext(final Integer item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {}
+
+            @Override
+            public void onComplete() {}
+        });
+
+        for (var item = 0; item < 10; item++) processor.onNext(item);
+        tasks.forEach(Runnable::run);
+
+        assertEquals(List.of(0, 2, 4), received);
+    }
+
+    @Test
+    void combineLatest_combinesLatestItems() {
+        val first = FlowProcessors.<String>createProcessor();
+        val second = FlowProcessors.<Integer>createProcessor();
+        val received = new ArrayList<String>();
+        val completed = new AtomicInteger();
+        FlowOperators.combineLatest(first, second, (text, number) -> text + number)
+                .map(String::toUpperCase)
+                .subscribe(FlowSubscribers.<String>createSubscriber(received::add));
+        FlowOperators.combineLatest(first, second, (text, number) -> text + number).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {}
+
+            @Override
+            public void onNext(final String item) {}
+
+            @Override
+            public void onError(final Throwable throwable) {}
+
+            @Override
+            public void onComplete() {
+                completed.incrementAndGet();
+            }
+        });
+
+        first.onNext("a");
+        second.onNext(1);
+        second.onNext(2);
+        first.onNext("b");
+
+        assertEquals(List.of("A1", "A2", "B2"), received);
+
+        first.onComplete();
+        assertEquals(0, completed.get());
+        second.onComplete();
+        assertEquals(1, completed.get());
+    }
+
+    @Test
+    void combineLatest_forwardsDemandToSubscribedSources() {
+        val firstRequests = new ArrayList<Long>();
+        val secondRequests = new ArrayList<Long>();
+        val secondSubscriber = new AtomicReference<Flow.Subscriber<? super Integer>>();
+        val subscription = new AtomicReference<Flow.Subscription>();
+        FlowOperators.<String, Integer, String>combineLatest(
+                subscriber -> subscriber.onSubscribe(recordingSubscription(firstRequests)),
+                secondSubscriber::set, // the second source subscribes later
+                (text, number) -> text + number
+        ).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription newSubscription) {
+                subscription.set(newSubscription);
+            }
+
+            @Override
+            public void onNext(final String item) {}
+
+            @Override
+            public void onError(final Throwable throwable) {}
+
+            @Override
+            public void onComplete() {}
+        });
+
+        subscription.get().request(5);
+        assertEquals(List.of(5L), firstRequests);
+
+        secondSubscriber.get().onSubscribe(recordingSubscription(secondRequests));
+        assertEquals(List.of(5L), firstRequests);
+        assertEquals(List.of(5L), secondRequests);
+    }
+
+    private static Flow.Subscription recordingSubscription(final List<Long> requests) {
+        return new Flow.Subscription() {
+            @Override
+            public void request(final long amount) {
+                requests.add(amount);
+            }
+
+            @Override
+            public void cancel() {}
+        };
+    }
+
+    @Test
+    void debounce_publishesSettledItems() {
+        val wheel = new TimerWheel();
+        val processor = FlowProcessors.<Integer>createProcessor();
+        val received = new ArrayList<Integer>();
+        FlowOperators.debounce(processor, wheel, 5)
+                .subscribe(FlowSubscribers.<Integer>createSubscriber(received::add));
+
+        processor.onNext(1);
+        wheel.tick();
+        processor.onNext(2);
+        for (var tick = 0; tick < 4; tick++) wheel.tick();
+        assertEquals(List.of(), received);
+
+        wheel.tick();
+        assertEquals(List.of(2), received);
+    }
+
+    @Test
+    void throttle_publishesFirstAndLatestItems() {
+        val wheel = new TimerWheel();
+        val processor = FlowProcessors.<Integer>createProcessor();
+        val received = new ArrayList<Integer>();
+        FlowOperators.throttle(processor, wheel, 3)
+                .subscribe(FlowSubscribers.<Integer>createSubscriber(received::add));
+
+        processor.onNext(1);
+        processor.onNext(2);
+        processor.onNext(3);
+        assertEquals(List.of(1), received);
+
+        for (var tick = 0; tick < 3; tick++) wheel.tick();
+        assertEquals(List.of(1, 3), received);
+
+        for (var tick = 0; tick < 3; tick++) wheel.tick();
+        processor.onNext(4);
+        assertEquals(List.of(1, 3, 4), received);
+    }
+
+    @Test
+    void sample_publishesLatestItemPerPeriod() {
+        val wheel = new TimerWheel();
+        val processor = FlowProcessors.<Integer>createProcessor();
+        val received = new ArrayList<Integer>();
+        FlowOperators.sample(processor, wheel, 2)
+                .subscribe(FlowSubscribers.<Integer>createSubscriber(received::add));
+
+        processor.onNext(1);
+        processor.onNext(2);
+        wheel.tick();
+        wheel.tick();
+        wheel.tick();
+        wheel.tick();
+        processor.onNext(3);
+        wheel.tick();
+        wheel.tick();
+
+        assertEquals(List.of(2, 3), received);
+    }
+
+    @Test
+    void delay_delaysItemsAndCompletion() {
+        val wheel = new TimerWheel();
+        val processor = FlowProcessors.<Integer>createProcessor();
+        val received = new ArrayList<Integer>();
+        val completed = new AtomicInteger();
+        FlowOperators.delay(processor, wheel, 2).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {}
+
+            @Override
+            public void onNext(final Integer item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {}
+
+            @Override
+            public void onComplete() {
+                completed.incrementAndGet();
+            }
+        });
+
+        processor.onNext(1);
+        wheel.tick();
+        processor.onNext(2);
+        processor.onComplete();
+        assertEquals(List.of(), received);
+
+        wheel.tick();
+        assertEquals(List.of(1), received);
+        wheel.tick();
+        assertEquals(List.of(1, 2), received);
+        assertEquals(1, completed.get());
+    }
+}
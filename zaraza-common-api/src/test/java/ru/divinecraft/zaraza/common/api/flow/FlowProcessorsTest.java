@@ -0,0 +1,801 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowProcessorsTest {
+
+    @Test
+    void concurrentProcessor_deliversToAllSubscribers() {
+        val processor = FlowProcessors.<Integer>createConcurrentProcessor();
+        val first = new ArrayList<Integer>();
+        val second = new ArrayList<Integer>();
+        val firstSubscriber = FlowSubscribers.<Integer>createSubscriber(first::add);
+        processor.subscribe(firstSubscriber);
+        processor.subscribe(firstSubscriber); // duplicate subscription is ignored
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(second::add));
+
+        processor.onNext(1);
+        processor.onNext(2);
+
+        assertEquals(List.of(1, 2), first);
+        assertEquals(List.of(1, 2), second);
+    }
+
+    @Test
+    void concurrentProcessor_allowsCancellationDuringDispatch() {
+        val processor = FlowProcessors.<Integer>createConcurrentProcessor();
+        val received = new AtomicInteger();
+        val subscription = new AtomicReference<Flow.Subscription>();
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription newSubscription) {
+                subscription.set(newSubscription);
+            }
+
+            @Override
+            public void onNext(final Integer item) {
+                received.incrementAndGet();
+                subscription.get().cancel();
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {}
+
+            @Override
+            public void onComplete() {}
+        });
+        val other = new AtomicInteger();
+        processor.subscribe(FlowSubscribers.createSubscriber(item -> other.incrementAndGet()));
+
+        processor.onNext(1);
+        processor.onNext(2);
+
+        assertEquals(1, received.get());
+        assertEquals(2, other.get());
+    }
+
+    @Test
+    void concurrentProcessor_handlesConcurrentSubscriptions() throws InterruptedException {
+        val processor = FlowProcessors.<Integer>createConcurrentProcessor();
+        val received = new AtomicInteger();
+        val threads = 8;
+        val executor = Executors.newFixedThreadPool(threads);
+        val done = new CountDownLatch(threads);
+        try {
+            for (var thread = 0; thread < threads; thread++) executor.execute(() -> {
+                for (var index = 0; index < 100; index++) processor.subscribe(
+                        FlowSubscribers.createSubscriber(item -> received.incrementAndGet())
+                );
+                done.countDown();
+            });
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        processor.onNext(0);
+        assertEquals(threads * 100, received.get());
+    }
+
+    @Test
+    void concurrentProcessor_signalsOnSubscribeBeforeItems() {
+        val processor = FlowProcessors.<Integer>createConcurrentProcessor();
+        val subscriber = new RequestingSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                processor.onNext(1); // the subscriber should not be visible yet
+            }
+        };
+        processor.subscribe(subscriber);
+        processor.onNext(2);
+
+        assertEquals(List.of(2), subscriber.items);
+    }
+
+    @Test
+    void concurrentProcessor_allowsCancellationDuringOnSubscribe() {
+        val processor = FlowProcessors.<Integer>createConcurrentProcessor();
+        val subscriber = new RequestingSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+        };
+        processor.subscribe(subscriber);
+        processor.onNext(1);
+
+        assertEquals(List.of(), subscriber.items);
+    }
+
+    @Test
+    void concurrentMemoizingProcessor_remembersLastValue() {
+        val processor = FlowProcessors.<String>createConcurrentMemoizingProcessor();
+        assertNull(processor.lastValue());
+
+        processor.onNext("foo");
+        processor.onNext("bar");
+
+        assertEquals("bar", processor.lastValue());
+    }
+
+    private static class RequestingSubscriber<T> implements Flow.Subscriber<T> {
+
+        final List<T> items = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    void bufferingProcessor_respectsDemand() {
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(10, OverflowStrategy.ERROR);
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        processor.onNext(1);
+        processor.onNext(2);
+        processor.onNext(3);
+        processor.onComplete();
+        assertEquals(List.of(), subscriber.items);
+
+        subscriber.subscription.request(2);
+        assertEquals(List.of(1, 2), subscriber.items);
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(1, 2, 3), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void bufferingProcessor_signalsOnSubscribeBeforeItems() {
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(10, OverflowStrategy.ERROR);
+        val subscriber = new RequestingSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                processor.onNext(1); // the subscriber should not be visible yet
+            }
+        };
+        processor.subscribe(subscriber);
+        processor.onNext(2);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(2), subscriber.items);
+    }
+
+    @Test
+    void bufferingProcessor_dropsOldest() {
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(2, OverflowStrategy.DROP_OLDEST);
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        for (var item = 0; item < 5; item++) processor.onNext(item);
+        subscriber.subscription.request(10);
+
+        assertEquals(List.of(3, 4), subscriber.items);
+    }
+
+    @Test
+    void bufferingProcessor_keepsLatest() {
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(2, OverflowStrategy.KEEP_LATEST);
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        for (var item = 0; item < 5; item++) processor.onNext(item);
+        subscriber.subscription.request(10);
+
+        assertEquals(List.of(4), subscriber.items);
+    }
+
+    @Test
+    void bufferingProcessor_failsOverflownSubscriber() {
+        val tasks = new ArrayList<Runnable>();
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(tasks::add, 2, OverflowStrategy.ERROR);
+        val slow = new RequestingSubscriber<Integer>();
+        val fast = new RequestingSubscriber<Integer>();
+        processor.subscribe(slow);
+        processor.subscribe(fast);
+        fast.subscription.request(Long.MAX_VALUE);
+
+        processor.onNext(0);
+        processor.onNext(1);
+        assertEquals(List.of(), fast.items, "items should not be delivered by the publisher");
+        assertEquals(1, tasks.size(), "delivery should only be scheduled for the subscriber having demand");
+        tasks.forEach(Runnable::run);
+        tasks.clear();
+
+        processor.onNext(2);
+        processor.onNext(3);
+        tasks.forEach(Runnable::run);
+
+        assertTrue(slow.error instanceof IllegalStateException);
+        assertEquals(List.of(), slow.items);
+        assertEquals(List.of(0, 1, 2, 3), fast.items);
+    }
+
+    @Test
+    void bufferingProcessor_deliversRequestsFromOtherThreads() throws InterruptedException {
+        val processor = FlowProcessors.<Integer>createBufferingProcessor(100_000, OverflowStrategy.ERROR);
+        val received = new CountDownLatch(10_000);
+        val subscription = new AtomicReference<Flow.Subscription>();
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription newSubscription) {
+                subscription.set(newSubscription);
+            }
+
+            @Override
+            public void onNext(final Integer item) {
+                received.countDown();
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {}
+
+            @Override
+            public void onComplete() {}
+        });
+
+        val requester = new Thread(() -> {
+            for (var index = 0; index < 10_000; index++) subscription.get().request(1);
+        });
+        requester.start();
+        for (var item = 0; item < 10_000; item++) processor.onNext(item);
+        requester.join();
+
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void bufferingProcessor_doesNotBlockPublisherOnSlowSubscriber() throws InterruptedException {
+        val executor = Executors.newSingleThreadExecutor();
+        try {
+            val processor = FlowProcessors.<Integer>createBufferingProcessor(executor, 10, OverflowStrategy.ERROR);
+            val blocking = new CountDownLatch(1);
+            val released = new CountDownLatch(1);
+            val received = new ArrayList<Integer>();
+            val done = new CountDownLatch(1);
+            processor.subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(final Integer item) {
+                    blocking.countDown();
+                    try {
+                        released.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    received.add(item);
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {}
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+            processor.onNext(1);
+            assertTrue(blocking.await(10, TimeUnit.SECONDS));
+            // the subscriber is now blocked in onNext which should not affect the publisher
+            processor.onNext(2);
+            processor.onNext(3);
+            processor.onComplete();
+            released.countDown();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 2, 3), received);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executorProcessor_deliversInOrderOnExecutor() throws InterruptedException {
+        val executor = Executors.newFixedThreadPool(4);
+        try {
+            val processor = FlowProcessors.<Integer>createExecutorProcessor(executor, 1 << 16);
+            val subscriberCount = 8;
+            val itemCount = 10_000;
+            val done = new CountDownLatch(subscriberCount);
+            val failures = new AtomicInteger();
+            val callerThread = Thread.currentThread();
+            for (var subscriber = 0; subscriber < subscriberCount; subscriber++) processor.subscribe(
+                    new Flow.Subscriber<Integer>() {
+                        int expected;
+
+                        @Override
+                        public void onSubscribe(final Flow.Subscription subscription) {}
+
+                        @Override
+                        public void onNext(final Integer item) {
+                            if (item != expected++ || Thread.currentThread() == callerThread) {
+                                failures.incrementAndGet();
+                            }
+                        }
+
+                        @Override
+                        public void onError(final Throwable throwable) {
+                            failures.incrementAndGet();
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            if (expected != itemCount) failures.incrementAndGet();
+                            done.countDown();
+                        }
+                    }
+            );
+
+            for (var item = 0; item < itemCount; item++) processor.onNext(item);
+            processor.onComplete();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(0, failures.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executorProcessor_failsOverflownSubscriber() {
+        val tasks = new ArrayList<Runnable>();
+        val processor = FlowProcessors.<Integer>createExecutorProcessor(tasks::add, 2);
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        for (var item = 0; item < 3; item++) processor.onNext(item);
+        assertEquals(1, tasks.size(), "delivery should be scheduled once");
+        tasks.get(0).run();
+
+        assertNotNull(subscriber.subscription);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(List.of(), subscriber.items);
+
+        processor.onNext(3);
+        assertEquals(List.of(), subscriber.items);
+    }
+
+    @Test
+    void conflatingProcessor_deliversOnlyNewestValueOnDrain() {
+        val processor = FlowProcessors.<String>createConflatingProcessor();
+        val received = new ArrayList<String>();
+        processor.subscribe(FlowSubscribers.<String>createSubscriber(received::add));
+
+        assertFalse(processor.drain());
+        processor.onNext("a");
+        processor.onNext("b");
+        processor.onNext("c");
+        assertTrue(processor.hasPending());
+        assertEquals("c", processor.lastValue());
+        assertEquals(List.of(), received);
+
+        assertTrue(processor.drain());
+        assertFalse(processor.hasPending());
+        assertFalse(processor.drain());
+        assertEquals(List.of("c"), received);
+        assertEquals("c", processor.lastDeliveredValue());
+    }
+
+    @Test
+    void conflatingProcessor_suppressesEqualValues() {
+        val processor = FlowProcessors.<String>createConflatingProcessor(true);
+        val received = new ArrayList<String>();
+        processor.subscribe(FlowSubscribers.<String>createSubscriber(received::add));
+
+        processor.onNext("a");
+        processor.drain();
+        processor.onNext("b");
+        processor.onNext(new String("a"));
+        assertFalse(processor.drain());
+        processor.onNext("b");
+        assertTrue(processor.drain());
+
+        assertEquals(List.of("a", "b"), received);
+    }
+
+    @Test
+    void conflatingProcessor_deliversPendingValueBeforeCompletion() {
+        val processor = FlowProcessors.<Integer>createConflatingProcessor();
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        processor.onNext(1);
+        processor.onComplete();
+
+        assertEquals(List.of(1), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void trampoliningProcessor_queuesReentrantSignalsInOrder() {
+        val processor = FlowProcessors.<Integer>createTrampoliningProcessor();
+        val first = new ArrayList<Integer>();
+        val second = new ArrayList<Integer>();
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(item -> {
+            first.add(item);
+            if (item < 3) {
+                processor.onNext(item * 10 + 1);
+                processor.onNext(item * 10 + 2);
+            }
+        }));
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(second::add));
+
+        processor.onNext(1);
+
+        // every subscriber receives a signal before the reentrant ones
+        assertEquals(List.of(1, 11, 12), first);
+        assertEquals(List.of(1, 11, 12), second);
+    }
+
+    @Test
+    void trampoliningProcessor_handlesDeepCycles() {
+        val first = FlowProcessors.<Integer>createTrampoliningProcessor();
+        val second = FlowProcessors.<Integer>createTrampoliningProcessor();
+        val received = new ArrayList<Integer>();
+        first.subscribe(FlowSubscribers.<Integer>createSubscriber(item -> {
+            if (item > 0) second.onNext(item - 1);
+        }));
+        second.subscribe(FlowSubscribers.<Integer>createSubscriber(item -> {
+            received.add(item);
+            if (item > 0) first.onNext(item - 1);
+        }));
+
+        first.onNext(1_000_000);
+
+        assertEquals(500_000, received.size());
+        assertEquals(1, received.get(received.size() - 1));
+    }
+
+    @Test
+    void trampoliningProcessor_deliversCompletionAfterQueuedItems() {
+        val processor = FlowProcessors.<Integer>createTrampoliningProcessor();
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(item -> {
+            if (item == 0) {
+                processor.onNext(1);
+                processor.onComplete();
+            }
+        }));
+        processor.subscribe(subscriber);
+
+        processor.onNext(0);
+
+        assertEquals(List.of(0, 1), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void replayingProcessor_replaysHistoryToLateSubscribers() {
+        val processor = FlowProcessors.<Integer>createReplayingProcessor(3);
+        assertNull(processor.lastValue());
+
+        for (var item = 0; item < 5; item++) processor.onNext(item);
+        assertEquals(4, processor.lastValue());
+
+        val received = new ArrayList<Integer>();
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(received::add));
+        assertEquals(List.of(2, 3, 4), received);
+
+        processor.onNext(5);
+        assertEquals(List.of(2, 3, 4, 5), received);
+    }
+
+    @Test
+    void replayingProcessor_replaysPartialHistory() {
+        val processor = FlowProcessors.<Integer>createReplayingProcessor(4);
+        processor.onNext(1);
+        processor.onNext(2);
+
+        val received = new ArrayList<Integer>();
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(received::add));
+
+        assertEquals(List.of(1, 2), received);
+    }
+
+    @Test
+    void replayingProcessor_stopsReplayOnCancellation() {
+        val processor = FlowProcessors.<Integer>createReplayingProcessor(1);
+        processor.onNext(1);
+
+        val subscriber = new RequestingSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+        };
+        processor.subscribe(subscriber);
+        processor.onNext(2);
+
+        assertEquals(List.of(), subscriber.items);
+    }
+
+    @Test
+    void replayingProcessor_replaysValuesPublishedDuringReplayAfterHistory() {
+        val processor = FlowProcessors.<Integer>createReplayingProcessor(3);
+        processor.onNext(1);
+        processor.onNext(2);
+
+        val received = new ArrayList<Integer>();
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(item -> {
+            received.add(item);
+            if (item == 1) processor.onNext(10);
+        }));
+
+        assertEquals(List.of(1, 2, 10), received);
+        assertEquals(10, processor.lastValue());
+
+        processor.onNext(11);
+        assertEquals(List.of(1, 2, 10, 11), received);
+    }
+
+    private static final class CollectingBatchSubscriber<T>
+            extends RequestingSubscriber<T> implements BatchSubscriber<T> {
+
+        final List<List<T>> batches = new ArrayList<>();
+
+        @Override
+        public void onNextBatch(final T @NotNull [] items, final int from, final int to) {
+            batches.add(List.of(Arrays.copyOfRange(items, from, to)));
+        }
+    }
+
+    @Test
+    void onNextBatch_fallsBackToPerItemDelivery() {
+        val processor = FlowProcessors.<Integer>createConcurrentMemoizingProcessor();
+        val batchSubscriber = new CollectingBatchSubscriber<Integer>();
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(batchSubscriber);
+        processor.subscribe(subscriber);
+
+        BatchSubscriber.onNextBatch(processor, new Integer[]{0, 1, 2, 3, 4}, 1, 4);
+
+        assertEquals(List.of(List.of(1, 2, 3)), batchSubscriber.batches);
+        assertEquals(List.of(), batchSubscriber.items);
+        assertEquals(List.of(1, 2, 3), subscriber.items);
+        assertEquals(3, processor.lastValue());
+    }
+
+    @Test
+    void onNextBatch_isPassedThroughProcessorChain() {
+        val first = FlowProcessors.<Integer>createProcessor();
+        val second = FlowProcessors.<Integer>createProcessor();
+        val batchSubscriber = new CollectingBatchSubscriber<Integer>();
+        first.subscribe(second);
+        second.subscribe(batchSubscriber);
+
+        BatchSubscriber.onNextBatch(first, new Integer[]{1, 2}, 0, 2);
+
+        assertEquals(List.of(List.of(1, 2)), batchSubscriber.batches);
+    }
+
+    @Test
+    void onNextBatch_recordsReplayedHistory() {
+        val processor = FlowProcessors.<Integer>createReplayingProcessor(2);
+        BatchSubscriber.onNextBatch(processor, new Integer[]{1, 2, 3}, 0, 3);
+
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        assertEquals(List.of(2, 3), subscriber.items);
+    }
+
+    @Test
+    void onNextBatch_rejectsInvalidRange() {
+        assertThrows(IndexOutOfBoundsException.class, () -> BatchSubscriber.onNextBatch(
+                FlowProcessors.<Integer>createProcessor(), new Integer[]{1}, 0, 2
+        ));
+    }
+
+    private static void collectGarbage(final @NotNull WeakReference<?> reference) {
+        for (var attempt = 0; attempt < 100 && reference.get() != null; attempt++) {
+            System.gc();
+            Thread.onSpinWait();
+        }
+        assertNull(reference.get(), "reference should be cleared");
+    }
+
+    @Test
+    void weakProcessor_purgesCollectedSubscribers() {
+        val processor = FlowProcessors.<Integer>createWeakProcessor();
+        val received = new AtomicInteger();
+        var forgotten = FlowSubscribers.<Integer>createSubscriber(item -> received.incrementAndGet());
+        val kept = FlowSubscribers.<Integer>createSubscriber(item -> received.incrementAndGet());
+        processor.subscribe(forgotten);
+        processor.subscribe(kept);
+
+        processor.onNext(1);
+        assertEquals(2, received.get());
+
+        val reference = new WeakReference<>(forgotten);
+        //noinspection UnusedAssignment
+        forgotten = null;
+        collectGarbage(reference);
+
+        processor.onNext(2);
+        assertEquals(3, received.get());
+        assertEquals(1, processor.purgedSubscriberCount());
+        assertEquals(0, processor.purge());
+    }
+
+    @Test
+    void weakProcessor_purgesExplicitly() {
+        val processor = FlowProcessors.<Integer>createWeakProcessor();
+        var forgotten = FlowSubscribers.<Integer>createSubscriber(item -> {});
+        processor.subscribe(forgotten);
+
+        val reference = new WeakReference<>(forgotten);
+        //noinspection UnusedAssignment
+        forgotten = null;
+        collectGarbage(reference);
+
+        assertEquals(1, processor.purge());
+        assertEquals(1, processor.purgedSubscriberCount());
+    }
+
+    @Test
+    void weakProcessor_cancelsSubscriptions() {
+        val processor = FlowProcessors.<Integer>createWeakProcessor();
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+
+        subscriber.subscription.cancel();
+        processor.onNext(1);
+
+        assertEquals(List.of(), subscriber.items);
+        assertEquals(0, processor.purgedSubscriberCount());
+    }
+
+    @Test
+    void weakProcessor_signalsOnSubscribeBeforeItems() {
+        val processor = FlowProcessors.<Integer>createWeakProcessor();
+        val subscriber = new RequestingSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                processor.onNext(1); // the subscriber should not be visible yet
+            }
+        };
+        processor.subscribe(subscriber);
+        processor.onNext(2);
+
+        assertEquals(List.of(2), subscriber.items);
+    }
+
+    @Test
+    void intProcessor_deliversToIntAndBoxedSubscribers() {
+        val processor = FlowProcessors.createIntProcessor();
+        val primitive = new ArrayList<Integer>();
+        val boxed = new ArrayList<Integer>();
+        val intSubscriber = FlowSubscribers.createIntSubscriber(primitive::add);
+        processor.subscribe(intSubscriber);
+        processor.subscribe(intSubscriber);
+        processor.subscribe(FlowSubscribers.<Integer>createSubscriber(boxed::add));
+
+        processor.onNextInt(1);
+        processor.onNext(2);
+
+        assertEquals(List.of(1, 2), primitive);
+        assertEquals(List.of(1, 2), boxed);
+    }
+
+    @Test
+    void intProcessor_cancelsBoxedSubscribers() {
+        val processor = FlowProcessors.createIntProcessor();
+        val subscriber = new RequestingSubscriber<Integer>();
+        processor.subscribe(subscriber);
+        processor.subscribe(subscriber);
+
+        processor.onNextInt(1);
+        subscriber.subscription.cancel();
+        processor.onNextInt(2);
+
+        assertEquals(List.of(1), subscriber.items);
+    }
+
+    @Test
+    void intProcessor_signalsOnSubscribeBeforeItems() {
+        val processor = FlowProcessors.createIntProcessor();
+        val subscriber = new RequestingSubscriber<Integer>() {
+            @Override
+            public void onSubscribe(final Flow.Subscription subscription) {
+                super.onSubscribe(subscription);
+                processor.onNextInt(1); // the subscriber should not be visible yet
+            }
+        };
+        processor.subscribe(subscriber);
+        processor.onNextInt(2);
+
+        assertEquals(List.of(2), subscriber.items);
+    }
+
+    @Test
+    void memoizingIntProcessor_remembersLastValue() {
+        val processor = FlowProcessors.createMemoizingIntProcessor();
+        assertFalse(processor.hasLastValue());
+        assertNull(processor.lastValue());
+        assertThrows(NoSuchElementException.class, processor::lastIntValue);
+
+        processor.onNextInt(7);
+
+        assertTrue(processor.hasLastValue());
+        assertEquals(7, processor.lastIntValue());
+        assertEquals(7, processor.lastValue());
+    }
+
+    @Test
+    void conflatingIntProcessor_deliversOnlyNewestValueOnDrain() {
+        val processor = FlowProcessors.createConflatingIntProcessor(true);
+        val received = new ArrayList<Integer>();
+        processor.subscribe(FlowSubscribers.createIntSubscriber(received::add));
+
+        processor.onNextInt(Integer.MIN_VALUE);
+        processor.onNextInt(Integer.MAX_VALUE);
+        assertTrue(processor.hasPending());
+        assertEquals(Integer.MAX_VALUE, processor.lastIntValue());
+        assertTrue(processor.drain());
+
+        processor.onNextInt(Integer.MAX_VALUE);
+        assertFalse(processor.drain());
+
+        assertEquals(List.of(Integer.MAX_VALUE), received);
+    }
+}
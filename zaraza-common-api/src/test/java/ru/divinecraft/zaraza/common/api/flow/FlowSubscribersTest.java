@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowSubscribersTest {
+
+    @Test
+    void memoizingSubscriber_remembersLastValue() {
+        val received = new ArrayList<String>();
+        val subscriber = FlowSubscribers.<String>createMemoizingSubscriber(received::add);
+        assertNull(subscriber.lastValue());
+
+        subscriber.onNext("foo");
+        subscriber.onNext("bar");
+
+        assertEquals("bar", subscriber.lastValue());
+        assertEquals(List.of("foo", "bar"), received);
+    }
+
+    @Test
+    void concurrentMemoizingSubscriber_countsVersions() {
+        val subscriber = FlowSubscribers.<String>createConcurrentMemoizingSubscriber();
+        assertEquals(0, subscriber.version());
+        assertNull(subscriber.lastValue());
+
+        subscriber.onNext("foo");
+        final long version = subscriber.version();
+        assertEquals(1, version);
+        assertEquals("foo", subscriber.lastValue());
+        assertFalse(subscriber.changedSince(version));
+
+        subscriber.onNext("bar");
+        assertTrue(subscriber.changedSince(version));
+        assertEquals("bar", subscriber.lastValue());
+    }
+
+    @Test
+    void concurrentMemoizingSubscriber_valueIsAtLeastAsNewAsVersion() throws InterruptedException {
+        val subscriber = FlowSubscribers.<Long>createConcurrentMemoizingSubscriber();
+        val failed = new AtomicBoolean();
+        val running = new AtomicBoolean(true);
+        val reader = new Thread(() -> {
+            while (running.get()) {
+                final long version = subscriber.version();
+                final Long value = subscriber.lastValue();
+                if (version != 0 && (value == null || value < version)) failed.set(true);
+            }
+        });
+        reader.start();
+
+        for (var value = 1L; value <= 1_000_000; value++) subscriber.onNext(value);
+        running.set(false);
+        reader.join();
+
+        assertFalse(failed.get());
+    }
+}
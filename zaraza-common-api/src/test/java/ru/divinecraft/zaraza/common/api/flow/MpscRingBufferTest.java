@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+    @Test
+    void offer_failsWhenFull() {
+        val buffer = new MpscRingBuffer<Integer>(3); // rounded up to 4
+        for (var item = 0; item < 4; item++) assertTrue(buffer.offer(item));
+        assertFalse(buffer.offer(4));
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (var item = 1; item <= 4; item++) assertEquals(item, buffer.poll());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void poll_keepsPerProducerOrder() throws InterruptedException {
+        val producerCount = 4;
+        val itemsPerProducer = 100_000;
+        val buffer = new MpscRingBuffer<Long>(64);
+
+        val producers = new ArrayList<Thread>();
+        for (var producer = 0; producer < producerCount; producer++) {
+            final long producerIndex = producer;
+            val thread = new Thread(() -> {
+                for (var item = 0; item < itemsPerProducer; item++) {
+                    //noinspection StatementWithEmptyBody
+                    while (!buffer.offer(producerIndex << 32 | item));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        val lastItems = new long[producerCount];
+        Arrays.fill(lastItems, -1);
+        for (var received = 0; received < producerCount * itemsPerProducer; ) {
+            final Long element;
+            if ((element = buffer.poll()) == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            final int producer = (int) (element >>> 32);
+            final long item = element & 0xFFFF_FFFFL;
+            assertEquals(lastItems[producer] + 1, item);
+            lastItems[producer] = item;
+            received++;
+        }
+        for (val thread : producers) thread.join();
+
+        assertNull(buffer.poll());
+    }
+}
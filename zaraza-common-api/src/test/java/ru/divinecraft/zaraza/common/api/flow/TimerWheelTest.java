@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.flow;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    @Test
+    void tick_expiresTimersExactlyAtDeadline() {
+        val wheel = new TimerWheel();
+        val random = new Random(1);
+        val expirations = new ArrayList<long[]>();
+        val delays = new long[]{1, 2, 63, 64, 65, 4095, 4096, 4097, 300_000};
+        for (val delay : delays) wheel.schedule(delay, () -> expirations.add(new long[]{delay, wheel.currentTick()}));
+        for (var index = 0; index < 1000; index++) {
+            final long delay = 1 + random.nextInt(100_000);
+            wheel.schedule(delay, () -> expirations.add(new long[]{delay, wheel.currentTick()}));
+        }
+
+        for (var tick = 0; tick < 300_000; tick++) wheel.tick();
+
+        assertEquals(delays.length + 1000, expirations.size());
+        for (val expiration : expirations) assertEquals(expiration[0], expiration[1]);
+    }
+
+    @Test
+    void tick_expiresTimersScheduledLater() {
+        val wheel = new TimerWheel();
+        for (var tick = 0; tick < 1000; tick++) wheel.tick();
+
+        val expiredAt = new long[1];
+        wheel.schedule(100, () -> expiredAt[0] = wheel.currentTick());
+        for (var tick = 0; tick < 200; tick++) wheel.tick();
+
+        assertEquals(1100, expiredAt[0]);
+    }
+
+    @Test
+    void tick_keepsSchedulingOrderOfSameDeadline() {
+        val wheel = new TimerWheel();
+        val order = new ArrayList<Integer>();
+        for (var index = 0; index < 10; index++) {
+            final int value = index;
+            wheel.schedule(100, () -> order.add(value));
+        }
+        for (var tick = 0; tick < 100; tick++) wheel.tick();
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), order);
+    }
+
+    @Test
+    void cancel_preventsExpiration() {
+        val wheel = new TimerWheel();
+        val expired = new boolean[1];
+        val timer = wheel.schedule(5, () -> expired[0] = true);
+
+        assertTrue(timer.cancel());
+        assertFalse(timer.cancel());
+        for (var tick = 0; tick < 10; tick++) wheel.tick();
+
+        assertFalse(expired[0]);
+        assertFalse(timer.isPending());
+    }
+
+    @Test
+    void tick_runsAllTasksDespiteFailures() {
+        val wheel = new TimerWheel();
+        val expired = new boolean[1];
+        wheel.schedule(1, () -> {
+            throw new IllegalStateException();
+        });
+        wheel.schedule(1, () -> expired[0] = true);
+
+        assertThrows(IllegalStateException.class, wheel::tick);
+        assertTrue(expired[0]);
+    }
+
+    @Test
+    void driveBy_ticksPeriodically() throws InterruptedException {
+        val wheel = new TimerWheel();
+        val executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            val expired = new CountDownLatch(1);
+            wheel.schedule(3, expired::countDown);
+            wheel.driveBy(executor, 1, TimeUnit.MILLISECONDS);
+
+            assertTrue(expired.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
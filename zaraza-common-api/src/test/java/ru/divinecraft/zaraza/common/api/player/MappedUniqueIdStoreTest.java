@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedUniqueIdStoreTest {
+
+    @Test
+    void open_createsEmptyStore(final @TempDir Path directory) throws IOException {
+        val path = directory.resolve("store.bin");
+        try (val store = MappedUniqueIdStore.open(path)) {
+            assertTrue(store.isEmpty());
+            assertFalse(store.contains(UUID.randomUUID()));
+        }
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void merge_persistsModifications(final @TempDir Path directory) throws IOException {
+        val path = directory.resolve("store.bin");
+        val random = new Random(1);
+        val expected = new HashSet<UUID>();
+
+        try (val store = MappedUniqueIdStore.open(path)) {
+            for (var round = 0; round < 5; round++) {
+                for (var index = 0; index < 1000; index++) {
+                    val uniqueId = new UUID(random.nextInt(100), random.nextLong());
+                    assertEquals(expected.add(uniqueId), store.add(uniqueId));
+                }
+                // remove some of the merged and some of the unmerged unique IDs
+                for (val uniqueId : expected.toArray(UUID[]::new)) if (random.nextInt(4) == 0) {
+                    assertTrue(store.remove(uniqueId));
+                    expected.remove(uniqueId);
+                }
+                assertEquals(expected.size(), store.size());
+
+                store.merge();
+                assertEquals(0, store.deltaSize());
+                assertEquals(expected.size(), store.size());
+                assertEquals((long) expected.size() * 16, Files.size(path));
+                for (val uniqueId : expected) assertTrue(store.contains(uniqueId));
+            }
+        }
+
+        try (val store = MappedUniqueIdStore.open(path)) {
+            assertEquals(expected.size(), store.size());
+            for (val uniqueId : expected) assertTrue(store.contains(uniqueId));
+
+            val bits = store.toSortedBits();
+            for (var index = 2; index < bits.length; index += 2) assertTrue(
+                    new UUID(bits[index - 2], bits[index - 1]).compareTo(new UUID(bits[index], bits[index + 1])) < 0
+            );
+        }
+    }
+
+    @Test
+    void clear_keepsDeltaEmpty(final @TempDir Path directory) throws IOException {
+        val path = directory.resolve("store.bin");
+        val random = new Random(2);
+        val kept = new UUID(random.nextLong(), random.nextLong());
+
+        try (val store = MappedUniqueIdStore.open(path)) {
+            for (var index = 0; index < 1000; index++) store.add(new UUID(random.nextLong(), random.nextLong()));
+            store.merge();
+
+            store.clear();
+            // the keys of the file are not copied to the removed ones
+            assertEquals(0, store.deltaSize());
+            assertTrue(store.isEmpty());
+            assertEquals(0, store.toSortedBits().length);
+
+            assertTrue(store.add(kept));
+            store.merge();
+            assertEquals(16, Files.size(path));
+        }
+
+        try (val store = MappedUniqueIdStore.open(path)) {
+            assertEquals(1, store.size());
+            assertTrue(store.contains(kept));
+        }
+    }
+
+    @Test
+    void open_rejectsMalformedFile(final @TempDir Path directory) throws IOException {
+        val path = directory.resolve("store.bin");
+        Files.write(path, new byte[17]);
+
+        assertThrows(IOException.class, () -> MappedUniqueIdStore.open(path));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlayerSetBuilderTest {
+
+    private static @NotNull Player playerMock(final @NotNull UUID uniqueId) {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(uniqueId);
+
+        return mock;
+    }
+
+    private static @NotNull Player @NotNull [] randomPlayers(final int count, final int highBitsVariety) {
+        val random = new Random(count);
+        val players = new Player[count];
+        for (var index = 0; index < count; index++) players[index] = playerMock(new UUID(
+                random.nextInt(highBitsVariety) * 0x1_0000_0000L + random.nextInt(), random.nextLong()
+        ));
+
+        return players;
+    }
+
+    private static void assertSorted(final @NotNull Player @NotNull [] players, final int size) {
+        for (var index = 1; index < size; index++) assertTrue(
+                PlayerSet.PLAYER_COMPARATOR.compare(players[index - 1], players[index]) < 0,
+                "players should be strictly ordered"
+        );
+    }
+
+    @Test
+    void sortDistinct_sortsLikeComparator() {
+        for (val highBitsVariety : new int[]{1, 4, Integer.MAX_VALUE}) {
+            val players = randomPlayers(10_000, highBitsVariety);
+            val expected = players.clone();
+            Arrays.sort(expected, PlayerSet.PLAYER_COMPARATOR);
+
+            assertEquals(players.length, PlayerSetBuilder.sortDistinct(players, players.length));
+            assertArrayEquals(expected, players);
+        }
+    }
+
+    @Test
+    void sortDistinct_removesDuplicates() {
+        val distinct = randomPlayers(100, Integer.MAX_VALUE);
+        val players = new Player[300];
+        for (var index = 0; index < players.length; index++) players[index] = distinct[index % distinct.length];
+        Collections.shuffle(Arrays.asList(players), new Random(42));
+
+        assertEquals(100, PlayerSetBuilder.sortDistinct(players, players.length));
+        assertSorted(players, 100);
+        for (var index = 100; index < players.length; index++) assertNull(players[index]);
+    }
+
+    @Test
+    void of_removesDuplicates() {
+        val player = playerMock(UUID.randomUUID());
+        val other = playerMock(UUID.randomUUID());
+
+        assertEquals(PlayerSet.of(player), PlayerSet.of(player, player));
+        assertEquals(2, PlayerSet.of(player, other, player, other).size());
+    }
+
+    @Test
+    void build_collectsAllAddedPlayers() {
+        val players = randomPlayers(1000, 16);
+        val builder = PlayerSet.builder(10);
+        for (val player : players) builder.add(player);
+        builder.addAll(PlayerSet.ofCopy(Arrays.copyOf(players, 10)));
+
+        val set = builder.build();
+        assertEquals(players.length, set.size());
+        for (val player : players) assertTrue(set.contains(player));
+    }
+
+    @Test
+    void toPlayerSet_collectsParallelStream() {
+        val players = randomPlayers(20_000, 64);
+
+        val set = IntStream.range(0, players.length * 2).parallel()
+                .mapToObj(index -> players[index % players.length])
+                .collect(PlayerSets.toPlayerSet());
+
+        assertEquals(PlayerSet.ofCopy(players), set);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlayerSetCodecTest {
+
+    private static @NotNull Player playerMock(final @NotNull UUID uniqueId) {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(uniqueId);
+
+        return mock;
+    }
+
+    private static @NotNull Player @NotNull [] randomPlayers(final int count) {
+        val random = new Random(count);
+        val players = new Player[count];
+        for (var index = 0; index < count; index++) players[index] = playerMock(
+                new UUID(random.nextLong(), random.nextLong())
+        );
+
+        return players;
+    }
+
+    private static void putVarLong(long value, final @NotNull ByteBuffer buffer) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static @NotNull Function<UUID, Player> resolverOf(final @NotNull Player @NotNull ... players) {
+        val playersById = new HashMap<UUID, Player>();
+        for (val player : players) playersById.put(player.getUniqueId(), player);
+
+        return playersById::get;
+    }
+
+    @Test
+    void encode_emptySetRoundTrips() {
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(0));
+
+        PlayerSetCodec.encode(PlayerSet.of(new Player[0]), buffer);
+        buffer.flip();
+
+        assertTrue(PlayerSetCodec.decode(buffer, resolverOf()).isEmpty());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void encode_deltaFormatRoundTrips() {
+        val players = randomPlayers(100);
+        val set = PlayerSet.ofCopy(players);
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(set.size()));
+
+        val written = PlayerSetCodec.encode(set, buffer);
+        assertEquals(buffer.position(), written);
+        buffer.flip();
+
+        assertEquals(set, PlayerSetCodec.decode(buffer, resolverOf(players)));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void encode_sharedMostSignificantBitsRoundTrip() {
+        val players = new Player[]{
+                playerMock(new UUID(-1, 17)), playerMock(new UUID(-1, -17)),
+                playerMock(new UUID(Long.MIN_VALUE, Long.MIN_VALUE)), playerMock(new UUID(Long.MIN_VALUE, 0)),
+                playerMock(new UUID(Long.MAX_VALUE, Long.MAX_VALUE))
+        };
+        val set = PlayerSet.ofCopy(players);
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(set.size()));
+
+        PlayerSetCodec.encode(set, buffer);
+        buffer.flip();
+
+        val uniqueIds = new ArrayList<UUID>();
+        assertEquals(5, PlayerSetCodec.decodeUniqueIds(
+                buffer, null, (most, least) -> uniqueIds.add(new UUID(most, least))
+        ));
+        assertEquals(List.of(
+                new UUID(Long.MIN_VALUE, Long.MIN_VALUE), new UUID(Long.MIN_VALUE, 0),
+                new UUID(-1, -17), new UUID(-1, 17), new UUID(Long.MAX_VALUE, Long.MAX_VALUE)
+        ), uniqueIds);
+    }
+
+    @Test
+    void decode_skipsUnresolvedPlayers() {
+        val players = randomPlayers(10);
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(players.length));
+
+        PlayerSetCodec.encode(PlayerSet.ofCopy(players), buffer);
+        buffer.flip();
+
+        assertEquals(
+                PlayerSet.of(players[3], players[7]),
+                PlayerSetCodec.decode(buffer, resolverOf(players[3], players[7]))
+        );
+    }
+
+    @Test
+    void encode_denseSetUsesBitsetFormat() {
+        val universePlayers = randomPlayers(1000);
+        val universe = PlayerSet.ofCopy(universePlayers);
+        val set = PlayerSet.of(Arrays.copyOf(universePlayers, 900));
+
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(set.size()));
+        val written = PlayerSetCodec.encode(set, universe, buffer);
+        assertTrue(written <= 1 + 2 + 2 + 1000 / 8, "bitset format should be used");
+        buffer.flip();
+
+        assertEquals(set, PlayerSetCodec.decode(buffer, universe, resolverOf()));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void decode_bitsetFormatRequiresUniverse() {
+        val universePlayers = randomPlayers(100);
+        val universe = PlayerSet.ofCopy(universePlayers);
+
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(universe.size()));
+        PlayerSetCodec.encode(universe, universe, buffer);
+        buffer.flip();
+
+        assertThrows(IllegalArgumentException.class, () -> PlayerSetCodec.decode(buffer, resolverOf()));
+    }
+
+    @Test
+    void decode_rejectsDeltaSizeExceedingBuffer() {
+        // delta format marker, size of Integer.MAX_VALUE and a single entry
+        val buffer = ByteBuffer.wrap(new byte[]{0, -1, -1, -1, -1, 7, 0, 1});
+
+        assertThrows(IllegalArgumentException.class, () -> PlayerSetCodec.decode(buffer, resolverOf()));
+    }
+
+    @Test
+    void decode_rejectsBitsetSizeExceedingUniverse() {
+        val universe = PlayerSet.ofCopy(randomPlayers(1));
+        // bitset format marker, size of Integer.MAX_VALUE, universe size of 1 and its only byte
+        val buffer = ByteBuffer.wrap(new byte[]{1, -1, -1, -1, -1, 7, 1, 1});
+
+        assertThrows(IllegalArgumentException.class, () -> PlayerSetCodec.decode(buffer, universe, resolverOf()));
+    }
+
+    @Test
+    void decodeUniqueIdSet_rejectsDuplicateEntries() {
+        // delta format marker, size of 2, an entry and a zero delta of both its components
+        val buffer = ByteBuffer.wrap(new byte[]{0, 2, 0, 5, 0, 0});
+
+        assertThrows(IllegalArgumentException.class, () -> PlayerSetCodec.decodeUniqueIdSet(buffer, null));
+    }
+
+    @Test
+    void decodeUniqueIdSet_rejectsWrappingEntries() {
+        val buffer = ByteBuffer.allocate(32);
+        buffer.put((byte) 0);
+        putVarLong(2, buffer);
+        // the first entry has the maximal most significant bits and the next one wraps them
+        putVarLong(-1, buffer);
+        buffer.putLong(0);
+        putVarLong(1, buffer);
+        buffer.putLong(0);
+        buffer.flip();
+
+        assertThrows(IllegalArgumentException.class, () -> PlayerSetCodec.decodeUniqueIdSet(buffer, null));
+    }
+
+    @Test
+    void encode_updateRoundTrips() {
+        val players = randomPlayers(20);
+        val update = MutablePlayerSet.Update.create(MutablePlayerSet.Update.Action.REMOVE, PlayerSet.ofCopy(players));
+        val buffer = ByteBuffer.allocate(1 + PlayerSetCodec.maxEncodedSize(players.length));
+
+        PlayerSetCodec.encode(update, buffer);
+        buffer.flip();
+
+        assertEquals(update, PlayerSetCodec.decodeUpdate(buffer, resolverOf(players)));
+    }
+
+    @Test
+    void encode_uniqueIdSetRoundTrips() {
+        val players = randomPlayers(50);
+        val uniqueIds = UniqueIdSets.newMutableUniqueIdSet();
+        for (val player : players) uniqueIds.add(player);
+
+        val buffer = ByteBuffer.allocate(PlayerSetCodec.maxEncodedSize(uniqueIds.size()));
+        PlayerSetCodec.encode(uniqueIds, buffer);
+        buffer.flip();
+
+        assertEquals(UniqueIdSet.copyOf(uniqueIds), PlayerSetCodec.decodeUniqueIdSet(buffer, null));
+
+        buffer.rewind();
+        assertEquals(PlayerSet.ofCopy(players), PlayerSetCodec.decode(buffer, resolverOf(players)));
+    }
+}
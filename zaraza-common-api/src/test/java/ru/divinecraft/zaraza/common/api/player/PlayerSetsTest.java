@@ -20,7 +20,12 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import ru.divinecraft.zaraza.common.api.flow.FlowProcessors;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.Flow;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,6 +51,13 @@ class PlayerSetsTest {
         return mock;
     }
 
+    private static @NotNull Player playerMock(final @NonNull UUID uniqueId) {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(uniqueId);
+
+        return mock;
+    }
+
     @Test
     void newMutablePlayerSet_onSubscribeGetsCalled() {
         val subscriber = mockSubscriber();
@@ -162,4 +174,64 @@ class PlayerSetsTest {
         assertFalse(set.contains(bob));
         assertFalse(set.contains(joper));
     }
-}
\ No newline at end of file
+
+    @Test
+    void newMutablePlayerSet_bloomFilterHasNoFalseNegatives() {
+        val random = new Random(13);
+        val players = new ArrayList<Player>();
+        for (var index = 0; index < 300; index++) players.add(playerMock(new UUID(random.nextLong(), random.nextLong())));
+
+        val expected = new HashSet<Player>();
+        val set = PlayerSets.newMutablePlayerSet(32);
+        for (var iteration = 0; iteration < 5_000; iteration++) {
+            val player = players.get(random.nextInt(players.size()));
+            switch (random.nextInt(8)) {
+                case 0: {
+                    set.removeIf(removed -> random.nextInt(4) == 0);
+                    expected.retainAll(set.asUnmodifiableSet());
+                    break;
+                }
+                case 1: case 2: {
+                    assertEquals(expected.remove(player), set.remove(player));
+                    break;
+                }
+                default: assertEquals(expected.add(player), set.add(player));
+            }
+
+            for (val checked : players) assertEquals(expected.contains(checked), set.contains(checked));
+        }
+    }
+
+    @Test
+    void withBloomFilter_keepsContents() {
+        val random = new Random(17);
+        val players = new Player[1000];
+        for (var index = 0; index < players.length; index++) players[index] = playerMock(
+                new UUID(random.nextLong(), random.nextLong())
+        );
+
+        val set = PlayerSet.ofCopy(players);
+        val filtered = PlayerSets.withBloomFilter(set, 100);
+        assertEquals(set, filtered);
+        for (val player : players) assertTrue(filtered.contains(player));
+        for (var index = 0; index < 1000; index++) assertFalse(
+                filtered.contains(playerMock(new UUID(random.nextLong(), random.nextLong())))
+        );
+
+        assertSame(set, PlayerSets.withBloomFilter(set, 1001));
+    }
+
+    @Test
+    void newMutablePlayerSet_publishesViaGivenProcessor() {
+        val subscriber = mockSubscriber();
+        val set = PlayerSets.newMutablePlayerSet(FlowProcessors.<MutablePlayerSet.Update>createWeakProcessor());
+        val player = playerMock(UUID.randomUUID());
+
+        set.subscribe(subscriber);
+        set.add(player);
+
+        verify(subscriber, times(1)).onNext(MutablePlayerSet.Update.create(
+                MutablePlayerSet.Update.Action.ADD, PlayerSet.of(player)
+        ));
+    }
+}
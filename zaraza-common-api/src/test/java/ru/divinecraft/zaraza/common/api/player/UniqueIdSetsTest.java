@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.api.player;
+
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UniqueIdSetsTest {
+
+    private static @NotNull Player playerMock(final @NotNull UUID uniqueId) {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(uniqueId);
+
+        return mock;
+    }
+
+    private static @NotNull Set<UUID> contentsOf(final @NotNull UniqueIdSet set) {
+        val contents = new HashSet<UUID>();
+        set.forEach((most, least) -> assertTrue(contents.add(new UUID(most, least)), "duplicate unique ID"));
+
+        return contents;
+    }
+
+    @Test
+    void newMutableUniqueIdSet_behavesAsSet() {
+        val random = new Random(42);
+        val expected = new HashSet<UUID>();
+        val set = UniqueIdSets.newMutableUniqueIdSet();
+
+        // small bit ranges so that collisions, removals and re-additions are frequent
+        for (var iteration = 0; iteration < 100_000; iteration++) {
+            val uniqueId = new UUID(random.nextInt(64), random.nextInt(64) - 32);
+            if (random.nextBoolean()) assertEquals(expected.add(uniqueId), set.add(uniqueId));
+            else assertEquals(expected.remove(uniqueId), set.remove(uniqueId));
+
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (var most = 0; most < 64; most++) for (var least = -32; least < 32; least++) {
+            val uniqueId = new UUID(most, least);
+            assertEquals(expected.contains(uniqueId), set.contains(uniqueId));
+        }
+        assertEquals(expected, contentsOf(set));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(Set.of(), contentsOf(set));
+    }
+
+    @Test
+    void newMutableUniqueIdSet_storesNilUniqueId() {
+        val set = UniqueIdSets.newMutableUniqueIdSet();
+        val nil = new UUID(0, 0);
+
+        assertFalse(set.contains(nil));
+        assertTrue(set.add(nil));
+        assertFalse(set.add(nil));
+        assertTrue(set.contains(nil));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(nil));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void toSortedBits_isSortedAsPlayers() {
+        val random = new Random(7);
+        val set = UniqueIdSets.newMutableUniqueIdSet(1000);
+        for (var index = 0; index < 1000; index++) set.add(new UUID(random.nextLong(), random.nextLong()));
+
+        val bits = set.toSortedBits();
+        assertEquals(2000, bits.length);
+        for (var index = 2; index < bits.length; index += 2) assertTrue(
+                new UUID(bits[index - 2], bits[index - 1]).compareTo(new UUID(bits[index], bits[index + 1])) < 0
+        );
+
+        val copy = UniqueIdSet.copyOf(set);
+        assertEquals(contentsOf(set), contentsOf(copy));
+        for (var index = 0; index < bits.length; index += 2) assertTrue(copy.contains(bits[index], bits[index + 1]));
+    }
+
+    @Test
+    void of_removesDuplicates() {
+        val first = UUID.randomUUID();
+        val second = UUID.randomUUID();
+        val set = UniqueIdSet.of(first, second, first);
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(first));
+        assertTrue(set.contains(second));
+        assertFalse(set.contains(UUID.randomUUID()));
+    }
+
+    @Test
+    void intersection_containsOnlyCommonPlayers() {
+        val john = playerMock(UUID.randomUUID());
+        val jack = playerMock(UUID.randomUUID());
+        val bob = playerMock(UUID.randomUUID());
+
+        val set = UniqueIdSet.of(john.getUniqueId(), bob.getUniqueId(), UUID.randomUUID());
+
+        assertEquals(PlayerSet.of(john, bob), set.intersection(PlayerSet.of(john, jack, bob)));
+        assertTrue(set.intersection(PlayerSet.of(jack)).isEmpty());
+    }
+}
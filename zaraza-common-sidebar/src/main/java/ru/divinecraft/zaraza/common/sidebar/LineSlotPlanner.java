@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.experimental.UtilityClass;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Planner of the slots occupied by the sidebar lines.
+ * <p>
+ * The client displays the scoreboard entries in the order of descending scores
+ * and the entries having equal scores in the order of their names, i.e. of their slots.
+ * Thus the only requirement for the lines is that the ones having equal values occupy increasing slots.
+ * The planner keeps as many lines as possible in their current slots (so that only their scores
+ * may need to be updated) and places the others in the middle of the free gaps between their neighbours
+ * so that the following insertions are also likely to find a free slot.
+ */
+@UtilityClass
+class LineSlotPlanner {
+
+    /**
+     * Marker of a line which does not occupy any slot.
+     */
+    static final int NO_SLOT = -1;
+
+    /**
+     * Preferred distance between the slots of the lines appended to the beginning or the end of a group
+     */
+    private static final int SPACING = 16;
+
+    /**
+     * Plans the slots of the given lines.
+     *
+     * @param currentSlots current slots of the lines in their order, {@link #NO_SLOT} for the new lines
+     * @param values values of the lines in their order
+     * @param slotCount number of available slots
+     * @return slots of the lines in their order
+     *
+     * @throws IllegalArgumentException if there are more lines than slots
+     */
+    int[] plan(final int[] currentSlots, final int[] values, final int slotCount) {
+        val length = currentSlots.length;
+        if (length > slotCount) throw new IllegalArgumentException(
+                "There are " + length + " lines but only " + slotCount + " slots"
+        );
+
+        // lines having equal values form groups which are sorted by value and then by order
+        val keys = new long[length];
+        for (var index = 0; index < length; index++) keys[index] = (long) values[index] << 32 | index;
+        Arrays.sort(keys);
+        val order = new int[length];
+        for (var index = 0; index < length; index++) order[index] = (int) keys[index];
+
+        val slots = new int[length];
+        Arrays.fill(slots, NO_SLOT);
+        val occupied = new BitSet(slotCount);
+
+        // lines forming the longest sequence of increasing slots in each group keep their slots
+        forEachGroup(keys, (from, to) -> keepIncreasingSlots(order, from, to, currentSlots, slots, occupied));
+        forEachGroup(keys, (from, to) -> {
+            if (!placeRemaining(order, from, to, currentSlots, slots, occupied, slotCount)) {
+                relayout(order, from, to, slots, occupied, slotCount);
+            }
+        });
+
+        return slots;
+    }
+
+    private void forEachGroup(final long[] keys, final GroupConsumer consumer) {
+        val length = keys.length;
+        var from = 0;
+        while (from < length) {
+            val value = keys[from] >> 32;
+            var to = from + 1;
+            while (to < length && keys[to] >> 32 == value) to++;
+
+            consumer.accept(from, to);
+            from = to;
+        }
+    }
+
+    private void keepIncreasingSlots(final int[] order, final int from, final int to,
+                                     final int[] currentSlots, final int[] slots, final BitSet occupied) {
+        // patience sorting of the current slots of the group's lines
+        val size = to - from;
+        val tails = new int[size]; // positions of the smallest tails of the sequences by their lengths
+        val previous = new int[size]; // previous positions in the sequences
+        var longest = 0;
+        for (var position = 0; position < size; position++) {
+            val slot = currentSlots[order[from + position]];
+            if (slot == NO_SLOT) continue;
+
+            var low = 0;
+            var high = longest;
+            while (low < high) {
+                val middle = (low + high) >>> 1;
+                if (currentSlots[order[from + tails[middle]]] < slot) low = middle + 1;
+                else high = middle;
+            }
+            previous[position] = low == 0 ? -1 : tails[low - 1];
+            tails[low] = position;
+            if (low == longest) longest++;
+        }
+
+        if (longest == 0) return;
+        var position = tails[longest - 1];
+        while (position != -1) {
+            val line = order[from + position];
+            val slot = currentSlots[line];
+            slots[line] = slot;
+            occupied.set(slot);
+            position = previous[position];
+        }
+    }
+
+    private boolean placeRemaining(final int[] order, final int from, final int to,
+                                   final int[] currentSlots, final int[] slots,
+                                   final BitSet occupied, final int slotCount) {
+        var lower = NO_SLOT;
+        var position = from;
+        while (position < to) {
+            if (slots[order[position]] != NO_SLOT) {
+                lower = slots[order[position++]];
+                continue;
+            }
+
+            // a run of the lines to be placed between the lower and the upper kept slots
+            var runEnd = position;
+            while (runEnd < to && slots[order[runEnd]] == NO_SLOT) runEnd++;
+            val upper = runEnd == to ? slotCount : slots[order[runEnd]];
+
+            for (; position < runEnd; position++) {
+                val line = order[position];
+                val currentSlot = currentSlots[line];
+                final int slot;
+                if (currentSlot > lower && currentSlot < upper && !occupied.get(currentSlot)) slot = currentSlot;
+                else {
+                    slot = nearestFreeSlot(occupied, lower, upper, targetSlot(lower, upper, runEnd - position, slotCount));
+                    if (slot == NO_SLOT) return false;
+                }
+
+                slots[line] = slot;
+                occupied.set(slot);
+                lower = slot;
+            }
+        }
+
+        return true;
+    }
+
+    private int targetSlot(final int lower, final int upper, final int remaining, final int slotCount) {
+        val gap = upper - lower;
+        val step = Math.max(1, Math.min(SPACING, gap / (remaining + 1)));
+
+        if (upper == slotCount) return lower + step; // appending to the end of the group
+        if (lower == NO_SLOT) return upper - step * remaining; // prepending to the beginning of the group
+
+        return lower + gap / (remaining + 1);
+    }
+
+    private int nearestFreeSlot(final BitSet occupied, final int lower, final int upper, final int target) {
+        val clampedTarget = Math.min(Math.max(target, lower + 1), upper - 1);
+        if (clampedTarget <= lower) return NO_SLOT;
+
+        val above = occupied.previousClearBit(clampedTarget);
+        val below = occupied.nextClearBit(clampedTarget);
+        val aboveFits = above > lower;
+        val belowFits = below < upper;
+        if (aboveFits && belowFits) return clampedTarget - above <= below - clampedTarget ? above : below;
+        if (aboveFits) return above;
+
+        return belowFits ? below : NO_SLOT;
+    }
+
+    private void relayout(final int[] order, final int from, final int to,
+                          final int[] slots, final BitSet occupied, final int slotCount) {
+        for (var position = from; position < to; position++) {
+            val slot = slots[order[position]];
+            if (slot != NO_SLOT) occupied.clear(slot);
+        }
+
+        val freeSlots = new int[slotCount - occupied.cardinality()];
+        var freeSlotCount = 0;
+        for (var slot = occupied.nextClearBit(0); slot < slotCount; slot = occupied.nextClearBit(slot + 1)) {
+            freeSlots[freeSlotCount++] = slot;
+        }
+
+        // spread the group's lines evenly over the free slots
+        val size = to - from;
+        for (var position = 0; position < size; position++) {
+            val slot = freeSlots[(int) ((2L * position + 1) * freeSlotCount / (2L * size))];
+            slots[order[from + position]] = slot;
+            occupied.set(slot);
+        }
+    }
+
+    /**
+     * Consumer of a group of lines having equal values.
+     */
+    @FunctionalInterface
+    private interface GroupConsumer {
+
+        /**
+         * Accepts the group.
+         *
+         * @param from index of the first line of the group in the sorted order
+         * @param to index following the last line of the group in the sorted order
+         */
+        void accept(int from, int to);
+    }
+}
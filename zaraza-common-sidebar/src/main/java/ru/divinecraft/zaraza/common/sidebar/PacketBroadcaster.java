@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.injector.netty.WirePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.java.Log;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+import ru.divinecraft.zaraza.common.api.player.PlayerSets;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Broadcaster of packets to {@link PlayerSet sets of players}.
+ * <p>
+ * Each packet is serialized once into a buffer shared by all of its receivers.
+ * The buffer is written to the receivers' channels without flushing them,
+ * all of the written channels get flushed at once by {@link #flush()} which should be called once per tick.
+ * <p>
+ * The players whose channels could not be resolved receive the packets via ProtocolLib
+ * which flushes each packet immediately.
+ * <p>
+ * A player to whom a packet could not be sent gets logged and skipped so that the other receivers still get it.
+ *
+ * @apiNote the packets are sent as {@link WirePacket wire packets}
+ * thus the packet listeners of ProtocolLib do not get notified about them
+ */
+@Log
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class PacketBroadcaster {
+
+    /**
+     * Maximal number of bytes needed to encode a VarInt
+     */
+    private static final int MAX_VAR_INT_SIZE = 5;
+
+    /**
+     * Protocol manager used for serializing the packets and for sending them to the unresolved channels
+     */
+    @NotNull ProtocolManager protocolManager;
+
+    /**
+     * Function resolving the channels of the players, may return {@code null} if the channel is not known
+     */
+    @NotNull Function<@NotNull Player, @Nullable Channel> channelResolver;
+
+    /**
+     * Channels written since the last flush
+     */
+    @NotNull Set<@NotNull Channel> unflushedChannels = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new packet broadcaster sending all packets via ProtocolLib.
+     *
+     * @param protocolManager protocol manager used for sending the packets
+     * @return created packet broadcaster
+     *
+     * @throws NullPointerException if {@code protocolManager} is {@code null}
+     */
+    public static @NotNull PacketBroadcaster create(final @NonNull ProtocolManager protocolManager) {
+        return new PacketBroadcaster(protocolManager, player -> null);
+    }
+
+    /**
+     * Creates a new packet broadcaster writing the packets directly to the players' channels.
+     *
+     * @param protocolManager protocol manager used for sending the packets to the players with unresolved channels
+     * @param channelResolver function resolving the channels of the players,
+     * may return {@code null} if the channel is not known
+     * @return created packet broadcaster
+     *
+     * @throws NullPointerException if {@code protocolManager} is {@code null}
+     * @throws NullPointerException if {@code channelResolver} is {@code null}
+     */
+    public static @NotNull PacketBroadcaster create(
+            final @NonNull ProtocolManager protocolManager,
+            final @NonNull Function<@NotNull Player, @Nullable Channel> channelResolver
+    ) {
+        return new PacketBroadcaster(protocolManager, channelResolver);
+    }
+
+    /**
+     * Sends the packet to all of the given players serializing it only once.
+     *
+     * @param receivers players to whom the packet should be sent
+     * @param packet packet to be sent
+     *
+     * @throws NullPointerException if {@code receivers} is {@code null}
+     * @throws NullPointerException if {@code packet} is {@code null}
+     */
+    public void broadcast(final @NonNull PlayerSet receivers, final @NonNull PacketContainer packet) {
+        if (!receivers.isEmpty()) broadcast(receivers, WirePacket.fromPacket(packet));
+    }
+
+    /**
+     * Sends the serialized packet to all of the given players.
+     *
+     * @param receivers players to whom the packet should be sent
+     * @param packet serialized packet to be sent
+     *
+     * @throws NullPointerException if {@code receivers} is {@code null}
+     * @throws NullPointerException if {@code packet} is {@code null}
+     *
+     * @see PlayerSets#broadcast(PlayerSet, WirePacket) alternative flushing the packet immediately
+     */
+    public void broadcast(final @NonNull PlayerSet receivers, final @NonNull WirePacket packet) {
+        if (receivers.isEmpty()) return;
+
+        val bytes = packet.getBytes();
+        val buffer = Unpooled.buffer(MAX_VAR_INT_SIZE + bytes.length);
+        try {
+            writeVarInt(buffer, packet.getId());
+            buffer.writeBytes(bytes);
+
+            receivers.forEach(receiver -> {
+                try {
+                    send(receiver, packet, buffer);
+                } catch (final InvocationTargetException | RuntimeException e) {
+                    log.log(Level.WARNING, e, () -> "Could not send packet to " + receiver);
+                }
+            });
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private void send(final @NotNull Player receiver, final @NotNull WirePacket packet,
+                      final @NotNull ByteBuf buffer) throws InvocationTargetException {
+        final Channel channel;
+        if ((channel = channelResolver.apply(receiver)) == null) protocolManager.sendWirePacket(receiver, packet);
+        else {
+            // each channel gets its own view of the shared buffer as the pipeline consumes and releases it
+            channel.write(buffer.retainedDuplicate(), channel.voidPromise());
+            unflushedChannels.add(channel);
+        }
+    }
+
+    /**
+     * Flushes all of the channels written since the last flush.
+     */
+    public void flush() {
+        val iterator = unflushedChannels.iterator();
+        while (iterator.hasNext()) {
+            val channel = iterator.next();
+            iterator.remove();
+            if (channel.isActive()) channel.flush();
+        }
+    }
+
+    private static void writeVarInt(final @NotNull ByteBuf buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer.writeByte(value);
+    }
+}
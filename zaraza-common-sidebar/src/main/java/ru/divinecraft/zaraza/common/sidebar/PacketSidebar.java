@@ -0,0 +1,1406 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.java.Log;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.divinecraft.zaraza.common.api.flow.FlowProcessors;
+import ru.divinecraft.zaraza.common.api.flow.FlowSubscribers;
+import ru.divinecraft.zaraza.common.api.flow.IntProcessor;
+import ru.divinecraft.zaraza.common.api.player.MutablePlayerSet;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+import ru.divinecraft.zaraza.common.api.player.PlayerSetBuilder;
+import ru.divinecraft.zaraza.common.api.player.PlayerSets;
+import ru.divinecraft.zaraza.common.api.sidebar.MutableSidebar;
+import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * {@link MutableSidebar Mutable sidebar} existing only on the client side of its viewers.
+ * <p>
+ * Each line occupies its own slot which is a scoreboard entry of the sidebar's objective
+ * and the team containing only this entry. The line's text is the prefix of this team
+ * and the line's value is the score of the entry, thus changes to either of them
+ * cost a single packet per viewer.
+ * <p>
+ * The lines are displayed in the order of descending values and the lines having equal values
+ * are displayed in their order in this sidebar. Modifications of the lines keep them in their slots
+ * whenever possible so that reordering and insertions require as few packets as possible,
+ * the teams of the freed slots are kept for reuse by the following lines.
+ * <p>
+ * Modifications of this sidebar and publications to its processors only record the changes,
+ * each {@link PacketSidebarManager#tick() tick of the manager} takes their snapshot which then gets rendered,
+ * diffed and sent to the viewers on the manager's executor.
+ * A text which gets superseded by a newer one while being rendered is not sent at all.
+ * If a render fails midway, e.g. because a text model throws, the failure gets logged,
+ * the sidebar gets hidden from its viewers and the following render shows it to them anew
+ * so that they never keep a partially applied state.
+ * Under load the changes of the lines which are not {@link Line#isPriority() priority} ones
+ * may be deferred by the manager's {@link SidebarUpdateScheduler scheduler} so that only their latest state gets sent.
+ * Rendered texts are cached per model and viewer and the viewers
+ * for whom a text is rendered equally receive the same packet.
+ * <p>
+ * Only the players who start or stop {@link #viewers() viewing} this sidebar receive its full state
+ * or its destruction while the other viewers are unaffected. The changes of the viewers made between the ticks
+ * are batched so that all of the players added during a tick share the same packets
+ * and a player added and removed during the same tick receives nothing.
+ *
+ * @apiNote the {@link #viewers() viewers} of this sidebar should be modified only from one thread at a time
+ */
+@Log
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class PacketSidebar implements MutableSidebar<PacketSidebar.@NotNull Line> {
+
+    /**
+     * Maximal number of lines in a single sidebar.
+     */
+    public static final int MAX_LINES = 256;
+
+    /**
+     * Empty array of lines.
+     */
+    private static final @NotNull Line @NotNull [] EMPTY_LINE_ARRAY = new Line[0];
+
+    /**
+     * Hexadecimal digits used for slot names
+     */
+    private static final char @NotNull [] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Sink to which this sidebar's packets get sent
+     */
+    @NotNull ScoreboardPacketSink sink;
+
+    /**
+     * Name of this sidebar's objective
+     */
+    @NotNull String objective;
+
+    /**
+     * Listener notified whenever this sidebar gets changes which should be rendered
+     */
+    @NotNull Consumer<@NotNull PacketSidebar> changeListener;
+
+    /**
+     * Processor of this sidebar's title
+     */
+    @NotNull Flow.Processor<@NotNull TextModel<@NotNull Player>, @NotNull TextModel<@NotNull Player>> title;
+
+    /**
+     * Players viewing this sidebar
+     */
+    @NotNull MutablePlayerSet viewers;
+
+    /**
+     * Current title of this sidebar, the desired state is guarded by this sidebar's monitor
+     */
+    @NonFinal @NotNull TextModel<@NotNull Player> titleText;
+
+    /**
+     * Version of the current title incremented on each its update
+     */
+    @NonFinal volatile long titleVersion;
+
+    /**
+     * Marker indicating whether the title was updated since the last render
+     */
+    @NonFinal boolean titleChanged;
+
+    /**
+     * Current lines of this sidebar, this array gets replaced on each modification
+     */
+    @NonFinal @NotNull Line @NotNull [] lines;
+
+    /**
+     * Marker indicating whether the lines were modified since the last render
+     */
+    @NonFinal boolean linesChanged;
+
+    /**
+     * Lines whose texts were updated since the last render
+     */
+    @NotNull Set<@NotNull Line> changedTexts;
+
+    /**
+     * Lines whose values were updated since the last render
+     */
+    @NotNull Set<@NotNull Line> changedValues;
+
+    /**
+     * Number of the deferrable updates which may be taken by the following snapshot
+     */
+    @NonFinal double updateCredit;
+
+    /**
+     * Viewers whose texts of the variable lines were changed since the last render
+     */
+    @NotNull Map<@NotNull Line, @NotNull Set<@NotNull Player>> changedViewerTexts;
+
+    /**
+     * Players who started viewing this sidebar since the last render
+     */
+    @NotNull Set<@NotNull Player> addedViewers;
+
+    /**
+     * Players who stopped viewing this sidebar since the last render
+     */
+    @NotNull Set<@NotNull Player> removedViewers;
+
+    /**
+     * Marker indicating whether this sidebar is being rendered, the rendered state is accessed only by the render
+     */
+    @NotNull AtomicBoolean rendering;
+
+    /**
+     * Lines occupying the slots as they are known to the viewers
+     */
+    @NotNull Line @NotNull [] slotLines;
+
+    /**
+     * Scores of the slots as they are known to the viewers
+     */
+    int @NotNull [] slotValues;
+
+    /**
+     * Slots whose teams exist on the viewers' side, these get reused by the following lines
+     */
+    @NotNull BitSet teams;
+
+    /**
+     * Cache of the texts rendered for the viewers
+     */
+    @NotNull TextRenderCache renders;
+
+    /**
+     * Players to whom this sidebar was shown
+     */
+    @NotNull Set<@NotNull Player> shownViewers;
+
+    /**
+     * Title as it is known to the viewers
+     */
+    @NonFinal @NotNull TextModel<@NotNull Player> renderedTitle;
+
+    /**
+     * Players to whom this sidebar was shown as a player set
+     */
+    @NonFinal @NotNull PlayerSet shown;
+
+    /**
+     * Creates a new packet sidebar.
+     *
+     * @param sink sink to which this sidebar's packets should be sent
+     * @param objective name of this sidebar's objective
+     * @param title initial title of this sidebar
+     * @param changeListener listener notified whenever this sidebar gets changes which should be rendered
+     */
+    PacketSidebar(final @NotNull ScoreboardPacketSink sink, final @NotNull String objective,
+                  final @NotNull TextModel<@NotNull Player> title,
+                  final @NotNull Consumer<@NotNull PacketSidebar> changeListener) {
+        this.sink = sink;
+        this.objective = objective;
+        this.changeListener = changeListener;
+        titleText = renderedTitle = title;
+        lines = EMPTY_LINE_ARRAY;
+        changedTexts = Collections.newSetFromMap(new IdentityHashMap<>());
+        changedValues = Collections.newSetFromMap(new IdentityHashMap<>());
+        changedViewerTexts = new IdentityHashMap<>();
+        addedViewers = new HashSet<>();
+        removedViewers = new HashSet<>();
+
+        rendering = new AtomicBoolean();
+        slotLines = new Line[MAX_LINES];
+        slotValues = new int[MAX_LINES];
+        teams = new BitSet(MAX_LINES);
+        renders = new TextRenderCache();
+        shownViewers = new HashSet<>();
+        shown = PlayerSet.of(shownViewers);
+
+        this.title = FlowProcessors.createConcurrentProcessor();
+        this.title.subscribe(FlowSubscribers.<TextModel<Player>>createSubscriber(this::updateTitle));
+
+        viewers = PlayerSets.newMutablePlayerSet();
+        viewers.subscribe(FlowSubscribers.<MutablePlayerSet.Update>createSubscriber(this::updateViewers));
+    }
+
+    @Override
+    public @NotNull Flow.Processor<@NotNull TextModel<@NotNull Player>, @NotNull TextModel<@NotNull Player>> title() {
+        return title;
+    }
+
+    @Override
+    public @NotNull Lines<@NotNull Line> lines() {
+        return new SimpleLines(lines);
+    }
+
+    @Override
+    public @NotNull MutablePlayerSet viewers() {
+        return viewers;
+    }
+
+    /**
+     * Adds a new line to the bottom of this sidebar.
+     *
+     * @param text initial text of the line
+     * @param value initial value of the line
+     * @return added line
+     *
+     * @throws NullPointerException if {@code text} is {@code null}
+     * @throws IllegalStateException if this sidebar already has {@link #MAX_LINES maximal number of lines}
+     */
+    public synchronized @NotNull Line addLine(final @NonNull TextModel<@NotNull Player> text, final int value) {
+        return insertLine(lines.length, text, value);
+    }
+
+    /**
+     * Inserts a new line at the given index of this sidebar.
+     *
+     * @param index index at which the line should be inserted
+     * @param text initial text of the line
+     * @param value initial value of the line
+     * @return inserted line
+     *
+     * @throws IndexOutOfBoundsException if the index is negative or is greater than the count of the lines
+     * @throws NullPointerException if {@code text} is {@code null}
+     * @throws IllegalStateException if this sidebar already has {@link #MAX_LINES maximal number of lines}
+     */
+    public synchronized @NotNull Line insertLine(final int index,
+                                                 final @NonNull TextModel<@NotNull Player> text, final int value) {
+        checkInsertionIndex(index);
+
+        val line = new Line(this, text, value);
+        insert(index, line);
+
+        return line;
+    }
+
+    /**
+     * Adds a new {@link VariableLine variable line} to the bottom of this sidebar.
+     *
+     * @param defaultText text of the line displayed to the viewers for whom no text was set
+     * @param value initial value of the line
+     * @return added line
+     *
+     * @throws NullPointerException if {@code defaultText} is {@code null}
+     * @throws IllegalStateException if this sidebar already has {@link #MAX_LINES maximal number of lines}
+     */
+    public synchronized @NotNull VariableLine addVariableLine(final @NonNull TextModel<@NotNull Player> defaultText,
+                                                              final int value) {
+        return insertVariableLine(lines.length, defaultText, value);
+    }
+
+    /**
+     * Inserts a new {@link VariableLine variable line} at the given index of this sidebar.
+     *
+     * @param index index at which the line should be inserted
+     * @param defaultText text of the line displayed to the viewers for whom no text was set
+     * @param value initial value of the line
+     * @return inserted line
+     *
+     * @throws IndexOutOfBoundsException if the index is negative or is greater than the count of the lines
+     * @throws NullPointerException if {@code defaultText} is {@code null}
+     * @throws IllegalStateException if this sidebar already has {@link #MAX_LINES maximal number of lines}
+     */
+    public synchronized @NotNull VariableLine insertVariableLine(
+            final int index, final @NonNull TextModel<@NotNull Player> defaultText, final int value
+    ) {
+        checkInsertionIndex(index);
+
+        val line = new VariableLine(this, defaultText, value);
+        insert(index, line);
+
+        return line;
+    }
+
+    private void checkInsertionIndex(final int index) {
+        val length = lines.length;
+        Objects.checkIndex(index, length + 1);
+        if (length == MAX_LINES) throw new IllegalStateException(
+                "Sidebar cannot have more than " + MAX_LINES + " lines"
+        );
+    }
+
+    private void insert(final int index, final @NotNull Line line) {
+        val oldLines = lines;
+        val length = oldLines.length;
+        val newLines = new Line[length + 1];
+        System.arraycopy(oldLines, 0, newLines, 0, index);
+        newLines[index] = line;
+        System.arraycopy(oldLines, index, newLines, index + 1, length - index);
+        changeLines(newLines);
+    }
+
+    /**
+     * Moves the given line to the given index of this sidebar.
+     *
+     * @param line line to be moved
+     * @param index new index of the line
+     *
+     * @throws NullPointerException if {@code line} is {@code null}
+     * @throws IllegalArgumentException if the line is not present in this sidebar
+     * @throws IndexOutOfBoundsException if the index is negative or is not less than the count of the lines
+     */
+    public synchronized void moveLine(final @NonNull Line line, final int index) {
+        val oldLines = lines;
+        val length = oldLines.length;
+        Objects.checkIndex(index, length);
+        val oldIndex = indexOf(oldLines, line);
+        if (oldIndex == -1) throw new IllegalArgumentException("Line is not present in this sidebar");
+        if (oldIndex == index) return;
+
+        val newLines = oldLines.clone();
+        if (oldIndex < index) System.arraycopy(oldLines, oldIndex + 1, newLines, oldIndex, index - oldIndex);
+        else System.arraycopy(oldLines, index, newLines, index + 1, oldIndex - index);
+        newLines[index] = line;
+        changeLines(newLines);
+    }
+
+    /**
+     * Sets the lines of this sidebar in the given order.
+     * <p>
+     * The lines of this sidebar not present in the list get removed from it.
+     * This sends the minimal set of changes to the viewers, so i.e. sorting the lines
+     * whose values are all distinct does not cost anything.
+     *
+     * @param lines new lines of this sidebar
+     *
+     * @throws NullPointerException if {@code lines} is {@code null}
+     * @throws IllegalArgumentException if any of the lines is not present in this sidebar or is duplicated
+     */
+    public synchronized void setLines(final @NonNull List<@NotNull Line> lines) {
+        val newLines = lines.toArray(EMPTY_LINE_ARRAY);
+        val oldLines = this.lines;
+        val retained = Collections.newSetFromMap(new IdentityHashMap<Line, Boolean>(newLines.length));
+        for (val line : newLines) {
+            if (line == null || line.removed || indexOf(oldLines, line) == -1) throw new IllegalArgumentException(
+                    "Line " + line + " is not present in this sidebar"
+            );
+            if (!retained.add(line)) throw new IllegalArgumentException("Line " + line + " is duplicated");
+        }
+
+        for (val line : oldLines) if (!retained.contains(line)) detach(line);
+        changeLines(newLines);
+    }
+
+    /**
+     * Removes the given line from this sidebar.
+     *
+     * @param line line to be removed
+     * @return {@code true} if the line was removed and {@code false} if it was not present in this sidebar
+     *
+     * @throws NullPointerException if {@code line} is {@code null}
+     */
+    public synchronized boolean removeLine(final @NonNull Line line) {
+        val oldLines = lines;
+        val index = indexOf(oldLines, line);
+        if (index == -1) return false;
+
+        val length = oldLines.length;
+        val newLines = new Line[length - 1];
+        System.arraycopy(oldLines, 0, newLines, 0, index);
+        System.arraycopy(oldLines, index + 1, newLines, index, length - index - 1);
+        detach(line);
+        changeLines(newLines);
+
+        return true;
+    }
+
+    private static int indexOf(final @NotNull Line @NotNull [] lines, final @NotNull Line line) {
+        for (var index = 0; index < lines.length; index++) if (lines[index] == line) return index;
+
+        return -1;
+    }
+
+    private void detach(final @NotNull Line line) {
+        line.removed = true;
+        changedTexts.remove(line);
+        changedValues.remove(line);
+        changedViewerTexts.remove(line);
+        line.forgetAll();
+    }
+
+    private void changeLines(final @NotNull Line @NotNull [] newLines) {
+        lines = newLines;
+        linesChanged = true;
+        changeListener.accept(this);
+    }
+
+    private synchronized void updateTitle(final @NotNull TextModel<@NotNull Player> title) {
+        titleText = title;
+        titleVersion++;
+        titleChanged = true;
+        changeListener.accept(this);
+    }
+
+    private synchronized void updateText(final @NotNull Line line, final @NotNull TextModel<@NotNull Player> text) {
+        if (line.removed) return;
+
+        line.currentText = text;
+        line.textVersion++;
+        changedTexts.add(line);
+        changeListener.accept(this);
+    }
+
+    private synchronized void updateValue(final @NotNull Line line, final int value) {
+        if (line.removed || line.currentValue == value) return;
+
+        line.currentValue = value;
+        // the new value may be equal to the values of other lines so their slots may need to be changed
+        if (value == line.takenValue) changedValues.remove(line);
+        else changedValues.add(line);
+        changeListener.accept(this);
+    }
+
+    private synchronized void updateViewers(final @NotNull MutablePlayerSet.Update update) {
+        val action = update.action();
+        update.players().forEach(player -> applyViewerUpdate(action, player));
+        changeListener.accept(this);
+    }
+
+    /**
+     * Applies the update of the given viewer to the pending viewer changes
+     * so that the opposite updates of the same viewer made between the renders cancel each other.
+     *
+     * @param action action performed on the viewer
+     * @param viewer updated viewer
+     */
+    private void applyViewerUpdate(final MutablePlayerSet.Update.@NotNull Action action,
+                                   final @NotNull Player viewer) {
+        switch (action) {
+            case ADD: {
+                if (!removedViewers.remove(viewer)) addedViewers.add(viewer);
+                break;
+            }
+            case REMOVE: {
+                if (!addedViewers.remove(viewer)) removedViewers.add(viewer);
+                break;
+            }
+            default: throw new AssertionError("Unknown action: " + action);
+        }
+    }
+
+    private synchronized void setViewerText(final @NotNull Line line,
+                                            final @NotNull Map<@NotNull Player, @NotNull String> viewerTexts,
+                                            final @NotNull Player viewer, final @NotNull String text) {
+        if (line.removed || text.equals(viewerTexts.put(viewer, text))) return;
+
+        changedViewerTexts.computeIfAbsent(line, changedLine -> new HashSet<>()).add(viewer);
+        changeListener.accept(this);
+    }
+
+    private synchronized void resetViewerText(final @NotNull Line line,
+                                              final @NotNull Map<@NotNull Player, @NotNull String> viewerTexts,
+                                              final @NotNull Player viewer) {
+        if (viewerTexts.remove(viewer) == null || line.removed) return;
+
+        changedViewerTexts.computeIfAbsent(line, changedLine -> new HashSet<>()).add(viewer);
+        changeListener.accept(this);
+    }
+
+    /**
+     * Gets the number of the viewers of this sidebar.
+     *
+     * @return number of the viewers
+     *
+     * @apiNote this should be called from the thread modifying the viewers
+     */
+    int viewerCount() {
+        return viewers.size();
+    }
+
+    /**
+     * Checks whether this sidebar has changes which were not yet taken for rendering.
+     *
+     * @return {@code true} if this sidebar has pending changes and {@code false} otherwise
+     */
+    synchronized boolean hasChanges() {
+        return linesChanged || titleChanged || !changedTexts.isEmpty() || !changedValues.isEmpty()
+                || !changedViewerTexts.isEmpty() || !addedViewers.isEmpty() || !removedViewers.isEmpty();
+    }
+
+    /**
+     * Takes the snapshot of this sidebar's changes allowed by the scheduler
+     * and submits its render to the given executor unless this sidebar is already being rendered.
+     *
+     * @param executor executor to which the render should be submitted
+     * @param scheduler scheduler limiting the deferrable updates and measuring the render time
+     * @return {@code true} if the render was submitted and {@code false} if this sidebar is already being rendered
+     *
+     * @throws RejectedExecutionException if the executor rejects the render
+     */
+    boolean submitRender(final @NotNull Executor executor, final @NotNull SidebarUpdateScheduler scheduler) {
+        if (!rendering.compareAndSet(false, true)) return false;
+
+        val snapshot = takeSnapshot(scheduler.viewerShare());
+        try {
+            executor.execute(() -> {
+                val startNanos = System.nanoTime();
+                try {
+                    render(snapshot);
+                } finally {
+                    scheduler.recordRender(System.nanoTime() - startNanos);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            restoreSnapshot(snapshot);
+            rendering.set(false);
+            throw e;
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes the changes of this sidebar made since the last render.
+     * <p>
+     * The title, the modifications of the lines and the changes of the priority lines are always taken
+     * while the other changes are taken only while there is enough credit, the rest of them is left pending.
+     *
+     * @param viewerShare number of the deferrable updates which each viewer may receive during the current tick
+     * @return snapshot of the changes
+     */
+    private synchronized @NotNull Snapshot takeSnapshot(final double viewerShare) {
+        // the changes of the sidebar without viewers cost no packets
+        updateCredit = viewers.isEmpty() ? Double.POSITIVE_INFINITY
+                : Math.min(updateCredit + viewerShare, Math.max(viewerShare, 1));
+
+        val lines = this.lines;
+        val length = lines.length;
+        val texts = new TextModel[length];
+        val textVersions = new long[length];
+        val values = new int[length];
+        val changed = new boolean[length];
+        var linesChanged = this.linesChanged;
+        for (var index = 0; index < length; index++) {
+            val line = lines[index];
+            if (changedTexts.contains(line) && takeUpdate(line)) {
+                changedTexts.remove(line);
+                line.takenText = line.currentText;
+                changed[index] = true;
+            }
+            if (changedValues.contains(line) && takeUpdate(line)) {
+                changedValues.remove(line);
+                line.takenValue = line.currentValue;
+                linesChanged = true;
+            }
+            texts[index] = line.takenText;
+            textVersions[index] = line.textVersion;
+            values[index] = line.takenValue;
+        }
+
+        val variableLines = new ArrayList<Line>();
+        val variableViewers = new ArrayList<Player[]>();
+        val iterator = changedViewerTexts.entrySet().iterator();
+        while (iterator.hasNext()) {
+            val entry = iterator.next();
+            val line = entry.getKey();
+            if (!takeUpdate(line)) continue;
+
+            variableLines.add(line);
+            variableViewers.add(entry.getValue().toArray(Player[]::new));
+            iterator.remove();
+        }
+
+        val added = PlayerSet.of(addedViewers);
+        addedViewers.clear();
+        val removed = PlayerSet.of(removedViewers);
+        removedViewers.clear();
+        // this happens under the monitor so that the texts set after the viewers get added again are kept
+        if (!removed.isEmpty()) for (val line : lines) line.forget(removed);
+
+        val snapshot = new Snapshot(
+                lines, texts, textVersions, values, changed, linesChanged,
+                titleChanged ? titleText : null, titleVersion,
+                variableLines.toArray(EMPTY_LINE_ARRAY), variableViewers.toArray(Player[][]::new), added, removed
+        );
+        this.linesChanged = titleChanged = false;
+
+        return snapshot;
+    }
+
+    /**
+     * Checks whether a deferrable update of the given line may be taken consuming the credit if needed.
+     *
+     * @param line line whose update should be taken
+     * @return {@code true} if the update may be taken and {@code false} if it should be deferred
+     */
+    private boolean takeUpdate(final @NotNull Line line) {
+        if (line.priority) return true;
+        if (updateCredit < 1) return false;
+
+        updateCredit--;
+        return true;
+    }
+
+    /**
+     * Returns the changes of the snapshot which was not rendered to the pending ones.
+     *
+     * @param snapshot snapshot which was not rendered
+     */
+    private synchronized void restoreSnapshot(final @NotNull Snapshot snapshot) {
+        val lines = snapshot.lines;
+        for (var index = 0; index < lines.length; index++) {
+            val line = lines[index];
+            if (snapshot.changed[index] && !line.removed) changedTexts.add(line);
+        }
+        for (var index = 0; index < snapshot.variableLines.length; index++) {
+            val line = snapshot.variableLines[index];
+            if (!line.removed) changedViewerTexts.computeIfAbsent(line, changedLine -> new HashSet<>())
+                    .addAll(Arrays.asList(snapshot.variableViewers[index]));
+        }
+        // the snapshot's viewer changes precede the pending ones
+        val pendingAdded = new ArrayList<>(addedViewers);
+        val pendingRemoved = new ArrayList<>(removedViewers);
+        addedViewers.clear();
+        removedViewers.clear();
+        snapshot.addedViewers.forEach(player -> applyViewerUpdate(MutablePlayerSet.Update.Action.ADD, player));
+        snapshot.removedViewers.forEach(player -> applyViewerUpdate(MutablePlayerSet.Update.Action.REMOVE, player));
+        for (val player : pendingAdded) applyViewerUpdate(MutablePlayerSet.Update.Action.ADD, player);
+        for (val player : pendingRemoved) applyViewerUpdate(MutablePlayerSet.Update.Action.REMOVE, player);
+        linesChanged |= snapshot.linesChanged;
+        titleChanged |= snapshot.title != null;
+        changeListener.accept(this);
+    }
+
+    /**
+     * Renders the changes of this sidebar and sends them to its viewers.
+     *
+     * @param snapshot snapshot of the changes
+     */
+    @SuppressWarnings("unchecked") // generic array of text models
+    private void render(final @NotNull Snapshot snapshot) {
+        try {
+            val lines = snapshot.lines;
+            val texts = (TextModel<Player>[]) snapshot.texts;
+            for (var index = 0; index < lines.length; index++) {
+                val line = lines[index];
+                if (snapshot.changed[index] || line.renderedText == null) {
+                    // the same model may be published again to re-render it
+                    if (line.renderedText != null) renders.forget(line.renderedText);
+                    line.renderedText = texts[index];
+                }
+            }
+
+            // the players who stopped viewing the sidebar should not receive its changes
+            if (!snapshot.removedViewers.isEmpty()) removeViewers(snapshot.removedViewers);
+
+            val sentLines = Collections.newSetFromMap(new IdentityHashMap<Line, Boolean>());
+            if (snapshot.linesChanged) renderLines(lines, snapshot.values, sentLines);
+            if (!shown.isEmpty()) {
+                renderTexts(snapshot, sentLines);
+                renderViewerTexts(snapshot, sentLines);
+                if (snapshot.title != null) renderTitle(snapshot.title, snapshot.titleVersion);
+            } else if (snapshot.title != null) {
+                renders.forget(renderedTitle);
+                renderedTitle = snapshot.title;
+            }
+
+            // the players who started viewing the sidebar receive its full state instead of its changes
+            if (!snapshot.addedViewers.isEmpty()) addViewers(snapshot.addedViewers);
+        } catch (final RuntimeException e) {
+            // the viewers might have received only a part of the changes so they get the whole sidebar anew
+            reset(snapshot, e);
+            // the failure does not escape to the executor whose worker it would terminate
+            log.log(Level.WARNING, e, () -> "Could not render sidebar " + objective);
+        } finally {
+            rendering.set(false);
+        }
+    }
+
+    /**
+     * Resets the rendered state of this sidebar after a failed render
+     * so that the following render shows the whole sidebar anew to the players who should be viewing it.
+     *
+     * @param snapshot snapshot whose render has failed
+     * @param failure exception thrown by the render,
+     * the exceptions thrown while hiding this sidebar get suppressed by it
+     */
+    private void reset(final @NotNull Snapshot snapshot, final @NotNull RuntimeException failure) {
+        val expected = new HashSet<>(shownViewers);
+        snapshot.removedViewers.forEach(expected::remove);
+        snapshot.addedViewers.forEach(expected::add);
+
+        // only the shown viewers hold the state of this sidebar, including the removed ones whose hiding has failed,
+        // while the added ones which were not yet shown should not receive the removals of what they do not have
+        if (!shownViewers.isEmpty()) try {
+            val players = PlayerSet.of(shownViewers);
+            sink.removeObjective(players, objective);
+            for (var slot = teams.nextSetBit(0); slot != -1; slot = teams.nextSetBit(slot + 1)) {
+                sink.removeTeam(players, teamOf(slot));
+            }
+        } catch (final RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+
+        for (val line : slotLines) if (line != null) forgetRendered(line);
+        for (val line : snapshot.lines) forgetRendered(line);
+        Arrays.fill(slotLines, null);
+        Arrays.fill(slotValues, 0);
+        teams.clear();
+        renders.clear();
+        shownViewers.clear();
+        shown = PlayerSet.of(shownViewers);
+
+        requestShow(expected);
+    }
+
+    private static void forgetRendered(final @NotNull Line line) {
+        line.slot = LineSlotPlanner.NO_SLOT;
+        line.renderedText = null;
+    }
+
+    /**
+     * Requests the following render to show the whole sidebar to the given viewers
+     * as if they have just started viewing it.
+     *
+     * @param viewers players who were expected to view this sidebar after the last render
+     */
+    private synchronized void requestShow(final @NotNull Set<@NotNull Player> viewers) {
+        // the pending viewer changes were made after the expected viewers
+        val pendingAdded = new ArrayList<>(addedViewers);
+        val pendingRemoved = new ArrayList<>(removedViewers);
+        addedViewers.clear();
+        removedViewers.clear();
+        for (val player : viewers) applyViewerUpdate(MutablePlayerSet.Update.Action.ADD, player);
+        for (val player : pendingAdded) applyViewerUpdate(MutablePlayerSet.Update.Action.ADD, player);
+        for (val player : pendingRemoved) applyViewerUpdate(MutablePlayerSet.Update.Action.REMOVE, player);
+        linesChanged = titleChanged = true;
+        changeListener.accept(this);
+    }
+
+    /**
+     * Replaces the lines known to the viewers sending the minimal set of changes to them.
+     *
+     * @param newLines new lines of this sidebar in their order
+     * @param values values of the new lines
+     * @param sentLines set to which the lines whose texts were sent get added
+     */
+    private void renderLines(final @NotNull Line @NotNull [] newLines, final int @NotNull [] values,
+                             final @NotNull Set<@NotNull Line> sentLines) {
+        val length = newLines.length;
+        val currentSlots = new int[length];
+        for (var index = 0; index < length; index++) currentSlots[index] = newLines[index].slot;
+        val plannedSlots = LineSlotPlanner.plan(currentSlots, values, MAX_LINES);
+
+        val newSlotLines = new Line[MAX_LINES];
+        val newSlotValues = new int[MAX_LINES];
+        for (var index = 0; index < length; index++) {
+            val slot = plannedSlots[index];
+            val line = newLines[index];
+            line.slot = slot;
+            newSlotLines[slot] = line;
+            newSlotValues[slot] = values[index];
+        }
+
+        val receivers = shown;
+        val send = !receivers.isEmpty();
+        for (var slot = 0; slot < MAX_LINES; slot++) {
+            val oldLine = slotLines[slot];
+            if (oldLine != null && newSlotLines[oldLine.slot] != oldLine) {
+                // the line was removed
+                renders.forget(oldLine.renderedText);
+                oldLine.renderedText = null;
+                oldLine.slot = LineSlotPlanner.NO_SLOT;
+            }
+
+            val newLine = newSlotLines[slot];
+            if (newLine == null) {
+                // the team is kept so that it can be reused by the following lines
+                if (oldLine != null && send) sink.removeScore(receivers, objective, entryOf(slot));
+                continue;
+            }
+
+            if (newLine != oldLine) {
+                sentLines.add(newLine);
+                val team = teamOf(slot);
+                val entry = entryOf(slot);
+                if (teams.get(slot)) {
+                    if (send) newLine.render(renders, receivers, (rendered, group) -> sink.updateTeam(
+                            group, team, rendered
+                    ));
+                } else {
+                    teams.set(slot);
+                    if (send) newLine.render(renders, receivers, (rendered, group) -> sink.createTeam(
+                            group, team, entry, rendered
+                    ));
+                }
+            }
+
+            val value = newSlotValues[slot];
+            if ((oldLine == null || slotValues[slot] != value) && send) {
+                sink.updateScore(receivers, objective, entryOf(slot), value);
+            }
+            slotValues[slot] = value;
+        }
+
+        System.arraycopy(newSlotLines, 0, slotLines, 0, MAX_LINES);
+    }
+
+    private void renderTexts(final @NotNull Snapshot snapshot, final @NotNull Set<@NotNull Line> sentLines) {
+        val lines = snapshot.lines;
+        for (var index = 0; index < lines.length; index++) {
+            val line = lines[index];
+            if (!snapshot.changed[index] || sentLines.contains(line)) continue;
+
+            val groups = new HashMap<String, PlayerSet>();
+            line.renderDefault(renders, shown, groups::put);
+            // the newer text will be rendered by the following render
+            if (line.textVersion != snapshot.textVersions[index]) continue;
+
+            val team = teamOf(line.slot);
+            groups.forEach((rendered, receivers) -> sink.updateTeam(receivers, team, rendered));
+        }
+    }
+
+    private void renderViewerTexts(final @NotNull Snapshot snapshot, final @NotNull Set<@NotNull Line> sentLines) {
+        val lines = snapshot.variableLines;
+        for (var index = 0; index < lines.length; index++) {
+            val line = lines[index];
+            if (line.slot == LineSlotPlanner.NO_SLOT || sentLines.contains(line)) continue;
+
+            val groups = new HashMap<String, PlayerSetBuilder>();
+            for (val viewer : snapshot.variableViewers[index]) {
+                if (!shownViewers.contains(viewer)) continue;
+
+                var text = line.textOf(viewer);
+                if (text == null) text = renders.render(line.renderedText, viewer);
+                groups.computeIfAbsent(text, newText -> PlayerSet.builder()).add(viewer);
+            }
+
+            val team = teamOf(line.slot);
+            for (val group : groups.entrySet()) sink.updateTeam(group.getValue().build(), team, group.getKey());
+        }
+    }
+
+    private void renderTitle(final @NotNull TextModel<@NotNull Player> title, final long version) {
+        // the same model may be published again to re-render it
+        renders.forget(renderedTitle);
+        renderedTitle = title;
+
+        val groups = new HashMap<String, PlayerSet>();
+        renders.render(title, shown, groups::put);
+        // the newer title will be rendered by the following render
+        if (titleVersion != version) return;
+
+        groups.forEach((rendered, receivers) -> sink.updateObjective(receivers, objective, rendered));
+    }
+
+    private void addViewers(final @NotNull PlayerSet viewers) {
+        val added = PlayerSet.builder();
+        viewers.forEach(viewer -> {
+            if (shownViewers.add(viewer)) added.add(viewer);
+        });
+        val players = added.build();
+        if (players.isEmpty()) return;
+
+        shown = PlayerSet.of(shownViewers);
+        show(players);
+    }
+
+    private void removeViewers(final @NotNull PlayerSet viewers) {
+        val removed = PlayerSet.builder();
+        viewers.forEach(viewer -> {
+            if (shownViewers.contains(viewer)) removed.add(viewer);
+        });
+        val players = removed.build();
+        if (players.isEmpty()) return;
+
+        // the players stay shown until they get hidden so that a failed render hides them again
+        hide(players);
+        players.forEach(shownViewers::remove);
+        shown = PlayerSet.of(shownViewers);
+    }
+
+    private void show(final @NotNull PlayerSet players) {
+        renders.render(renderedTitle, players, (rendered, receivers) -> sink.createObjective(
+                receivers, objective, rendered
+        ));
+        for (var slot = teams.nextSetBit(0); slot != -1; slot = teams.nextSetBit(slot + 1)) {
+            val team = teamOf(slot);
+            val entry = entryOf(slot);
+            val line = slotLines[slot];
+            if (line == null) sink.createTeam(players, team, entry, "");
+            else {
+                line.render(renders, players, (rendered, receivers) -> sink.createTeam(
+                        receivers, team, entry, rendered
+                ));
+                sink.updateScore(players, objective, entry, slotValues[slot]);
+            }
+        }
+    }
+
+    private void hide(final @NotNull PlayerSet players) {
+        sink.removeObjective(players, objective);
+        for (var slot = teams.nextSetBit(0); slot != -1; slot = teams.nextSetBit(slot + 1)) {
+            sink.removeTeam(players, teamOf(slot));
+        }
+        renders.forget(players);
+    }
+
+    /**
+     * Gets the name of the team used by the given slot.
+     *
+     * @param slot slot whose team name should be got
+     * @return name of the slot's team
+     */
+    @NotNull String teamOf(final int slot) {
+        return objective + '.' + HEX_DIGITS[slot >>> 4 & 0xF] + HEX_DIGITS[slot & 0xF];
+    }
+
+    /**
+     * Gets the name of the scoreboard entry used by the given slot.
+     * <p>
+     * The names are invisible (consisting only of formatting codes) and their lexicographical order
+     * is the same as the order of the slots so that the lines having equal values
+     * are displayed in the order of their slots.
+     *
+     * @param slot slot whose entry name should be got
+     * @return name of the slot's entry
+     */
+    static @NotNull String entryOf(final int slot) {
+        return new String(new char[]{'§', HEX_DIGITS[slot >>> 4 & 0xF], '§', HEX_DIGITS[slot & 0xF]});
+    }
+
+    /**
+     * Line of {@link PacketSidebar packet sidebar}.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class Line implements MutableLine {
+
+        /**
+         * Processor of this line's text
+         */
+        @NotNull Flow.Processor<@NotNull TextModel<@NotNull Player>, @NotNull TextModel<@NotNull Player>> text;
+
+        /**
+         * Processor of this line's value
+         */
+        @NotNull IntProcessor value;
+
+        /**
+         * Current text of this line
+         */
+        @NonFinal @NotNull TextModel<@NotNull Player> currentText;
+
+        /**
+         * Version of the current text incremented on each its update
+         */
+        @NonFinal volatile long textVersion;
+
+        /**
+         * Current value of this line
+         */
+        @NonFinal int currentValue;
+
+        /**
+         * Text of this line taken by the last snapshot
+         */
+        @NonFinal @NotNull TextModel<@NotNull Player> takenText;
+
+        /**
+         * Value of this line taken by the last snapshot
+         */
+        @NonFinal int takenValue;
+
+        /**
+         * Marker indicating whether the changes of this line are never deferred
+         */
+        @NonFinal volatile boolean priority;
+
+        /**
+         * Marker indicating whether this line was removed from its sidebar
+         */
+        @NonFinal boolean removed;
+
+        /**
+         * Slot occupied by this line as it is known to the viewers
+         */
+        @NonFinal int slot;
+
+        /**
+         * Text of this line as it is known to the viewers
+         */
+        @NonFinal @Nullable TextModel<@NotNull Player> renderedText;
+
+        private Line(final @NotNull PacketSidebar sidebar,
+                     final @NotNull TextModel<@NotNull Player> text, final int value) {
+            slot = LineSlotPlanner.NO_SLOT;
+            currentText = takenText = text;
+            currentValue = takenValue = value;
+
+            this.text = FlowProcessors.createConcurrentProcessor();
+            this.text.subscribe(FlowSubscribers.<TextModel<Player>>createSubscriber(
+                    newText -> sidebar.updateText(this, newText)
+            ));
+            this.value = FlowProcessors.createIntProcessor();
+            this.value.subscribe(FlowSubscribers.createIntSubscriber(newValue -> sidebar.updateValue(this, newValue)));
+        }
+
+        /**
+         * Renders the text of this line known to the viewers for the given viewers.
+         *
+         * @param renders cache of the rendered texts
+         * @param receivers viewers for whom the text should be rendered
+         * @param groupConsumer consumer accepting each distinct rendered text and the viewers for whom it was rendered
+         */
+        void render(final @NotNull TextRenderCache renders, final @NotNull PlayerSet receivers,
+                    final @NotNull BiConsumer<@NotNull String, @NotNull PlayerSet> groupConsumer) {
+            renders.render(Objects.requireNonNull(renderedText), receivers, groupConsumer);
+        }
+
+        /**
+         * Renders the {@link #text() text} of this line known to the viewers for those of the given viewers who see it.
+         *
+         * @param renders cache of the rendered texts
+         * @param receivers viewers for whom the text should be rendered
+         * @param groupConsumer consumer accepting each distinct rendered text and the viewers for whom it was rendered
+         */
+        void renderDefault(final @NotNull TextRenderCache renders, final @NotNull PlayerSet receivers,
+                           final @NotNull BiConsumer<@NotNull String, @NotNull PlayerSet> groupConsumer) {
+            render(renders, receivers, groupConsumer);
+        }
+
+        /**
+         * Gets the text of this line set for the given viewer.
+         *
+         * @param viewer viewer whose text should be got
+         * @return text set for the viewer or {@code null} if the viewer sees the {@link #text() default one}
+         */
+        @Nullable String textOf(final @NotNull Player viewer) {
+            return null;
+        }
+
+        /**
+         * Forgets all state of this line specific to the given viewers.
+         *
+         * @param viewers viewers whose state should be forgotten
+         *
+         * @apiNote this should be called while holding the monitor of the sidebar
+         */
+        void forget(final @NotNull PlayerSet viewers) {}
+
+        /**
+         * Forgets all state of this line specific to any viewers.
+         */
+        void forgetAll() {}
+
+        /**
+         * Checks whether the changes of this line are never deferred under load.
+         *
+         * @return {@code true} if this line is a priority line and {@code false} otherwise
+         *
+         * @see SidebarUpdateScheduler scheduler deferring the changes of the other lines
+         */
+        public boolean isPriority() {
+            return priority;
+        }
+
+        /**
+         * Sets whether the changes of this line are never deferred under load.
+         *
+         * @param priority {@code true} if this line should be a priority line and {@code false} otherwise
+         *
+         * @see SidebarUpdateScheduler scheduler deferring the changes of the other lines
+         */
+        public void setPriority(final boolean priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * Gets the slot currently occupied by this line.
+         *
+         * @return slot occupied by this line
+         */
+        int slot() {
+            return slot;
+        }
+
+        @Override
+        public @NotNull Flow.Processor<@NotNull TextModel<@NotNull Player>, @NotNull TextModel<@NotNull Player>> text() {
+            return text;
+        }
+
+        @Override
+        public @NotNull IntProcessor value() {
+            return value;
+        }
+    }
+
+    /**
+     * {@link Line Line} whose text may be set individually for each viewer.
+     * <p>
+     * This allows a single sidebar to be a template shared by all of its viewers:
+     * its static lines and title are rendered and encoded once for everyone while only the texts
+     * set for the viewers of its variable lines are stored and sent individually.
+     * The viewers for whom no text was set see the {@link #text() default text} of the line.
+     *
+     * @apiNote the texts set for a viewer are forgotten once it stops viewing the sidebar,
+     * the texts set for the players who never view it are kept until they get {@link #reset(Player) reset}
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static final class VariableLine extends Line {
+
+        /**
+         * Sidebar to which this line belongs
+         */
+        @NotNull PacketSidebar sidebar;
+
+        /**
+         * Texts set for the viewers
+         */
+        @NotNull Map<@NotNull Player, @NotNull String> viewerTexts;
+
+        private VariableLine(final @NotNull PacketSidebar sidebar,
+                             final @NotNull TextModel<@NotNull Player> defaultText, final int value) {
+            super(sidebar, defaultText, value);
+
+            this.sidebar = sidebar;
+            // this gets read by the renders concurrently with the modifications
+            viewerTexts = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Sets the text of this line displayed to the given viewer.
+         *
+         * @param viewer viewer to whom the text should be displayed
+         * @param text text displayed to the viewer
+         *
+         * @throws NullPointerException if {@code viewer} is {@code null}
+         * @throws NullPointerException if {@code text} is {@code null}
+         */
+        public void set(final @NonNull Player viewer, final @NonNull String text) {
+            sidebar.setViewerText(this, viewerTexts, viewer, text);
+        }
+
+        /**
+         * Resets the text of this line displayed to the given viewer to the {@link #text() default one}.
+         *
+         * @param viewer viewer whose text should be reset
+         *
+         * @throws NullPointerException if {@code viewer} is {@code null}
+         */
+        public void reset(final @NonNull Player viewer) {
+            sidebar.resetViewerText(this, viewerTexts, viewer);
+        }
+
+        /**
+         * Gets the text of this line set for the given viewer.
+         *
+         * @param viewer viewer whose text should be got
+         * @return text set for the viewer or {@code null} if the viewer sees the {@link #text() default one}
+         *
+         * @throws NullPointerException if {@code viewer} is {@code null}
+         */
+        public @Nullable String get(final @NonNull Player viewer) {
+            return viewerTexts.get(viewer);
+        }
+
+        @Override
+        void render(final @NotNull TextRenderCache renders, final @NotNull PlayerSet receivers,
+                    final @NotNull BiConsumer<@NotNull String, @NotNull PlayerSet> groupConsumer) {
+            if (viewerTexts.isEmpty()) {
+                super.render(renders, receivers, groupConsumer);
+                return;
+            }
+
+            val defaultReceivers = PlayerSet.builder();
+            val groups = new HashMap<String, PlayerSetBuilder>();
+            receivers.forEach(receiver -> {
+                val text = viewerTexts.get(receiver);
+                if (text == null) defaultReceivers.add(receiver);
+                else groups.computeIfAbsent(text, newText -> PlayerSet.builder()).add(receiver);
+            });
+
+            super.render(renders, defaultReceivers.build(), groupConsumer);
+            for (val group : groups.entrySet()) groupConsumer.accept(group.getKey(), group.getValue().build());
+        }
+
+        @Override
+        void renderDefault(final @NotNull TextRenderCache renders, final @NotNull PlayerSet receivers,
+                           final @NotNull BiConsumer<@NotNull String, @NotNull PlayerSet> groupConsumer) {
+            if (viewerTexts.isEmpty()) {
+                super.render(renders, receivers, groupConsumer);
+                return;
+            }
+
+            val defaultReceivers = PlayerSet.builder();
+            receivers.forEach(receiver -> {
+                if (!viewerTexts.containsKey(receiver)) defaultReceivers.add(receiver);
+            });
+            super.render(renders, defaultReceivers.build(), groupConsumer);
+        }
+
+        @Override
+        @Nullable String textOf(final @NotNull Player viewer) {
+            return viewerTexts.get(viewer);
+        }
+
+        @Override
+        void forget(final @NotNull PlayerSet viewers) {
+            if (!viewerTexts.isEmpty()) viewers.forEach(viewerTexts::remove);
+        }
+
+        @Override
+        void forgetAll() {
+            viewerTexts.clear();
+        }
+    }
+
+    /**
+     * Changes of a sidebar made since its last render.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class Snapshot {
+
+        /**
+         * Lines of the sidebar in their order
+         */
+        @NotNull Line @NotNull [] lines;
+
+        /**
+         * Texts of the lines
+         */
+        @NotNull TextModel<?> @NotNull [] texts;
+
+        /**
+         * Versions of the lines' texts
+         */
+        long @NotNull [] textVersions;
+
+        /**
+         * Values of the lines
+         */
+        int @NotNull [] values;
+
+        /**
+         * Markers indicating whether the lines' texts were updated
+         */
+        boolean @NotNull [] changed;
+
+        /**
+         * Marker indicating whether the lines or their values were changed
+         */
+        boolean linesChanged;
+
+        /**
+         * Updated title or {@code null} if it was not updated
+         */
+        @Nullable TextModel<@NotNull Player> title;
+
+        /**
+         * Version of the title
+         */
+        long titleVersion;
+
+        /**
+         * Lines whose texts were changed for some viewers
+         */
+        @NotNull Line @NotNull [] variableLines;
+
+        /**
+         * Viewers for whom the texts of the corresponding variable lines were changed
+         */
+        @NotNull Player @NotNull [] @NotNull [] variableViewers;
+
+        /**
+         * Players who started viewing the sidebar
+         */
+        @NotNull PlayerSet addedViewers;
+
+        /**
+         * Players who stopped viewing the sidebar
+         */
+        @NotNull PlayerSet removedViewers;
+    }
+
+    /**
+     * {@link Lines Lines} backed by an array which never gets modified.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class SimpleLines implements Lines<@NotNull Line> {
+
+        /**
+         * Lines of the sidebar
+         */
+        @NotNull Line @NotNull [] lines;
+
+        private SimpleLines(final @NotNull Line @NotNull [] lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int count() {
+            return lines.length;
+        }
+
+        @Override
+        public @NotNull Line at(final int index) {
+            return lines[index];
+        }
+
+        @Override
+        public @NotNull Iterator<@NotNull Line> iterator() {
+            return new Iterator<>() {
+
+                /**
+                 * Index of the next line
+                 */
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < lines.length;
+                }
+
+                @Override
+                public @NotNull Line next() {
+                    if (index >= lines.length) throw new NoSuchElementException();
+
+                    return lines[index++];
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import com.comphenix.protocol.ProtocolLibrary;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import ru.divinecraft.zaraza.common.api.sidebar.SidebarManager;
+import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link SidebarManager Sidebar manager} whose sidebars exist only on the client side.
+ * <p>
+ * Unlike the Bukkit Scoreboard API this keeps no server-side scoreboard per player:
+ * each change of a sidebar is sent as the minimal set of scoreboard packets to its viewers.
+ * <p>
+ * The changes get rendered off the thread publishing them: each {@link #tick() tick}
+ * submits the render of every changed sidebar to this manager's executor so that the main thread
+ * only publishes the changes and never evaluates text models or encodes packets.
+ * The number of the sent updates is limited by the {@link SidebarUpdateScheduler scheduler}
+ * adapting to the server's load.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class PacketSidebarManager implements SidebarManager {
+
+    /**
+     * Prefix of the objectives' names used by this manager's sidebars
+     */
+    private static final @NotNull String OBJECTIVE_NAME_PREFIX = "zs";
+
+    /**
+     * Sink to which the sidebars send their packets
+     */
+    @NotNull ScoreboardPacketSink sink;
+
+    /**
+     * Executor on which the sidebars get rendered
+     */
+    @NotNull Executor executor;
+
+    /**
+     * Scheduler limiting the deferrable updates of the sidebars
+     */
+    @NotNull SidebarUpdateScheduler scheduler;
+
+    /**
+     * Counter used for generating unique objective names
+     */
+    @NotNull AtomicInteger objectiveCounter = new AtomicInteger();
+
+    /**
+     * Sidebars having changes which were not yet rendered
+     */
+    @NotNull Set<@NotNull PacketSidebar> changedSidebars = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new packet sidebar manager sending its packets via ProtocolLib.
+     *
+     * @return created sidebar manager
+     */
+    public static @NotNull PacketSidebarManager create() {
+        return create(PacketBroadcaster.create(ProtocolLibrary.getProtocolManager()));
+    }
+
+    /**
+     * Creates a new packet sidebar manager sending its packets via the given broadcaster
+     * and rendering the sidebars on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param broadcaster broadcaster used for sending the packets, it gets flushed on each {@link #tick() tick}
+     * @return created sidebar manager
+     *
+     * @throws NullPointerException if {@code broadcaster} is {@code null}
+     */
+    public static @NotNull PacketSidebarManager create(final @NonNull PacketBroadcaster broadcaster) {
+        return create(broadcaster, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new packet sidebar manager sending its packets via the given broadcaster.
+     *
+     * @param broadcaster broadcaster used for sending the packets, it gets flushed on each {@link #tick() tick}
+     * @param executor executor on which the sidebars should be rendered
+     * @return created sidebar manager
+     *
+     * @throws NullPointerException if {@code broadcaster} is {@code null}
+     * @throws NullPointerException if {@code executor} is {@code null}
+     */
+    public static @NotNull PacketSidebarManager create(final @NonNull PacketBroadcaster broadcaster,
+                                                       final @NonNull Executor executor) {
+        return create(broadcaster, executor, SidebarUpdateScheduler.create());
+    }
+
+    /**
+     * Creates a new packet sidebar manager sending its packets via the given broadcaster.
+     *
+     * @param broadcaster broadcaster used for sending the packets, it gets flushed on each {@link #tick() tick}
+     * @param executor executor on which the sidebars should be rendered
+     * @param scheduler scheduler limiting the deferrable updates of the sidebars
+     * @return created sidebar manager
+     *
+     * @throws NullPointerException if {@code broadcaster} is {@code null}
+     * @throws NullPointerException if {@code executor} is {@code null}
+     * @throws NullPointerException if {@code scheduler} is {@code null}
+     */
+    public static @NotNull PacketSidebarManager create(final @NonNull PacketBroadcaster broadcaster,
+                                                       final @NonNull Executor executor,
+                                                       final @NonNull SidebarUpdateScheduler scheduler) {
+        return create(new ProtocolScoreboardPacketSink(broadcaster), executor, scheduler);
+    }
+
+    /**
+     * Creates a new packet sidebar manager sending its packets to the given sink
+     * and rendering the sidebars on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param sink sink to which the packets should be sent
+     * @return created sidebar manager
+     *
+     * @throws NullPointerException if {@code sink} is {@code null}
+     */
+    public static @NotNull PacketSidebarManager create(final @NonNull ScoreboardPacketSink sink) {
+        return create(sink, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new packet sidebar manager sending its packets to the given sink.
+     *
+     * @param sink sink to which the packets should be sent, it should be safe for use from multiple threads
+     * @param executor executor on which the sidebars should be rendered
+     * @return created sidebar manager
+     *
+     * @throws NullPointerException if {@code sink} is {@code null}
+     * @throws NullPointerException if {@code executor} is {@code null}
+     */
+    public static @NotNull PacketSidebarManager create(final @NonNull ScoreboardPacketSink sink,
+                                                       final @NonNull Executor executor) {
+        return create(sink, executor, SidebarUpdateScheduler.create());
+    }
+
+    /**
+     * Creates a new packet sidebar manager sending its packets to the given sink.
+     *
+     * @param sink sink to which the packets should be sent, it should be safe for use from multiple threads
+     * @param executor executor on which the sidebars should be rendered
+     * @param scheduler scheduler limiting the deferrable updates of the sidebars
+     * @return created sidebar manager
+     *
+     * @throws NullPointerException if {@code sink} is {@code null}
+     * @throws NullPointerException if {@code executor} is {@code null}
+     * @throws NullPointerException if {@code scheduler} is {@code null}
+     */
+    public static @NotNull PacketSidebarManager create(final @NonNull ScoreboardPacketSink sink,
+                                                       final @NonNull Executor executor,
+                                                       final @NonNull SidebarUpdateScheduler scheduler) {
+        return new PacketSidebarManager(sink, executor, scheduler);
+    }
+
+    /**
+     * Performs the work of this manager scheduled for the end of the tick.
+     * <p>
+     * This submits the renders of the sidebars changed since the previous tick
+     * and flushes the packets of the completed renders.
+     * A sidebar whose previous render is still in progress or whose changes were deferred by the scheduler
+     * gets rendered on one of the following ticks with all of its changes made until then,
+     * the same happens to a sidebar whose render was rejected by the executor.
+     * <p>
+     * This should be called once per server tick, i.e. by a repeating task.
+     */
+    public void tick() {
+        val sidebars = new ArrayList<PacketSidebar>();
+        var viewers = 0;
+        val iterator = changedSidebars.iterator();
+        while (iterator.hasNext()) {
+            val sidebar = iterator.next();
+            iterator.remove();
+            sidebars.add(sidebar);
+            viewers += sidebar.viewerCount();
+        }
+        scheduler.startTick(viewers);
+
+        val deferredSidebars = new ArrayList<PacketSidebar>();
+        try {
+            for (val sidebar : sidebars) {
+                final boolean submitted;
+                try {
+                    submitted = sidebar.submitRender(executor, scheduler);
+                } catch (final RejectedExecutionException e) {
+                    // the sidebar has restored its changes so it gets rendered once the executor accepts it
+                    deferredSidebars.add(sidebar);
+                    continue;
+                }
+                if (!submitted || sidebar.hasChanges()) deferredSidebars.add(sidebar);
+            }
+        } finally {
+            changedSidebars.addAll(deferredSidebars);
+            sink.flush();
+        }
+    }
+
+    @Override
+    public @NotNull PacketSidebar createSidebar(final @NonNull TextModel<@NotNull Player> title) {
+        return new PacketSidebar(
+                sink, OBJECTIVE_NAME_PREFIX + Integer.toUnsignedString(objectiveCounter.getAndIncrement(), 36), title,
+                changedSidebars::add
+        );
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import com.comphenix.packetwrapper.WrapperPlayServerScoreboardDisplayObjective;
+import com.comphenix.packetwrapper.WrapperPlayServerScoreboardObjective;
+import com.comphenix.packetwrapper.WrapperPlayServerScoreboardScore;
+import com.comphenix.packetwrapper.WrapperPlayServerScoreboardTeam;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.wrappers.EnumWrappers;
+import com.comphenix.protocol.wrappers.WrappedChatComponent;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.val;
+import org.bukkit.ChatColor;
+import org.jetbrains.annotations.NotNull;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+
+import java.util.List;
+
+/**
+ * {@link ScoreboardPacketSink Scoreboard packet sink} sending the packets via {@link PacketBroadcaster}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class ProtocolScoreboardPacketSink implements ScoreboardPacketSink {
+
+    /**
+     * Display position of the sidebar.
+     */
+    private static final int SIDEBAR_POSITION = 1;
+
+    /**
+     * Value of the team option making the name tags and the collisions behave as usual.
+     */
+    private static final String TEAM_OPTION_ALWAYS = "always";
+
+    /**
+     * Empty text component.
+     */
+    private static final WrappedChatComponent EMPTY_COMPONENT = WrappedChatComponent.fromText("");
+
+    /**
+     * Broadcaster used for sending the packets
+     */
+    @NotNull PacketBroadcaster broadcaster;
+
+    @Override
+    public void createObjective(final @NotNull PlayerSet receivers,
+                                final @NotNull String objective, final @NotNull String title) {
+        send(receivers, objectivePacket(objective, WrapperPlayServerScoreboardObjective.Mode.ADD_OBJECTIVE, title));
+
+        val display = new WrapperPlayServerScoreboardDisplayObjective();
+        display.setPosition(SIDEBAR_POSITION);
+        display.setScoreName(objective);
+        send(receivers, display.getHandle());
+    }
+
+    @Override
+    public void updateObjective(final @NotNull PlayerSet receivers,
+                                final @NotNull String objective, final @NotNull String title) {
+        send(receivers, objectivePacket(objective, WrapperPlayServerScoreboardObjective.Mode.UPDATE_VALUE, title));
+    }
+
+    @Override
+    public void removeObjective(final @NotNull PlayerSet receivers, final @NotNull String objective) {
+        send(receivers, objectivePacket(objective, WrapperPlayServerScoreboardObjective.Mode.REMOVE_OBJECTIVE, ""));
+    }
+
+    @Override
+    public void createTeam(final @NotNull PlayerSet receivers, final @NotNull String team,
+                           final @NotNull String entry, final @NotNull String prefix) {
+        val packet = teamPacket(team, WrapperPlayServerScoreboardTeam.Mode.TEAM_CREATED, prefix);
+        packet.setPlayers(List.of(entry));
+
+        send(receivers, packet.getHandle());
+    }
+
+    @Override
+    public void updateTeam(final @NotNull PlayerSet receivers,
+                           final @NotNull String team, final @NotNull String prefix) {
+        send(receivers, teamPacket(team, WrapperPlayServerScoreboardTeam.Mode.TEAM_UPDATED, prefix).getHandle());
+    }
+
+    @Override
+    public void removeTeam(final @NotNull PlayerSet receivers, final @NotNull String team) {
+        val packet = new WrapperPlayServerScoreboardTeam();
+        packet.setName(team);
+        packet.setMode(WrapperPlayServerScoreboardTeam.Mode.TEAM_REMOVED);
+
+        send(receivers, packet.getHandle());
+    }
+
+    @Override
+    public void updateScore(final @NotNull PlayerSet receivers, final @NotNull String objective,
+                            final @NotNull String entry, final int score) {
+        val packet = new WrapperPlayServerScoreboardScore();
+        packet.setObjectiveName(objective);
+        packet.setScoreName(entry);
+        packet.setValue(score);
+        packet.setScoreboardAction(EnumWrappers.ScoreboardAction.CHANGE);
+
+        send(receivers, packet.getHandle());
+    }
+
+    @Override
+    public void removeScore(final @NotNull PlayerSet receivers,
+                            final @NotNull String objective, final @NotNull String entry) {
+        val packet = new WrapperPlayServerScoreboardScore();
+        packet.setObjectiveName(objective);
+        packet.setScoreName(entry);
+        packet.setScoreboardAction(EnumWrappers.ScoreboardAction.REMOVE);
+
+        send(receivers, packet.getHandle());
+    }
+
+    private static @NotNull PacketContainer objectivePacket(final @NotNull String objective,
+                                                            final int mode, final @NotNull String title) {
+        val packet = new WrapperPlayServerScoreboardObjective();
+        packet.setName(objective);
+        packet.setMode(mode);
+        packet.setDisplayName(WrappedChatComponent.fromText(title));
+        packet.setHealthDisplay(WrapperPlayServerScoreboardObjective.HealthDisplay.INTEGER);
+
+        return packet.getHandle();
+    }
+
+    private static @NotNull WrapperPlayServerScoreboardTeam teamPacket(final @NotNull String team,
+                                                                      final int mode,
+                                                                      final @NotNull String prefix) {
+        val packet = new WrapperPlayServerScoreboardTeam();
+        packet.setName(team);
+        packet.setMode(mode);
+        packet.setDisplayName(WrappedChatComponent.fromText(team));
+        packet.setPrefix(WrappedChatComponent.fromText(prefix));
+        packet.setSuffix(EMPTY_COMPONENT);
+        packet.setNameTagVisibility(TEAM_OPTION_ALWAYS);
+        packet.setCollisionRule(TEAM_OPTION_ALWAYS);
+        packet.setColor(ChatColor.RESET);
+
+        return packet;
+    }
+
+    private void send(final @NotNull PlayerSet receivers, final @NotNull PacketContainer packet) {
+        broadcaster.broadcast(receivers, packet);
+    }
+
+    @Override
+    public void flush() {
+        broadcaster.flush();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import org.jetbrains.annotations.NotNull;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+
+/**
+ * Receiver of the client-side scoreboard changes performed by {@link PacketSidebar packet sidebars}.
+ * <p>
+ * Each method corresponds to a single scoreboard packet (or a pair of them in case of objective creation)
+ * sent to all of the given receivers.
+ *
+ * @apiNote the methods get called from the threads rendering the sidebars,
+ * possibly concurrently for different sidebars
+ */
+public interface ScoreboardPacketSink {
+
+    /**
+     * Creates the objective and displays it in the sidebar slot.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param objective name of the objective
+     * @param title title of the objective
+     */
+    void createObjective(@NotNull PlayerSet receivers, @NotNull String objective, @NotNull String title);
+
+    /**
+     * Updates the title of the objective.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param objective name of the objective
+     * @param title new title of the objective
+     */
+    void updateObjective(@NotNull PlayerSet receivers, @NotNull String objective, @NotNull String title);
+
+    /**
+     * Removes the objective.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param objective name of the objective
+     */
+    void removeObjective(@NotNull PlayerSet receivers, @NotNull String objective);
+
+    /**
+     * Creates the team containing the single entry.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param team name of the team
+     * @param entry the only entry of the team
+     * @param prefix prefix of the team
+     */
+    void createTeam(@NotNull PlayerSet receivers, @NotNull String team,
+                    @NotNull String entry, @NotNull String prefix);
+
+    /**
+     * Updates the prefix of the team.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param team name of the team
+     * @param prefix new prefix of the team
+     */
+    void updateTeam(@NotNull PlayerSet receivers, @NotNull String team, @NotNull String prefix);
+
+    /**
+     * Removes the team.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param team name of the team
+     */
+    void removeTeam(@NotNull PlayerSet receivers, @NotNull String team);
+
+    /**
+     * Sets the score of the entry.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param objective name of the objective
+     * @param entry entry whose score gets set
+     * @param score new score of the entry
+     */
+    void updateScore(@NotNull PlayerSet receivers, @NotNull String objective, @NotNull String entry, int score);
+
+    /**
+     * Removes the score of the entry.
+     *
+     * @param receivers players to whom the change should be sent
+     * @param objective name of the objective
+     * @param entry entry whose score gets removed
+     */
+    void removeScore(@NotNull PlayerSet receivers, @NotNull String objective, @NotNull String entry);
+
+    /**
+     * Flushes the changes sent since the last flush.
+     * <p>
+     * This gets called once per tick so that the sinks may batch the packets.
+     */
+    default void flush() {}
+}
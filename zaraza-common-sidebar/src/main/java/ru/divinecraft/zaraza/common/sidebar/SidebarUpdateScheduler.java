@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Scheduler limiting the sidebar updates which may be deferred under load.
+ * <p>
+ * Each tick has a budget of packets and of render time which shrinks linearly from its maximum
+ * to its minimum as the MSPT (milliseconds per tick) grows from {@link #RELAXED_MSPT} to {@link #OVERLOADED_MSPT},
+ * the packet budget also shrinks proportionally if the previous tick's renders took longer than their budget.
+ * The packet budget is shared fairly between the viewers of the changed sidebars so that each viewer
+ * receives at most the same number of deferrable updates of a sidebar per tick.
+ * <p>
+ * The titles, the modifications of the lines and the changes of {@link PacketSidebar.Line#isPriority() priority lines}
+ * are sent immediately while the changes of the other lines exceeding the budget are deferred
+ * to the following ticks, only their latest state gets sent.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public final class SidebarUpdateScheduler {
+
+    /**
+     * MSPT up to which the budget is maximal.
+     */
+    public static final double RELAXED_MSPT = 50;
+
+    /**
+     * MSPT starting from which the budget is minimal.
+     */
+    public static final double OVERLOADED_MSPT = 100;
+
+    /**
+     * Default maximal number of deferrable packets per tick.
+     */
+    public static final int DEFAULT_MAX_PACKETS = 8192;
+
+    /**
+     * Default minimal number of deferrable packets per tick.
+     */
+    public static final int DEFAULT_MIN_PACKETS = 256;
+
+    /**
+     * Default maximal render time per tick in milliseconds.
+     */
+    public static final long DEFAULT_MAX_RENDER_MILLIS = 10;
+
+    /**
+     * Weight of the newest tick duration in the measured MSPT
+     */
+    private static final double MSPT_SMOOTHING = 0.2;
+
+    /**
+     * Source of the current MSPT or {@code null} if it should be measured as the duration between the ticks
+     */
+    @Nullable DoubleSupplier msptSource;
+
+    /**
+     * Maximal number of deferrable packets per tick
+     */
+    int maxPackets;
+
+    /**
+     * Minimal number of deferrable packets per tick
+     */
+    int minPackets;
+
+    /**
+     * Maximal render time per tick in nanoseconds
+     */
+    long maxRenderNanos;
+
+    /**
+     * Render time spent since the start of the current tick in nanoseconds
+     */
+    @NotNull LongAdder renderNanos;
+
+    /**
+     * Marker indicating whether any tick was started
+     */
+    @NonFinal boolean started;
+
+    /**
+     * Start time of the current tick in nanoseconds
+     */
+    @NonFinal long tickStartNanos;
+
+    /**
+     * MSPT measured as the duration between the ticks
+     */
+    @NonFinal double measuredMspt;
+
+    /**
+     * Number of the deferrable updates of a sidebar which each viewer may receive during the current tick
+     */
+    @NonFinal double viewerShare;
+
+    private SidebarUpdateScheduler(final @Nullable DoubleSupplier msptSource, final int maxPackets,
+                                   final int minPackets, final long maxRenderNanos) {
+        this.msptSource = msptSource;
+        this.maxPackets = maxPackets;
+        this.minPackets = minPackets;
+        this.maxRenderNanos = maxRenderNanos;
+        renderNanos = new LongAdder();
+        measuredMspt = RELAXED_MSPT;
+        viewerShare = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Creates a new sidebar update scheduler with the default budget
+     * measuring the MSPT as the duration between its ticks.
+     *
+     * @return created scheduler
+     */
+    public static @NotNull SidebarUpdateScheduler create() {
+        return new SidebarUpdateScheduler(
+                null, DEFAULT_MAX_PACKETS, DEFAULT_MIN_PACKETS, TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_RENDER_MILLIS)
+        );
+    }
+
+    /**
+     * Creates a new sidebar update scheduler with the default budget.
+     *
+     * @param msptSource source of the current MSPT, i.e. the server's average tick time
+     * @return created scheduler
+     *
+     * @throws NullPointerException if {@code msptSource} is {@code null}
+     */
+    public static @NotNull SidebarUpdateScheduler create(final @NonNull DoubleSupplier msptSource) {
+        return create(
+                msptSource, DEFAULT_MAX_PACKETS, DEFAULT_MIN_PACKETS, DEFAULT_MAX_RENDER_MILLIS, TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Creates a new sidebar update scheduler.
+     *
+     * @param msptSource source of the current MSPT, i.e. the server's average tick time
+     * @param maxPackets maximal number of deferrable packets per tick
+     * @param minPackets minimal number of deferrable packets per tick
+     * @param maxRenderTime maximal render time per tick
+     * @param unit unit of {@code maxRenderTime}
+     * @return created scheduler
+     *
+     * @throws NullPointerException if {@code msptSource} is {@code null}
+     * @throws NullPointerException if {@code unit} is {@code null}
+     * @throws IllegalArgumentException if {@code minPackets} is not positive or is greater than {@code maxPackets}
+     * @throws IllegalArgumentException if {@code maxRenderTime} is not positive
+     */
+    public static @NotNull SidebarUpdateScheduler create(final @NonNull DoubleSupplier msptSource,
+                                                         final int maxPackets, final int minPackets,
+                                                         final long maxRenderTime, final @NonNull TimeUnit unit) {
+        if (minPackets <= 0 || minPackets > maxPackets) throw new IllegalArgumentException(
+                "minPackets should be positive and not greater than maxPackets"
+        );
+        if (maxRenderTime <= 0) throw new IllegalArgumentException("maxRenderTime should be positive");
+
+        return new SidebarUpdateScheduler(msptSource, maxPackets, minPackets, unit.toNanos(maxRenderTime));
+    }
+
+    /**
+     * Gets the current MSPT known to this scheduler.
+     *
+     * @return current MSPT
+     */
+    public double mspt() {
+        val msptSource = this.msptSource;
+
+        return msptSource == null ? measuredMspt : msptSource.getAsDouble();
+    }
+
+    /**
+     * Starts a new tick computing its budget.
+     *
+     * @param viewers total number of the viewers of the changed sidebars
+     */
+    void startTick(final int viewers) {
+        val now = System.nanoTime();
+        if (msptSource == null && started) measuredMspt += (
+                (now - tickStartNanos) / (double) TimeUnit.MILLISECONDS.toNanos(1) - measuredMspt
+        ) * MSPT_SMOOTHING;
+        started = true;
+        tickStartNanos = now;
+
+        val load = Math.min(Math.max((mspt() - RELAXED_MSPT) / (OVERLOADED_MSPT - RELAXED_MSPT), 0), 1);
+        val budgetFraction = 1 - (1 - minPackets / (double) maxPackets) * load;
+        var packets = maxPackets * budgetFraction;
+
+        val renderBudget = maxRenderNanos * budgetFraction;
+        val spentRenderNanos = renderNanos.sumThenReset();
+        if (spentRenderNanos > renderBudget) packets = Math.max(packets * renderBudget / spentRenderNanos, minPackets);
+
+        viewerShare = packets / Math.max(viewers, 1);
+    }
+
+    /**
+     * Gets the number of the deferrable updates of a sidebar which each viewer may receive during the current tick.
+     *
+     * @return each viewer's share of the current tick's budget
+     */
+    double viewerShare() {
+        return viewerShare;
+    }
+
+    /**
+     * Records the time spent rendering a sidebar.
+     *
+     * @param nanos render time in nanoseconds
+     */
+    void recordRender(final long nanos) {
+        renderNanos.add(nanos);
+    }
+}
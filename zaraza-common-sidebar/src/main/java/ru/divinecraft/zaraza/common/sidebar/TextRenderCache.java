@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+import ru.divinecraft.zaraza.common.api.player.PlayerSetBuilder;
+import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache of {@link TextModel text models} rendered for the players.
+ * <p>
+ * Rendered text is cached per model and player, {@link TextModel#isDynamic() static models}
+ * are rendered only once for all players. Rendering for multiple players groups them by the rendered text
+ * so that each distinct text can be encoded and sent only once.
+ *
+ * @apiNote this class is not thread-safe
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+final class TextRenderCache {
+
+    /**
+     * Rendered texts of the models by the models' identities
+     */
+    @NotNull Map<@NotNull TextModel<@NotNull Player>, @NotNull Renders> renders = new IdentityHashMap<>();
+
+    /**
+     * Renders the given model for the given players.
+     *
+     * @param model model to be rendered
+     * @param receivers players for whom the model should be rendered
+     * @param groupConsumer consumer accepting each distinct rendered text and the players for whom it was rendered
+     */
+    void render(final @NotNull TextModel<@NotNull Player> model, final @NotNull PlayerSet receivers,
+                final @NotNull BiConsumer<@NotNull String, @NotNull PlayerSet> groupConsumer) {
+        if (receivers.isEmpty()) return;
+
+        val modelRenders = renders.computeIfAbsent(model, Renders::new);
+        if (!model.isDynamic()) {
+            groupConsumer.accept(modelRenders.staticText(receivers), receivers);
+            return;
+        }
+
+        // the first pass renders the texts and checks the most common case of a single group
+        // which does not require building new player sets
+        val iterator = receivers.unmodifiableIterator();
+        val firstText = modelRenders.textFor(iterator.next());
+        var singleGroup = true;
+        while (iterator.hasNext()) if (!firstText.equals(modelRenders.textFor(iterator.next()))) singleGroup = false;
+        if (singleGroup) {
+            groupConsumer.accept(firstText, receivers);
+            return;
+        }
+
+        val groups = new HashMap<String, PlayerSetBuilder>();
+        receivers.forEach(receiver -> groups.computeIfAbsent(
+                modelRenders.textFor(receiver), text -> PlayerSet.builder()
+        ).add(receiver));
+        for (val group : groups.entrySet()) groupConsumer.accept(group.getKey(), group.getValue().build());
+    }
+
+    /**
+     * Renders the given model for the given player.
+     *
+     * @param model model to be rendered
+     * @param receiver player for whom the model should be rendered
+     * @return rendered text
+     */
+    @NotNull String render(final @NotNull TextModel<@NotNull Player> model, final @NotNull Player receiver) {
+        val modelRenders = renders.computeIfAbsent(model, Renders::new);
+
+        return model.isDynamic() ? modelRenders.textFor(receiver) : modelRenders.staticText(PlayerSet.of(receiver));
+    }
+
+    /**
+     * Forgets all rendered texts of the given model.
+     *
+     * @param model model whose rendered texts should be forgotten
+     */
+    void forget(final @NotNull TextModel<@NotNull Player> model) {
+        renders.remove(model);
+    }
+
+    /**
+     * Forgets all texts rendered for the given players.
+     *
+     * @param players players for whom rendered texts should be forgotten
+     */
+    void forget(final @NotNull PlayerSet players) {
+        for (val modelRenders : renders.values()) {
+            val playerTexts = modelRenders.playerTexts;
+            if (playerTexts != null) players.forEach(playerTexts::remove);
+        }
+    }
+
+    /**
+     * Forgets all rendered texts.
+     */
+    void clear() {
+        renders.clear();
+    }
+
+    /**
+     * Rendered texts of a single model.
+     */
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class Renders {
+
+        /**
+         * Rendered model
+         */
+        @NotNull TextModel<@NotNull Player> model;
+
+        /**
+         * Text of the static model or {@code null} if it was not rendered yet
+         */
+        @NonFinal @Nullable String staticText;
+
+        /**
+         * Texts of the dynamic model by the players or {@code null} if none were rendered yet
+         */
+        @NonFinal @Nullable Map<@NotNull Player, @NotNull String> playerTexts;
+
+        private Renders(final @NotNull TextModel<@NotNull Player> model) {
+            this.model = model;
+        }
+
+        private @NotNull String staticText(final @NotNull PlayerSet receivers) {
+            var text = staticText;
+            if (text == null) staticText = text = model.getText(receivers.unmodifiableIterator().next());
+
+            return text;
+        }
+
+        private @NotNull String textFor(final @NotNull Player receiver) {
+            var texts = playerTexts;
+            if (texts == null) playerTexts = texts = new HashMap<>();
+
+            return texts.computeIfAbsent(receiver, model::getText);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineSlotPlannerTest {
+
+    private static final int NO = LineSlotPlanner.NO_SLOT;
+
+    private static void assertValid(final int[] values, final int[] slots, final int slotCount) {
+        assertEquals(values.length, Arrays.stream(slots).distinct().count(), "slots should be distinct");
+        for (var index = 0; index < slots.length; index++) {
+            assertTrue(slots[index] >= 0 && slots[index] < slotCount);
+            for (var next = index + 1; next < slots.length; next++) if (values[index] == values[next]) assertTrue(
+                    slots[index] < slots[next], "lines having equal values should occupy increasing slots"
+            );
+        }
+    }
+
+    @Test
+    void plan_keepsConsistentSlots() {
+        val currentSlots = new int[]{40, 10, 20, 30};
+        val values = new int[]{1, 2, 3, 4};
+
+        assertArrayEquals(currentSlots, LineSlotPlanner.plan(currentSlots, values, 256));
+    }
+
+    @Test
+    void plan_movesOnlyLinesBreakingTheOrder() {
+        // the line moved to the beginning is the only one which has to change its slot
+        val values = new int[]{0, 0, 0, 0};
+        val slots = LineSlotPlanner.plan(new int[]{40, 10, 20, 30}, values, 256);
+
+        assertValid(values, slots, 256);
+        assertArrayEquals(new int[]{10, 20, 30}, Arrays.copyOfRange(slots, 1, 4));
+    }
+
+    @Test
+    void plan_insertsBetweenNeighbours() {
+        val values = new int[]{0, 0, 0};
+        val slots = LineSlotPlanner.plan(new int[]{16, NO, 48}, values, 256);
+
+        assertArrayEquals(new int[]{16, 32, 48}, slots);
+    }
+
+    @Test
+    void plan_relayoutsGroupWithoutFreeSlots() {
+        val values = new int[]{0, 0, 0};
+        val slots = LineSlotPlanner.plan(new int[]{0, NO, 1}, values, 4);
+
+        assertValid(values, slots, 4);
+    }
+
+    @Test
+    void plan_rejectsTooManyLines() {
+        assertThrows(IllegalArgumentException.class, () -> LineSlotPlanner.plan(new int[3], new int[3], 2));
+    }
+
+    @Test
+    void plan_randomEditsStayValid() {
+        val random = new Random(45);
+        var slots = new int[0];
+        for (var iteration = 0; iteration < 2_000; iteration++) {
+            val length = random.nextInt(20);
+            val newValues = new int[length];
+            val currentSlots = new int[length];
+            val shuffledOld = slots.length == 0 ? new int[0] : random.ints(0, slots.length)
+                    .distinct().limit(Math.min(length, slots.length)).toArray();
+            for (var index = 0; index < length; index++) {
+                newValues[index] = random.nextInt(3);
+                currentSlots[index] = index < shuffledOld.length ? slots[shuffledOld[index]] : NO;
+            }
+
+            slots = LineSlotPlanner.plan(currentSlots, newValues, 32);
+            assertValid(newValues, slots, 32);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.injector.netty.WirePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PacketBroadcasterTest {
+
+    private static @NotNull Player playerMock() {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(UUID.randomUUID());
+
+        return mock;
+    }
+
+    private static @NotNull Channel channelMock() {
+        val mock = mock(Channel.class);
+        when(mock.isActive()).thenReturn(true);
+
+        return mock;
+    }
+
+    @Test
+    void broadcast_writesSharedBufferAndFlushesOnce() throws Exception {
+        val john = playerMock();
+        val jack = playerMock();
+        val bob = playerMock();
+        val johnChannel = channelMock();
+        val jackChannel = channelMock();
+        val channels = Map.of(john, johnChannel, jack, jackChannel);
+
+        val protocolManager = mock(ProtocolManager.class);
+        val broadcaster = PacketBroadcaster.create(protocolManager, channels::get);
+        val packet = new WirePacket(300, new byte[]{1, 2, 3});
+
+        broadcaster.broadcast(PlayerSet.of(john, jack, bob), packet);
+        broadcaster.broadcast(PlayerSet.of(john), packet);
+
+        val buffer = ArgumentCaptor.forClass(ByteBuf.class);
+        verify(johnChannel, times(2)).write(buffer.capture(), any());
+        verify(jackChannel).write(any(), any());
+        // 2 bytes of the packet ID followed by 3 bytes of the packet
+        assertEquals(5, buffer.getValue().readableBytes());
+        verify(protocolManager).sendWirePacket(bob, packet);
+        verify(johnChannel, never()).flush();
+        verify(jackChannel, never()).flush();
+
+        broadcaster.flush();
+        broadcaster.flush();
+        verify(johnChannel).flush();
+        verify(jackChannel).flush();
+    }
+
+    @Test
+    void broadcast_skipsFailingReceivers() throws Exception {
+        val john = playerMock();
+        val jack = playerMock();
+        val bob = playerMock();
+        val jackChannel = channelMock();
+        val bobChannel = channelMock();
+        doThrow(new IllegalStateException("channel is closed")).when(bobChannel).write(any(), any());
+
+        val protocolManager = mock(ProtocolManager.class);
+        val packet = new WirePacket(1, new byte[]{1});
+        doThrow(new InvocationTargetException(new IOException())).when(protocolManager).sendWirePacket(john, packet);
+        PacketBroadcaster.create(protocolManager, Map.of(jack, jackChannel, bob, bobChannel)::get)
+                .broadcast(PlayerSet.of(john, jack, bob), packet);
+
+        verify(protocolManager).sendWirePacket(john, packet);
+        verify(jackChannel).write(any(), any());
+        verify(bobChannel).write(any(), any());
+    }
+
+    @Test
+    void broadcast_emptyReceiversSendNothing() {
+        val protocolManager = mock(ProtocolManager.class);
+
+        PacketBroadcaster.create(protocolManager).broadcast(PlayerSet.of(), new WirePacket(1, new byte[0]));
+        verifyNoInteractions(protocolManager);
+    }
+}
@@ -0,0 +1,564 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PacketSidebarTest {
+
+    private ScoreboardPacketSink sink;
+
+    private PacketSidebarManager manager;
+
+    private PacketSidebar sidebar;
+
+    private static @NotNull Player playerMock(final @NotNull String name) {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(UUID.nameUUIDFromBytes(name.getBytes()));
+        when(mock.getName()).thenReturn(name);
+
+        return mock;
+    }
+
+    private static @NotNull PlayerSet receivers(final @NotNull Player player) {
+        return argThat(receivers -> receivers != null && receivers.size() == 1 && receivers.contains(player));
+    }
+
+    private static @NotNull TextModel<@NotNull Player> greeting(final @NotNull String greeting) {
+        return player -> greeting + ", " + player.getName();
+    }
+
+    @BeforeEach
+    void setUp() {
+        sink = mock(ScoreboardPacketSink.class);
+        manager = PacketSidebarManager.create(sink, Runnable::run);
+        sidebar = manager.createSidebar(player -> "Title");
+    }
+
+    private void tick() {
+        manager.tick();
+        verify(sink, atLeast(0)).flush();
+    }
+
+    private @NotNull String team(final @NotNull PacketSidebar.Line line) {
+        return sidebar.teamOf(line.slot());
+    }
+
+    private static @NotNull String entry(final @NotNull PacketSidebar.Line line) {
+        return PacketSidebar.entryOf(line.slot());
+    }
+
+    @Test
+    void addViewer_sendsFullState() {
+        val line = sidebar.addLine(greeting("Hi"), 7);
+        val john = playerMock("John");
+        tick();
+        verifyNoMoreInteractions(sink);
+
+        sidebar.viewers().add(john);
+        tick();
+
+        val inOrder = inOrder(sink);
+        inOrder.verify(sink).createObjective(receivers(john), eq("zs0"), eq("Title"));
+        inOrder.verify(sink).createTeam(receivers(john), eq(team(line)), eq(entry(line)), eq("Hi, John"));
+        inOrder.verify(sink).updateScore(receivers(john), eq("zs0"), eq(entry(line)), eq(7));
+        verifyNoMoreInteractions(sink);
+
+        assertEquals(1, sidebar.lines().count());
+        assertSame(line, sidebar.lines().at(0));
+    }
+
+    @Test
+    void textUpdate_sendsOnlyTeamUpdatePerViewer() {
+        val line = sidebar.addLine(greeting("Hi"), 0);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        sidebar.viewers().add(john);
+        sidebar.viewers().add(jack);
+        tick();
+        clearInvocations(sink);
+
+        line.text().onNext(greeting("Bye"));
+        tick();
+
+        verify(sink).updateTeam(receivers(john), eq(team(line)), eq("Bye, John"));
+        verify(sink).updateTeam(receivers(jack), eq(team(line)), eq("Bye, Jack"));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void textUpdate_sendsSingleTeamUpdateForEqualTexts() {
+        val line = sidebar.addLine(greeting("Hi"), 0);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        sidebar.viewers().add(john);
+        sidebar.viewers().add(jack);
+        tick();
+        clearInvocations(sink);
+
+        line.text().onNext(player -> "Online: 2");
+        tick();
+
+        verify(sink).updateTeam(
+                argThat(receivers -> receivers.size() == 2 && receivers.contains(john) && receivers.contains(jack)),
+                eq(team(line)), eq("Online: 2")
+        );
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void textUpdate_discardsSupersededRender() {
+        val line = sidebar.addLine(greeting("Hi"), 0);
+        sidebar.viewers().add(playerMock("John"));
+        tick();
+        clearInvocations(sink);
+
+        // the text gets updated again while the previous one is being rendered
+        line.text().onNext(player -> {
+            line.text().onNext(greeting("Fresh"));
+            return "Stale";
+        });
+        tick();
+        tick();
+
+        verify(sink, never()).updateTeam(any(), anyString(), eq("Stale"));
+        verify(sink).updateTeam(any(), eq(team(line)), eq("Fresh, John"));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void tick_rendersOnExecutorOnly() {
+        val tasks = new ArrayList<Runnable>();
+        val manager = PacketSidebarManager.create(sink, tasks::add);
+        val sidebar = manager.createSidebar(player -> "Title");
+        val renders = new AtomicInteger();
+        val line = sidebar.addLine(player -> "Hi #" + renders.incrementAndGet(), 0);
+        sidebar.viewers().add(playerMock("John"));
+        manager.tick();
+        assertEquals(1, tasks.size());
+        assertEquals(0, renders.get());
+
+        // the sidebar is still being rendered so its changes wait for the following tick
+        line.text().onNext(player -> "Bye");
+        manager.tick();
+        assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        verify(sink).createTeam(any(), anyString(), anyString(), eq("Hi #1"));
+        verify(sink, never()).updateTeam(any(), anyString(), anyString());
+
+        manager.tick();
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        verify(sink).updateTeam(any(), anyString(), eq("Bye"));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void tick_defersRejectedRenders() {
+        val rejections = new AtomicInteger(1);
+        val manager = PacketSidebarManager.create(sink, task -> {
+            if (rejections.getAndDecrement() > 0) throw new RejectedExecutionException();
+            task.run();
+        });
+        val john = playerMock("John");
+        manager.createSidebar(player -> "First").viewers().add(john);
+        manager.createSidebar(player -> "Second").viewers().add(john);
+
+        // one of the renders gets rejected while the other one still gets rendered and flushed
+        manager.tick();
+        verify(sink).createObjective(receivers(john), anyString(), anyString());
+        verify(sink).flush();
+
+        manager.tick();
+        verify(sink).createObjective(receivers(john), eq("zs0"), eq("First"));
+        verify(sink).createObjective(receivers(john), eq("zs1"), eq("Second"));
+    }
+
+    @Test
+    void render_showsSidebarAnewAfterFailure() {
+        val tasks = new ArrayList<Runnable>();
+        val manager = PacketSidebarManager.create(sink, tasks::add);
+        val sidebar = manager.createSidebar(player -> "Title");
+        val line = sidebar.addLine(player -> "Hi", 0);
+        val john = playerMock("John");
+        sidebar.viewers().add(john);
+        manager.tick();
+        tasks.remove(0).run();
+        clearInvocations(sink);
+
+        val failures = new AtomicInteger(1);
+        line.text().onNext(player -> {
+            if (failures.getAndDecrement() > 0) throw new IllegalStateException("Text is not ready");
+
+            return "Bye";
+        });
+        manager.tick();
+        tasks.remove(0).run();
+        verify(sink).removeObjective(receivers(john), eq("zs0"));
+
+        manager.tick();
+        tasks.remove(0).run();
+        val inOrder = inOrder(sink);
+        inOrder.verify(sink).createObjective(receivers(john), eq("zs0"), eq("Title"));
+        inOrder.verify(sink).createTeam(receivers(john), anyString(), anyString(), eq("Bye"));
+    }
+
+    @Test
+    void render_hidesSidebarAfterFailureOnlyFromShownViewers() {
+        val tasks = new ArrayList<Runnable>();
+        val manager = PacketSidebarManager.create(sink, tasks::add);
+        val sidebar = manager.createSidebar(player -> "Title");
+        val line = sidebar.addLine(player -> "Hi", 0);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        sidebar.viewers().addAll(List.of(john, jack));
+        manager.tick();
+        tasks.remove(0).run();
+        clearInvocations(sink);
+
+        // Jack gets hidden before the failure while Jim never gets shown
+        val jim = playerMock("Jim");
+        sidebar.viewers().remove(jack);
+        sidebar.viewers().add(jim);
+        line.text().onNext(player -> {
+            throw new IllegalStateException("Text is not ready");
+        });
+        manager.tick();
+        tasks.remove(0).run();
+        verify(sink).removeObjective(receivers(jack), eq("zs0"));
+        verify(sink).removeObjective(receivers(john), eq("zs0"));
+        verify(sink, never()).removeObjective(argThat(receivers -> receivers.contains(jim)), anyString());
+        verify(sink, never()).removeTeam(argThat(receivers -> receivers.contains(jim)), anyString());
+        verify(sink, times(2)).removeObjective(any(), anyString());
+    }
+
+    @Test
+    void overload_defersAndConflatesOrdinaryLines() {
+        val mspt = new double[]{SidebarUpdateScheduler.OVERLOADED_MSPT};
+        val manager = PacketSidebarManager.create(
+                sink, Runnable::run, SidebarUpdateScheduler.create(() -> mspt[0], 2, 1, 1, TimeUnit.HOURS)
+        );
+        val sidebar = manager.createSidebar(player -> "Title");
+        val ordinary = sidebar.addLine(player -> "Ordinary", 0);
+        val priority = sidebar.addLine(player -> "Priority", 0);
+        priority.setPriority(true);
+        sidebar.viewers().addAll(List.of(playerMock("John"), playerMock("Jack")));
+        manager.tick();
+        clearInvocations(sink);
+
+        // each viewer may receive a single ordinary update per two ticks
+        ordinary.text().onNext(player -> "First");
+        ordinary.text().onNext(player -> "Second");
+        ordinary.value().onNextInt(5);
+        priority.text().onNext(player -> "Urgent");
+        sidebar.title().onNext(player -> "Event");
+        manager.tick();
+        verify(sink).updateTeam(any(), eq(sidebar.teamOf(priority.slot())), eq("Urgent"));
+        verify(sink).updateObjective(any(), eq("zs0"), eq("Event"));
+        verify(sink).updateTeam(any(), eq(sidebar.teamOf(ordinary.slot())), eq("Second"));
+        verify(sink, never()).updateTeam(any(), anyString(), eq("First"));
+
+        manager.tick();
+        verify(sink, never()).updateScore(any(), anyString(), anyString(), eq(5));
+
+        manager.tick();
+        verify(sink).updateScore(any(), eq("zs0"), eq(PacketSidebar.entryOf(ordinary.slot())), eq(5));
+
+        // the load is gone so each viewer may receive an ordinary update per tick
+        mspt[0] = SidebarUpdateScheduler.RELAXED_MSPT;
+        ordinary.text().onNext(player -> "Third");
+        manager.tick();
+        verify(sink).updateTeam(any(), eq(sidebar.teamOf(ordinary.slot())), eq("Third"));
+    }
+
+    @Test
+    void valueUpdate_sendsOnlyChangedScores() {
+        sidebar.addLine(greeting("First"), 1);
+        val line = sidebar.addLine(greeting("Second"), 2);
+        sidebar.viewers().add(playerMock("John"));
+        tick();
+        clearInvocations(sink);
+
+        line.value().onNextInt(2);
+        tick();
+        verifyNoMoreInteractions(sink);
+
+        line.value().onNextInt(3);
+        tick();
+        verify(sink).updateScore(any(), eq("zs0"), eq(entry(line)), eq(3));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void removeLine_keepsTeamForReuse() {
+        val first = sidebar.addLine(greeting("First"), 0);
+        sidebar.addLine(greeting("Second"), 0);
+        sidebar.viewers().add(playerMock("John"));
+        tick();
+        clearInvocations(sink);
+        val freedTeam = team(first);
+        val freedEntry = entry(first);
+
+        assertTrue(sidebar.removeLine(first));
+        assertFalse(sidebar.removeLine(first));
+        tick();
+        verify(sink).removeScore(any(), eq("zs0"), eq(freedEntry));
+        verifyNoMoreInteractions(sink);
+
+        first.text().onNext(greeting("Ignored"));
+        tick();
+        verifyNoMoreInteractions(sink);
+
+        val third = sidebar.insertLine(0, greeting("Third"), 0);
+        tick();
+        assertEquals(freedTeam, team(third));
+        verify(sink).updateTeam(any(), eq(freedTeam), eq("Third, John"));
+        verify(sink).updateScore(any(), eq("zs0"), eq(freedEntry), eq(0));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void insertLine_inTheMiddleSendsOnlyNewLine() {
+        for (var index = 0; index < 15; index++) sidebar.addLine(greeting("Line #" + index), 0);
+        sidebar.viewers().add(playerMock("John"));
+        tick();
+        clearInvocations(sink);
+
+        val line = sidebar.insertLine(7, greeting("Inserted"), 0);
+        tick();
+
+        verify(sink).createTeam(any(), eq(team(line)), eq(entry(line)), eq("Inserted, John"));
+        verify(sink).updateScore(any(), eq("zs0"), eq(entry(line)), eq(0));
+        verifyNoMoreInteractions(sink);
+        assertTrue(sidebar.lines().at(6).slot() < line.slot());
+        assertTrue(line.slot() < sidebar.lines().at(8).slot());
+    }
+
+    @Test
+    void setLines_sortingByDistinctValuesSendsNothing() {
+        val lines = new ArrayList<PacketSidebar.Line>();
+        for (var index = 0; index < 15; index++) lines.add(sidebar.addLine(greeting("Player #" + index), index));
+        sidebar.viewers().add(playerMock("John"));
+        tick();
+        clearInvocations(sink);
+
+        lines.sort(Comparator.comparingInt(line -> -line.slot()));
+        sidebar.setLines(lines);
+        tick();
+        verifyNoMoreInteractions(sink);
+
+        // the leaderboard changes by a single score update
+        lines.get(14).value().onNextInt(100);
+        tick();
+        verify(sink).updateScore(any(), eq("zs0"), eq(entry(lines.get(14))), eq(100));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void moveLine_keepsEqualValuesInOrder() {
+        val first = sidebar.addLine(greeting("First"), 0);
+        val second = sidebar.addLine(greeting("Second"), 0);
+        val third = sidebar.addLine(greeting("Third"), 0);
+        sidebar.viewers().add(playerMock("John"));
+        tick();
+        clearInvocations(sink);
+
+        sidebar.moveLine(third, 0);
+        tick();
+
+        assertSame(third, sidebar.lines().at(0));
+        assertTrue(third.slot() < first.slot());
+        assertTrue(first.slot() < second.slot());
+        verify(sink).removeScore(any(), eq("zs0"), anyString());
+        verify(sink).createTeam(any(), eq(team(third)), eq(entry(third)), eq("Third, John"));
+        verify(sink).updateScore(any(), eq("zs0"), eq(entry(third)), eq(0));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void setLines_rejectsForeignLines() {
+        val other = PacketSidebarManager.create(sink).createSidebar(player -> "Other").addLine(greeting("Hi"), 0);
+
+        assertThrows(IllegalArgumentException.class, () -> sidebar.setLines(List.of(other)));
+        val line = sidebar.addLine(greeting("Hi"), 0);
+        assertThrows(IllegalArgumentException.class, () -> sidebar.setLines(List.of(line, line)));
+    }
+
+    @Test
+    void removeViewer_destroysSidebar() {
+        val line = sidebar.addLine(greeting("Hi"), 0);
+        val john = playerMock("John");
+        sidebar.viewers().add(john);
+        tick();
+        clearInvocations(sink);
+
+        sidebar.viewers().remove(john);
+        tick();
+
+        verify(sink).removeObjective(receivers(john), eq("zs0"));
+        verify(sink).removeTeam(receivers(john), eq(team(line)));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void addViewers_batchesDeltasOfTick() {
+        val line = sidebar.addLine(player -> "Hi", 0);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        val bob = playerMock("Bob");
+        val alice = playerMock("Alice");
+        sidebar.viewers().add(john);
+        tick();
+        clearInvocations(sink);
+
+        sidebar.viewers().add(jack);
+        sidebar.viewers().add(bob);
+        sidebar.viewers().add(alice);
+        sidebar.viewers().remove(alice);
+        tick();
+
+        val added = PlayerSet.of(jack, bob);
+        verify(sink).createObjective(eq(added), eq("zs0"), eq("Title"));
+        verify(sink).createTeam(eq(added), eq(team(line)), eq(entry(line)), eq("Hi"));
+        verify(sink).updateScore(eq(added), eq("zs0"), eq(entry(line)), eq(0));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void removeViewer_cancelledByReAddInSameTick() {
+        val line = sidebar.addVariableLine(player -> "Rank: ?", 0);
+        val john = playerMock("John");
+        sidebar.viewers().add(john);
+        line.set(john, "Rank: 1");
+        tick();
+        clearInvocations(sink);
+
+        sidebar.viewers().remove(john);
+        sidebar.viewers().add(john);
+        tick();
+
+        verifyNoMoreInteractions(sink);
+        assertEquals("Rank: 1", line.get(john));
+    }
+
+    @Test
+    void variableLine_sendsOnlyToAffectedViewer() {
+        val line = sidebar.addVariableLine(player -> "Coins: ?", 0);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        val bob = playerMock("Bob");
+        sidebar.viewers().addAll(List.of(john, jack, bob));
+        tick();
+        clearInvocations(sink);
+
+        // the viewers whose texts were set equally in the same tick receive the same packet
+        line.set(john, "Coins: 5");
+        line.set(jack, "Coins: 5");
+        tick();
+        verify(sink).updateTeam(
+                argThat(receivers -> receivers.size() == 2 && receivers.contains(john) && receivers.contains(jack)),
+                eq(team(line)), eq("Coins: 5")
+        );
+        line.set(john, "Coins: 5");
+        tick();
+        verifyNoMoreInteractions(sink);
+        assertEquals("Coins: 5", line.get(john));
+
+        // only the viewers seeing the default text receive its update
+        line.text().onNext(player -> "Coins: unknown");
+        tick();
+        verify(sink).updateTeam(receivers(bob), eq(team(line)), eq("Coins: unknown"));
+        verifyNoMoreInteractions(sink);
+
+        line.reset(jack);
+        tick();
+        verify(sink).updateTeam(receivers(jack), eq(team(line)), eq("Coins: unknown"));
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    void variableLine_keepsTextsSetAfterReAddDuringRender() {
+        val tasks = new ArrayList<Runnable>();
+        val manager = PacketSidebarManager.create(sink, tasks::add);
+        val sidebar = manager.createSidebar(player -> "Title");
+        val line = sidebar.addVariableLine(player -> "Coins: ?", 0);
+        val john = playerMock("John");
+        sidebar.viewers().add(john);
+        line.set(john, "Coins: 5");
+        manager.tick();
+        tasks.remove(0).run();
+
+        sidebar.viewers().remove(john);
+        manager.tick();
+        assertNull(line.get(john));
+
+        // the player returns and gets the new text while the removal is still being rendered
+        sidebar.viewers().add(john);
+        line.set(john, "Coins: 7");
+        tasks.remove(0).run();
+        verify(sink).removeObjective(receivers(john), eq("zs0"));
+        assertEquals("Coins: 7", line.get(john));
+
+        clearInvocations(sink);
+        manager.tick();
+        tasks.remove(0).run();
+        verify(sink).createTeam(receivers(john), anyString(), anyString(), eq("Coins: 7"));
+    }
+
+    @Test
+    void variableLine_fullStateUsesViewerTexts() {
+        val line = sidebar.addVariableLine(player -> "Rank: ?", 0);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        line.set(john, "Rank: 1");
+
+        sidebar.viewers().addAll(List.of(john, jack));
+        tick();
+
+        verify(sink).createTeam(receivers(john), eq(team(line)), eq(entry(line)), eq("Rank: 1"));
+        verify(sink).createTeam(receivers(jack), eq(team(line)), eq(entry(line)), eq("Rank: ?"));
+
+        sidebar.viewers().remove(john);
+        tick();
+        assertNull(line.get(john));
+        assertNull(line.get(jack));
+    }
+
+    @Test
+    void entryOf_preservesSlotOrder() {
+        for (var slot = 1; slot < PacketSidebar.MAX_LINES; slot++) assertTrue(
+                PacketSidebar.entryOf(slot - 1).compareToIgnoreCase(PacketSidebar.entryOf(slot)) < 0
+        );
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SidebarUpdateSchedulerTest {
+
+    @Test
+    void startTick_sharesBudgetBetweenViewers() {
+        val mspt = new double[]{20};
+        val scheduler = SidebarUpdateScheduler.create(() -> mspt[0], 1000, 100, 1, TimeUnit.SECONDS);
+
+        scheduler.startTick(4);
+        assertEquals(250, scheduler.viewerShare(), 1e-9);
+
+        scheduler.startTick(0);
+        assertEquals(1000, scheduler.viewerShare(), 1e-9);
+    }
+
+    @Test
+    void startTick_shrinksBudgetWithMspt() {
+        val mspt = new double[]{SidebarUpdateScheduler.RELAXED_MSPT};
+        val scheduler = SidebarUpdateScheduler.create(() -> mspt[0], 1000, 100, 1, TimeUnit.SECONDS);
+
+        scheduler.startTick(10);
+        assertEquals(100, scheduler.viewerShare(), 1e-9);
+
+        mspt[0] = (SidebarUpdateScheduler.RELAXED_MSPT + SidebarUpdateScheduler.OVERLOADED_MSPT) / 2;
+        scheduler.startTick(10);
+        assertEquals(55, scheduler.viewerShare(), 1e-9);
+
+        mspt[0] = SidebarUpdateScheduler.OVERLOADED_MSPT * 2;
+        scheduler.startTick(10);
+        assertEquals(10, scheduler.viewerShare(), 1e-9);
+    }
+
+    @Test
+    void startTick_shrinksBudgetWithRenderTime() {
+        val scheduler = SidebarUpdateScheduler.create(() -> 20, 1000, 100, 10, TimeUnit.MILLISECONDS);
+
+        scheduler.recordRender(TimeUnit.MILLISECONDS.toNanos(20));
+        scheduler.startTick(1);
+        assertEquals(500, scheduler.viewerShare(), 1e-9);
+
+        // the render time is accounted only once
+        scheduler.startTick(1);
+        assertEquals(1000, scheduler.viewerShare(), 1e-9);
+
+        scheduler.recordRender(TimeUnit.SECONDS.toNanos(10));
+        scheduler.startTick(1);
+        assertEquals(100, scheduler.viewerShare(), 1e-9);
+    }
+
+    @Test
+    void create_rejectsInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> SidebarUpdateScheduler.create(
+                () -> 20, 100, 0, 1, TimeUnit.MILLISECONDS
+        ));
+        assertThrows(IllegalArgumentException.class, () -> SidebarUpdateScheduler.create(
+                () -> 20, 100, 200, 1, TimeUnit.MILLISECONDS
+        ));
+        assertThrows(IllegalArgumentException.class, () -> SidebarUpdateScheduler.create(
+                () -> 20, 100, 10, 0, TimeUnit.MILLISECONDS
+        ));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.divinecraft.zaraza.common.sidebar;
+
+import lombok.val;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import ru.divinecraft.zaraza.common.api.player.PlayerSet;
+import ru.progrm_jarvis.ultimatemessenger.format.model.TextModel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TextRenderCacheTest {
+
+    private static @NotNull Player playerMock(final @NotNull String name) {
+        val mock = mock(Player.class);
+        when(mock.getUniqueId()).thenReturn(UUID.nameUUIDFromBytes(name.getBytes()));
+        when(mock.getName()).thenReturn(name);
+
+        return mock;
+    }
+
+    private static @NotNull TextModel<@NotNull Player> countingModel(
+            final @NotNull AtomicInteger renders, final boolean dynamic,
+            final @NotNull Function<@NotNull Player, @NotNull String> renderer
+    ) {
+        return new TextModel<>() {
+            @Override
+            public String getText(final Player target) {
+                renders.incrementAndGet();
+
+                return renderer.apply(target);
+            }
+
+            @Override
+            public boolean isDynamic() {
+                return dynamic;
+            }
+        };
+    }
+
+    private static @NotNull Map<String, PlayerSet> render(final @NotNull TextRenderCache cache,
+                                                          final @NotNull TextModel<@NotNull Player> model,
+                                                          final @NotNull PlayerSet receivers) {
+        val groups = new HashMap<String, PlayerSet>();
+        cache.render(model, receivers, groups::put);
+
+        return groups;
+    }
+
+    @Test
+    void render_staticModelIsRenderedOnce() {
+        val renders = new AtomicInteger();
+        val model = countingModel(renders, false, player -> "Lobby");
+        val players = PlayerSet.of(playerMock("John"), playerMock("Jack"), playerMock("Bob"));
+        val cache = new TextRenderCache();
+
+        assertEquals(Map.of("Lobby", players), render(cache, model, players));
+        assertEquals(Map.of("Lobby", players), render(cache, model, players));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void render_dynamicModelGroupsEqualOutputs() {
+        val renders = new AtomicInteger();
+        val model = countingModel(renders, true, player -> "Length: " + player.getName().length());
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        val bob = playerMock("Bob");
+        val cache = new TextRenderCache();
+
+        assertEquals(
+                Map.of("Length: 4", PlayerSet.of(john, jack), "Length: 3", PlayerSet.of(bob)),
+                render(cache, model, PlayerSet.of(john, jack, bob))
+        );
+        assertEquals(3, renders.get());
+
+        assertEquals(Map.of("Length: 4", PlayerSet.of(jack)), render(cache, model, PlayerSet.of(jack)));
+        assertEquals("Length: 3", cache.render(model, bob));
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    void forget_rendersAgain() {
+        val renders = new AtomicInteger();
+        val model = countingModel(renders, true, Player::getName);
+        val john = playerMock("John");
+        val jack = playerMock("Jack");
+        val cache = new TextRenderCache();
+
+        render(cache, model, PlayerSet.of(john, jack));
+        assertEquals(2, renders.get());
+
+        cache.forget(PlayerSet.of(john));
+        render(cache, model, PlayerSet.of(john, jack));
+        assertEquals(3, renders.get());
+
+        cache.forget(model);
+        render(cache, model, PlayerSet.of(john, jack));
+        assertEquals(5, renders.get());
+    }
+}